@@ -2,7 +2,10 @@ package com.fairshare.fairshare.api;
 
 import java.nio.file.AccessDeniedException;
 import java.time.Instant;
+import java.util.concurrent.TimeoutException;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +13,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -36,9 +40,9 @@ public class GlobalExceptionHandler {
                 req.getRequestURI());
     }
 
-    @ExceptionHandler(IllegalArgumentException.class)
+    @ExceptionHandler({ IllegalArgumentException.class, ConstraintViolationException.class })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ApiError handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest req) {
+    public ApiError handleIllegalArgument(RuntimeException ex, HttpServletRequest req) {
         return new ApiError(
                 Instant.now(),
                 HttpStatus.BAD_REQUEST.value(),
@@ -47,6 +51,29 @@ public class GlobalExceptionHandler {
                 req.getRequestURI());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiError handleConflict(OptimisticLockingFailureException ex, HttpServletRequest req) {
+        return new ApiError(
+                Instant.now(),
+                HttpStatus.CONFLICT.value(),
+                HttpStatus.CONFLICT.getReasonPhrase(),
+                messageOr("Resource was changed concurrently, try again", ex),
+                req.getRequestURI());
+    }
+
+    /* the worker queue is full, or a write took longer than the caller waits */
+    @ExceptionHandler({ TaskRejectedException.class, TimeoutException.class })
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleBusy(Exception ex, HttpServletRequest req) {
+        return new ApiError(
+                Instant.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                "Server is busy, try again",
+                req.getRequestURI());
+    }
+
     private static String messageOr(String fallback, Throwable ex) {
         String msg = ex.getMessage();
         return (msg == null || msg.isBlank()) ? fallback : msg;
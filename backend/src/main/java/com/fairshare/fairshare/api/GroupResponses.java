@@ -0,0 +1,138 @@
+package com.fairshare.fairshare.api;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fairshare.fairshare.service.GroupResponseCache;
+
+/**
+ * Conditional and cached responses of the group reads. The ETag is the
+ * group's version plus the negotiated format and content coding, so no two
+ * representations of the same version share a tag.
+ */
+public final class GroupResponses {
+
+    /* the version, then whatever format, coding or rates suffixes follow */
+    private static final Pattern STRONG_TAG = Pattern.compile("\"(\\d{1,18})(-[0-9a-z-]*)?\"");
+
+    private GroupResponses() {
+    }
+
+    /**
+     * The format the client prefers amongst the ones we write, picked the way
+     * Spring MVC picks a converter: the highest quality wins, then a type
+     * named outright over a wildcard, then the type listed first
+     *
+     * @param request request being answered
+     * @return format to answer in, JSON if the client did not say
+     */
+    public static GroupResponseCache.Format format(ServletWebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return GroupResponseCache.Format.JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return GroupResponseCache.Format.JSON;
+        }
+
+        GroupResponseCache.Format best = GroupResponseCache.Format.JSON;
+        double bestScore = 0;
+        for (MediaType type : accepted) {
+            for (GroupResponseCache.Format format : GroupResponseCache.Format.values()) {
+                // quality first, then whether the type was named outright
+                double score = type.getQualityValue() * 2 + (type.isWildcardSubtype() ? 0 : 1);
+                if (type.includes(format.mediaType()) && type.getQualityValue() > 0 && score > bestScore) {
+                    best = format;
+                    bestScore = score;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sets the ETag for a group read and checks it against If-None-Match
+     *
+     * @param request      request being answered
+     * @param version      the group version the body is current for, plus any
+     *                     other input it depends on
+     * @param compressible true if the body is sent by {@link #ok}, which
+     *                     gzips it for clients that accept that
+     * @return true if the client's copy is current and a 304 was set up
+     */
+    public static boolean notModified(ServletWebRequest request, String version, boolean compressible) {
+        GroupResponseCache.Format format = format(request);
+        String etag = format == GroupResponseCache.Format.JSON ? version
+                : version + "-" + format.name().toLowerCase();
+        request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (compressible) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // a strong tag names one set of bytes, so the gzipped variant gets
+            // its own. Small bodies go out plain under it, which is still one
+            // tag per representation
+            if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                etag += "-gzip";
+            }
+        }
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * The group version an If-Match header holds, for writes that only make
+     * sense against what the client read. Any of our tags will do, the
+     * format and coding suffixes are ignored.
+     *
+     * @param ifMatch If-Match header, may be null
+     * @return the version, null if the header is absent or {@code *}
+     * @throws IllegalArgumentException if the header is not one of our tags
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher tag = STRONG_TAG.matcher(ifMatch.trim());
+        if (!tag.matches()) {
+            throw new IllegalArgumentException("If-Match must be a single ETag of this group");
+        }
+        return Long.valueOf(tag.group(1));
+    }
+
+    /**
+     * @param body    cached body to send
+     * @param request request being answered, already tagged by
+     *                {@link #notModified} as compressible
+     * @return a 200 with the body's bytes, the gzipped copy to clients that
+     *         accept it
+     */
+    public static ResponseEntity<Object> ok(GroupResponseCache.Body body, ServletWebRequest request) {
+        var response = ResponseEntity.ok().contentType(body.format().mediaType());
+        if (body.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.data());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 means "anything but gzip"
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,19 @@
 package com.fairshare.fairshare.controller;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -10,17 +21,42 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.api.GroupResponses;
 import com.fairshare.fairshare.dto.CreateExpenseRequest;
 import com.fairshare.fairshare.dto.CreateSettlementRequest;
 import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpenseFilter;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.dto.GroupDebtsDTO;
+import com.fairshare.fairshare.dto.ImportSummaryDTO;
+import com.fairshare.fairshare.dto.SettleUpPlanDTO;
 import com.fairshare.fairshare.dto.SettlementDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.service.DebtService;
+import com.fairshare.fairshare.service.ExpenseBatcher;
+import com.fairshare.fairshare.service.ExpenseImportService;
 import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.FxRateService;
+import com.fairshare.fairshare.service.GroupResponseCache;
+import com.fairshare.fairshare.service.GroupVersions;
+import com.fairshare.fairshare.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @CrossOrigin("*")
@@ -29,53 +65,312 @@ import jakarta.validation.Valid;
 @RequestMapping("/groups/{groupId}")
 public class ExpenseController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final ExpenseService expenseService;
+    private final ExpenseImportService expenseImportService;
+    private final ExpenseBatcher expenseBatcher;
+    private final DebtService debtService;
+    private final IdempotencyService idempotencyService;
+    private final GroupVersions groupVersions;
+    private final FxRateService fxRateService;
+    private final GroupResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    /* amounts are read back as decimals of the scale the DTO wrote them in */
+    private final ObjectReader treeReader;
 
-    public ExpenseController(ExpenseService expenseService) {
+    public ExpenseController(ExpenseService expenseService, ExpenseImportService expenseImportService,
+            ExpenseBatcher expenseBatcher, DebtService debtService, IdempotencyService idempotencyService,
+            GroupVersions groupVersions, FxRateService fxRateService, GroupResponseCache responseCache,
+            ObjectMapper objectMapper) {
         this.expenseService = expenseService;
+        this.expenseImportService = expenseImportService;
+        this.expenseBatcher = expenseBatcher;
+        this.debtService = debtService;
+        this.idempotencyService = idempotencyService;
+        this.groupVersions = groupVersions;
+        this.fxRateService = fxRateService;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.treeReader = objectMapper.reader(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .without(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES);
     }
 
+    /**
+     * With an Idempotency-Key header a retried request returns the first
+     * response byte for byte, in the format it asks for, instead of creating
+     * another expense. Without one, and with batching on, the expense is
+     * committed together with other requests for the group. Not
+     * transactional here: the service or batch opens the transaction, so a
+     * waiting request holds no connection.
+     */
     @PostMapping("/expenses")
-    @ResponseStatus(HttpStatus.CREATED)
-    @Transactional
-    public ExpenseDTO createExpense(
+    public ResponseEntity<Object> createExpense(
             @PathVariable Long groupId,
-            @RequestBody @Valid CreateExpenseRequest request) throws Exception {
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody @Valid CreateExpenseRequest request,
+            ServletWebRequest webRequest) throws Exception {
         // TODO: input normalization (trim description, etc.)
-        return expenseService.createExpense(
+        IdempotencyService.Action<ExpenseDTO> create = () -> expenseService.createExpense(
                 groupId,
                 request.payerId(),
                 request.amount(),
                 request.currency(),
                 request.description(),
                 request.occurredAt());
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(
+                    expenseBatcher.isEnabled() ? expenseBatcher.create(groupId, request) : create.run());
+        }
+        return created(idempotencyService.execute(
+                "POST /groups/" + groupId + "/expenses", idempotencyKey, request, create), webRequest);
+    }
+
+    /**
+     * Bulk import from an NDJSON or CSV body. The response is an NDJSON report
+     * with one line per rejected row, streamed while the upload is processed,
+     * followed by a summary line. Not transactional here: the import commits
+     * chunk by chunk.
+     */
+    @PostMapping(value = "/expenses/import", consumes = { NDJSON, "text/csv" })
+    public void importExpenses(
+            @PathVariable Long groupId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        MediaType type = MediaType.parseMediaType(request.getContentType());
+        var format = type.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ExpenseImportService.Format.CSV
+                : ExpenseImportService.Format.NDJSON;
+        Charset charset = type.getCharset() != null ? type.getCharset() : StandardCharsets.UTF_8;
+
+        ImportSummaryDTO summary = expenseImportService.importExpenses(groupId,
+                new InputStreamReader(request.getInputStream(), charset), format,
+                error -> writeLine(response, error));
+        writeLine(response, summary);
+        response.flushBuffer();
+    }
+
+    /* headers are set on the first line so earlier errors still get the usual json body */
+    private void writeLine(HttpServletResponse response, Object line) {
+        try {
+            if (!response.isCommitted() && response.getContentType() == null) {
+                response.setContentType(NDJSON);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            }
+            PrintWriter out = response.getWriter();
+            out.write(objectMapper.writeValueAsString(line));
+            out.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The group's whole expense history as one JSON array, oldest first,
+     * written while it is read so memory stays flat at any group size. For
+     * browsing use the paged GET /expenses instead.
+     */
+    @GetMapping("/expenses/export")
+    public void exportExpenses(@PathVariable Long groupId, HttpServletResponse response) throws Exception {
+        JsonArrayWriter out = new JsonArrayWriter(response);
+        expenseService.exportExpenses(groupId, out::write);
+        out.close();
+    }
+
+    /*
+     * opened on the first element, so a 404 before it still gets the usual
+     * json error body; the generator is not flushed per element
+     */
+    private final class JsonArrayWriter {
+        private final HttpServletResponse response;
+        private final ObjectWriter writer = objectMapper.writerFor(ExpenseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private JsonGenerator json;
+
+        JsonArrayWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        void write(ExpenseDTO expense) {
+            try {
+                writer.writeValue(open(), expense);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void close() throws IOException {
+            open().writeEndArray();
+            json.close();
+        }
+
+        private JsonGenerator open() throws IOException {
+            if (json == null) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                json = writer.createGenerator(response.getOutputStream());
+                json.writeStartArray();
+            }
+            return json;
+        }
     }
 
+    /**
+     * Keyset pages of a group's expenses, newest first, optionally filtered
+     * by occurred-at range [from, to), payer, participant, amount range,
+     * currency and description text ({@code q}, matched as a substring or,
+     * with {@code fuzzy=true}, by similarity). Send the same filters along
+     * with a cursor. The ETag is the group's version, so a poll with a
+     * matching If-None-Match gets a 304 without reading any expense.
+     */
     @GetMapping("/expenses")
     @Transactional(readOnly = true)
-    public List<ExpenseDTO> listGroupExpenses(@PathVariable Long groupId) throws Exception {
-        // TODO: pagination/filtering in future
-        return expenseService.listGroupExpenses(groupId);
+    public ExpensePageDTO listGroupExpenses(
+            @PathVariable Long groupId,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) Long payerId,
+            @RequestParam(required = false) Long participantId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Expense.CurrencyCode currency,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) throws Exception {
+        // read before the page: a write in between leaves the tag older than
+        // the body, so the next poll just gets the page again
+        if (GroupResponses.notModified(request, String.valueOf(groupVersions.current(groupId)), false)) {
+            return null;
+        }
+        String text = q != null && !q.isBlank() ? q.trim() : null;
+        return expenseService.listGroupExpenses(groupId, limit, before, after, new ExpenseFilter(
+                from, to, payerId, participantId, minAmount, maxAmount, currency, text, fuzzy));
     }
 
+    /**
+     * Tagged with the group's version like the expense pages. Converted
+     * balances also depend on the exchange rates, which are not part of any
+     * group, so their ETag carries the rates' fingerprint as well. The
+     * current balances are served from {@link GroupResponseCache} until the
+     * group changes.
+     */
     @GetMapping("/balances")
     @Transactional(readOnly = true)
-    public List<BalanceDTO> getUserBalances(@PathVariable Long groupId) throws Exception {
-        return expenseService.getUserBalances(groupId);
+    public ResponseEntity<Object> getUserBalances(@PathVariable Long groupId,
+            @RequestParam(required = false) Instant asOf,
+            @RequestParam(required = false) Expense.CurrencyCode currency,
+            ServletWebRequest request) throws Exception {
+        long version = groupVersions.current(groupId);
+        String etag = String.valueOf(version);
+        if (currency != null) {
+            etag += "-" + Integer.toHexString(fxRateService.snapshot().fingerprint());
+        }
+        // only the current balances are cached, and so gzipped
+        boolean cached = asOf == null && currency == null;
+        if (GroupResponses.notModified(request, etag, cached)) {
+            return null;
+        }
+        if (cached) {
+            return GroupResponses.ok(responseCache.get(groupId, GroupResponseCache.Resource.BALANCES,
+                    GroupResponses.format(request), version, () -> expenseService.getUserBalances(groupId)),
+                    request);
+        }
+        return ResponseEntity.ok(expenseService.getUserBalances(groupId, asOf, currency));
+    }
+
+    /**
+     * Tagged with the group's version, which POST /settlements/batch takes
+     * back in If-Match to record the plan only while it is still current.
+     */
+    @GetMapping("/settle-up-plan")
+    @Transactional(readOnly = true)
+    public SettleUpPlanDTO getSettleUpPlan(@PathVariable Long groupId, ServletWebRequest request)
+            throws Exception {
+        if (GroupResponses.notModified(request, String.valueOf(groupVersions.current(groupId)), false)) {
+            return null;
+        }
+        return expenseService.getSettleUpPlan(groupId);
+    }
+
+    @GetMapping("/debts")
+    public GroupDebtsDTO getDebts(@PathVariable Long groupId) throws Exception {
+        return debtService.getDebts(groupId);
     }
 
+    @PostMapping("/balances/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebuildBalances(@PathVariable Long groupId) throws Exception {
+        expenseService.rebuildBalances(groupId);
+    }
+
+    /**
+     * Not transactional here: with an Idempotency-Key the claim and the
+     * settlement share the transaction {@link IdempotencyService} opens, and
+     * a replay answered from its cache opens none.
+     */
     @PostMapping("/settlements")
-    @ResponseStatus(HttpStatus.CREATED)
-    @Transactional
-    public SettlementDTO createSettlement(
+    public ResponseEntity<Object> createSettlement(
             @PathVariable Long groupId,
-            @RequestBody @Valid CreateSettlementRequest request) throws Exception {
-        return expenseService.createSettlement(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody @Valid CreateSettlementRequest request,
+            ServletWebRequest webRequest) throws Exception {
+        IdempotencyService.Action<SettlementDTO> create = () -> expenseService.createSettlement(
                 groupId,
                 request.payerId(),
                 request.payeeId(),
                 request.amount(),
                 request.currency());
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(create.run());
+        }
+        return created(idempotencyService.execute(
+                "POST /groups/" + groupId + "/settlements", idempotencyKey, request, create), webRequest);
+    }
+
+    /**
+     * Records a whole settle-up in one request and one transaction, e.g. the
+     * transfers of the settle-up plan. All or nothing: one invalid settlement
+     * rejects the batch. With If-Match set to the ETag the plan (or the
+     * balances) came with, a group that changed since answers 409 and nothing
+     * is recorded.
+     */
+    @PostMapping("/settlements/batch")
+    public ResponseEntity<Object> createSettlements(
+            @PathVariable Long groupId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody List<@Valid CreateSettlementRequest> requests,
+            ServletWebRequest webRequest) throws Exception {
+        Long expectedVersion = GroupResponses.expectedVersion(ifMatch);
+        IdempotencyService.Action<List<SettlementDTO>> create = () -> expenseService.createSettlements(groupId,
+                requests, expectedVersion);
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(create.run());
+        }
+        return created(idempotencyService.execute(
+                "POST /groups/" + groupId + "/settlements/batch", idempotencyKey, requests, create), webRequest);
+    }
+
+    /*
+     * the stored json as is, so replays match the first response exactly.
+     * CBOR and Smile are re-encoded from it by their converter, the first
+     * response as well, so those replays match byte for byte too
+     */
+    private ResponseEntity<Object> created(IdempotencyService.Outcome outcome, ServletWebRequest request)
+            throws IOException {
+        GroupResponseCache.Format format = GroupResponses.format(request);
+        var response = ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()));
+        if (format == GroupResponseCache.Format.JSON) {
+            return response.body(outcome.body());
+        }
+        return response.body(treeReader.readTree(outcome.body()));
     }
 
 }
@@ -0,0 +1,37 @@
+package com.fairshare.fairshare.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fairshare.fairshare.dto.FxRateDTO;
+import com.fairshare.fairshare.service.FxRateService;
+
+import jakarta.validation.Valid;
+
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/fx-rates")
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    public FxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping
+    public List<FxRateDTO> getRates() {
+        return fxRateService.snapshot().rates();
+    }
+
+    @PutMapping
+    public List<FxRateDTO> loadRates(@RequestBody List<@Valid FxRateDTO> rates) {
+        return fxRateService.loadRates(rates);
+    }
+}
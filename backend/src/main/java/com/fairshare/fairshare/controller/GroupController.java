@@ -1,10 +1,10 @@
 package com.fairshare.fairshare.controller;
 
 import java.nio.file.AccessDeniedException;
-import java.util.List;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,12 +15,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.fairshare.fairshare.api.GroupResponses;
 import com.fairshare.fairshare.dto.AddMemberRequest;
 import com.fairshare.fairshare.dto.CreateGroupRequest;
 import com.fairshare.fairshare.dto.GroupDTO;
+import com.fairshare.fairshare.dto.GroupPageDTO;
 import com.fairshare.fairshare.dto.MembershipDTO;
+import com.fairshare.fairshare.service.GroupResponseCache;
 import com.fairshare.fairshare.service.GroupService;
+import com.fairshare.fairshare.service.GroupVersions;
 
 @CrossOrigin("*")
 @RestController
@@ -28,9 +33,14 @@ import com.fairshare.fairshare.service.GroupService;
 public class GroupController {
 
     private final GroupService groupService;
+    private final GroupVersions groupVersions;
+    private final GroupResponseCache responseCache;
 
-    public GroupController(GroupService groupService) {
+    public GroupController(GroupService groupService, GroupVersions groupVersions,
+            GroupResponseCache responseCache) {
         this.groupService = groupService;
+        this.groupVersions = groupVersions;
+        this.responseCache = responseCache;
     }
 
     @PostMapping
@@ -59,13 +69,26 @@ public class GroupController {
         groupService.removeMember(requesterUserId, targetUserId, groupId);
     }
 
+    /**
+     * Tagged with the group's version, a matching If-None-Match gets a 304
+     * without reading the members. Otherwise served from
+     * {@link GroupResponseCache} until the group changes.
+     */
     @GetMapping("/{id}/members")
-    public List<MembershipDTO> listAllMembers(@PathVariable Long id) throws NotFoundException {
-        return groupService.listAllMembers(id);
+    public ResponseEntity<Object> listAllMembers(@PathVariable Long id, ServletWebRequest request)
+            throws NotFoundException {
+        long version = groupVersions.current(id);
+        if (GroupResponses.notModified(request, String.valueOf(version), true)) {
+            return null;
+        }
+        return GroupResponses.ok(responseCache.get(id, GroupResponseCache.Resource.MEMBERS,
+                GroupResponses.format(request), version, () -> groupService.listAllMembers(id)), request);
     }
 
     @GetMapping
-    public List<GroupDTO> listAllGroups() {
-        return groupService.listAllGroups();
+    public GroupPageDTO listGroups(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String after) {
+        return groupService.listGroups(limit, after);
     }
 }
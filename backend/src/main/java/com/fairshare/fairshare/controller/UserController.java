@@ -16,8 +16,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fairshare.fairshare.dto.CreateUserRequest;
+import com.fairshare.fairshare.dto.UserBalancesDTO;
 import com.fairshare.fairshare.dto.UserDTO;
+import com.fairshare.fairshare.dto.UserGroupPageDTO;
 import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.service.GroupService;
+import com.fairshare.fairshare.service.UserBalanceService;
 import com.fairshare.fairshare.service.UserService;
 
 import jakarta.validation.Valid;
@@ -28,9 +32,14 @@ import jakarta.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final UserBalanceService userBalanceService;
+    private final GroupService groupService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserBalanceService userBalanceService,
+            GroupService groupService) {
         this.userService = userService;
+        this.userBalanceService = userBalanceService;
+        this.groupService = groupService;
     }
 
     @PostMapping
@@ -48,17 +57,21 @@ public class UserController {
                 user.getUserEmail());
     }
 
+    @GetMapping("/{id}/balances")
+    public UserBalancesDTO getUserBalances(@PathVariable Long id) throws NotFoundException {
+        return userBalanceService.getUserBalances(id);
+    }
+
+    @GetMapping("/{id}/groups")
+    public UserGroupPageDTO getUserGroups(@PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String after) throws NotFoundException {
+        return groupService.listUserGroups(id, limit, after);
+    }
+
     @GetMapping
     public List<UserDTO> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-
-        // Map each user in users to a DTO
-        return users.stream()
-                .map(u -> new UserDTO(
-                        u.getUserId(),
-                        u.getUserName(),
-                        u.getUserEmail()))
-                .toList();
+        return userService.getAllUsers();
     }
 
     @GetMapping("/by-email")
@@ -0,0 +1,8 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+
+public record CurrencyAmountDTO(
+        String currency,
+        BigDecimal amount) {
+}
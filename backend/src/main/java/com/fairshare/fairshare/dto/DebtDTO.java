@@ -0,0 +1,10 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+
+public record DebtDTO(
+        // fromUserId owes toUserId the amount
+        Long fromUserId,
+        Long toUserId,
+        BigDecimal amount) {
+}
@@ -0,0 +1,40 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fairshare.fairshare.entity.Expense;
+
+/**
+ * Optional criteria for listing a group's expenses. Null fields are not
+ * filtered on.
+ *
+ * @param from          occurred at or after
+ * @param to            occurred before
+ * @param payerId       paid by this user
+ * @param participantId this user has a share in it
+ * @param minAmount     amount at least
+ * @param maxAmount     amount at most
+ * @param currency      in this currency
+ * @param q             text to look for in the description
+ * @param fuzzy         match {@code q} by trigram similarity instead of as a
+ *                      substring
+ */
+public record ExpenseFilter(
+        Instant from,
+        Instant to,
+        Long payerId,
+        Long participantId,
+        BigDecimal minAmount,
+        BigDecimal maxAmount,
+        Expense.CurrencyCode currency,
+        String q,
+        boolean fuzzy) {
+
+    public static final ExpenseFilter NONE = new ExpenseFilter(null, null, null, null, null, null, null, null, false);
+
+    public boolean isEmpty() {
+        return from == null && to == null && payerId == null && participantId == null && minAmount == null
+                && maxAmount == null && currency == null && q == null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record ExpensePageDTO(
+        // newest first
+        List<ExpenseDTO> items,
+        // pass as ?before= to get older expenses, null when there are none
+        String nextCursor,
+        // pass as ?after= to get newer expenses, null when there are none
+        String prevCursor) {
+}
@@ -0,0 +1,12 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record FxRateDTO(
+        @NotNull String baseCurrency,
+        @NotNull String quoteCurrency,
+        @NotNull @Positive BigDecimal rate) {
+}
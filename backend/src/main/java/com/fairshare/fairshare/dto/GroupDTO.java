@@ -5,5 +5,6 @@ import java.time.Instant;
 public record GroupDTO(
         Long id,
         String name,
-        Instant createdAt) {
+        Instant createdAt,
+        long version) {
 }
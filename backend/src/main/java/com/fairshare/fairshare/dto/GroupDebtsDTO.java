@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record GroupDebtsDTO(
+        Long groupId,
+        // every pair of members that does not net to zero
+        List<DebtDTO> debts) {
+}
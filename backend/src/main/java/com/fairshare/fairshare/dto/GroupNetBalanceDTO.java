@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record GroupNetBalanceDTO(
+        Long groupId,
+        // net per currency, positive = owed, empty if the group has no activity
+        List<CurrencyAmountDTO> balances) {
+}
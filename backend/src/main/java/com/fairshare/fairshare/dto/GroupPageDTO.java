@@ -0,0 +1,10 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record GroupPageDTO(
+        // oldest group first
+        List<GroupDTO> items,
+        // pass as ?after= to get the next groups, null when there are none
+        String nextCursor) {
+}
@@ -0,0 +1,6 @@
+package com.fairshare.fairshare.dto;
+
+public record ImportErrorDTO(
+        long line,
+        String error) {
+}
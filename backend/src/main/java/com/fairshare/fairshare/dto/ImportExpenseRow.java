@@ -0,0 +1,20 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import com.fairshare.fairshare.entity.Expense;
+
+/**
+ * One expense of a bulk import. Without shares the amount is split equally
+ * amongst the group's members.
+ */
+public record ImportExpenseRow(
+        Long payerId,
+        BigDecimal amount,
+        Expense.CurrencyCode currency,
+        String description,
+        Instant occurredAt,
+        List<ImportShareRow> shares) {
+}
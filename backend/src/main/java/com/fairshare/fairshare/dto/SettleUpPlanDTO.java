@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record SettleUpPlanDTO(
+        Long groupId,
+        // transfers that bring every member's balance to zero
+        List<TransferDTO> transfers) {
+}
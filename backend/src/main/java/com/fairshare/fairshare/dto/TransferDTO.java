@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.dto;
+
+import java.math.BigDecimal;
+
+public record TransferDTO(
+        Long fromUserId,
+        Long toUserId,
+        BigDecimal amount) {
+}
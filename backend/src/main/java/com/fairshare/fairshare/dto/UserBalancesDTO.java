@@ -0,0 +1,10 @@
+package com.fairshare.fairshare.dto;
+
+import java.util.List;
+
+public record UserBalancesDTO(
+        Long userId,
+        List<GroupNetBalanceDTO> groups,
+        // net across all groups, per currency
+        List<CurrencyAmountDTO> totals) {
+}
@@ -0,0 +1,15 @@
+package com.fairshare.fairshare.dto;
+
+import java.time.Instant;
+
+import com.fairshare.fairshare.entity.Membership;
+
+public record UserGroupDTO(
+        Long id,
+        String name,
+        Instant createdAt,
+        long version,
+        long memberCount,
+        // the user's role in the group
+        Membership.Role role) {
+}
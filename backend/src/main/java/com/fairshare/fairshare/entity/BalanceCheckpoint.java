@@ -0,0 +1,108 @@
+package com.fairshare.fairshare.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A user's net balance within a group as of a point in time. As-of balance
+ * reads start from the nearest checkpoint and only replay what came after it.
+ */
+@Entity
+@Table(name = "balance_checkpoint")
+@IdClass(BalanceCheckpoint.Key.class)
+public class BalanceCheckpoint {
+
+    /* ==== attributes ==== */
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "as_of", columnDefinition = "timestamptz")
+    private Instant asOf;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotNull
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    /* ==== composite key ==== */
+
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Instant asOf;
+        private Long userId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Instant asOf, Long userId) {
+            this.groupId = groupId;
+            this.asOf = asOf;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return Objects.equals(groupId, other.groupId) && Objects.equals(asOf, other.asOf)
+                    && Objects.equals(userId, other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, asOf, userId);
+        }
+    }
+
+    /* ==== getters and setters ==== */
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Instant getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(Instant asOf) {
+        this.asOf = asOf;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+}
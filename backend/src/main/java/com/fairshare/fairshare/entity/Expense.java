@@ -19,6 +19,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
@@ -31,7 +32,8 @@ public class Expense {
     /* ==== attributes ==== */
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+    @SequenceGenerator(name = "expense_seq", sequenceName = "expenses_expense_id_seq", allocationSize = 50)
     @Column(name = "expense_id")
     private Long expenseId;
 
@@ -61,6 +63,20 @@ public class Expense {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // SHARES: one expense_share row per participant
+    // EQUAL: split equally across the members in participantSetId, no share rows
+    public enum SplitMode {
+        SHARES, EQUAL
+    }
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "split_mode", nullable = false, length = 16)
+    private SplitMode splitMode = SplitMode.SHARES;
+
+    @Column(name = "participant_set_id")
+    private Long participantSetId;
+
     /* ==== relationships= ==== */
 
     // many-to-one: expenses -> groups
@@ -124,6 +140,22 @@ public class Expense {
         return createdAt;
     }
 
+    public SplitMode getSplitMode() {
+        return splitMode;
+    }
+
+    public void setSplitMode(SplitMode splitMode) {
+        this.splitMode = splitMode;
+    }
+
+    public Long getParticipantSetId() {
+        return participantSetId;
+    }
+
+    public void setParticipantSetId(Long participantSetId) {
+        this.participantSetId = participantSetId;
+    }
+
     public Group getGroup() {
         return group;
     }
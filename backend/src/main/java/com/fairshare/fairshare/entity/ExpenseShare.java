@@ -10,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.DecimalMin;
@@ -22,7 +23,8 @@ public class ExpenseShare {
 
     /* ==== attributes ==== */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_share_seq")
+    @SequenceGenerator(name = "expense_share_seq", sequenceName = "expense_share_expense_share_id_seq", allocationSize = 50)
     @Column(name="expense_share_id")
     private Long expenseShareId;
 
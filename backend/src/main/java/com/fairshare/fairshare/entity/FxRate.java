@@ -0,0 +1,101 @@
+package com.fairshare.fairshare.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Exchange rate between two currencies: 1 base currency buys {@code rate} of
+ * the quote currency.
+ */
+@Entity
+@Table(name = "fx_rate")
+@IdClass(FxRate.Key.class)
+public class FxRate {
+
+    /* ==== attributes ==== */
+
+    @Id
+    @Column(name = "base_currency", length = 3)
+    private String baseCurrency;
+
+    @Id
+    @Column(name = "quote_currency", length = 3)
+    private String quoteCurrency;
+
+    @NotNull
+    @Column(nullable = false, precision = 18, scale = 8)
+    private BigDecimal rate;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamptz", insertable = false, updatable = false)
+    private Instant updatedAt;
+
+    /* ==== composite key ==== */
+
+    public static class Key implements Serializable {
+        private String baseCurrency;
+        private String quoteCurrency;
+
+        public Key() {
+        }
+
+        public Key(String baseCurrency, String quoteCurrency) {
+            this.baseCurrency = baseCurrency;
+            this.quoteCurrency = quoteCurrency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return Objects.equals(baseCurrency, other.baseCurrency)
+                    && Objects.equals(quoteCurrency, other.quoteCurrency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseCurrency, quoteCurrency);
+        }
+    }
+
+    /* ==== getters and setters ==== */
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(String baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public void setQuoteCurrency(String quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+}
@@ -31,6 +31,10 @@ public class Group {
     @Column(name = "group_created_at", nullable = false, columnDefinition = "timestamptz", insertable = false, updatable = false)
     private Instant groupCreatedAt;
 
+    // maintained in SQL by GroupVersions, never written through the entity
+    @Column(name = "ledger_seq", nullable = false, insertable = false, updatable = false)
+    private long ledgerSeq;
+
     /* ==== relationships ==== */
 
     // one to many - group to memberships
@@ -71,6 +75,10 @@ public class Group {
         this.groupCreatedAt = groupCreatedAt;
     }
 
+    public long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
     public Set<Membership> getGroupMemberships() {
         return groupMemberships;
     }
@@ -0,0 +1,119 @@
+package com.fairshare.fairshare.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Stored response of a request sent with an Idempotency-Key header. Rows are
+ * claimed before the request runs and filled in within the same transaction.
+ */
+@Entity
+@Table(name = "idempotency_key")
+@IdClass(IdempotencyKey.Key.class)
+public class IdempotencyKey {
+
+    /* ==== attributes ==== */
+
+    @Id
+    @Column(name = "scope")
+    private String scope;
+
+    @Id
+    @Column(name = "idem_key")
+    private String idemKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "timestamptz", insertable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false, columnDefinition = "timestamptz")
+    private Instant expiresAt;
+
+    /* ==== composite key ==== */
+
+    public static class Key implements Serializable {
+        private String scope;
+        private String idemKey;
+
+        public Key() {
+        }
+
+        public Key(String scope, String idemKey) {
+            this.scope = scope;
+            this.idemKey = idemKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return Objects.equals(scope, other.scope) && Objects.equals(idemKey, other.idemKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, idemKey);
+        }
+    }
+
+    /* ==== getters and setters ==== */
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getIdemKey() {
+        return idemKey;
+    }
+
+    public void setIdemKey(String idemKey) {
+        this.idemKey = idemKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(byte[] responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+}
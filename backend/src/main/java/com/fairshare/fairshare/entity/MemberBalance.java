@@ -0,0 +1,101 @@
+package com.fairshare.fairshare.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Running net balance of a user within a group. This is a projection of the
+ * ledger (expenses, shares and settlements) kept up to date by the write paths
+ * so balances can be read without scanning the group's history.
+ */
+@Entity
+@Table(name = "member_balance")
+@IdClass(MemberBalance.Key.class)
+public class MemberBalance {
+
+    /* ==== attributes ==== */
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotNull
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamptz", insertable = false, updatable = false)
+    private Instant updatedAt;
+
+    /* ==== composite key ==== */
+
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long userId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long userId) {
+            this.groupId = groupId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return Objects.equals(groupId, other.groupId) && Objects.equals(userId, other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, userId);
+        }
+    }
+
+    /* ==== getters and setters ==== */
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.fairshare.fairshare.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Snapshot of the members an equal-split expense was divided between. Written
+ * through ParticipantSetRepository, read only here.
+ */
+@Entity
+@Table(name = "participant_set")
+public class ParticipantSet {
+
+    /* ==== attributes ==== */
+
+    @Id
+    @Column(name = "participant_set_id")
+    private Long participantSetId;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    // ascending user ids
+    @Column(name = "member_ids", nullable = false, columnDefinition = "bigint[]")
+    private Long[] memberIds;
+
+    @Column(name = "member_count", nullable = false)
+    private int memberCount;
+
+    @Column(name = "members_hash", nullable = false)
+    private byte[] membersHash;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "timestamptz", insertable = false, updatable = false)
+    private Instant createdAt;
+
+    /* ==== getters and setters ==== */
+
+    public Long getParticipantSetId() {
+        return participantSetId;
+    }
+
+    public void setParticipantSetId(Long participantSetId) {
+        this.participantSetId = participantSetId;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long[] getMemberIds() {
+        return memberIds;
+    }
+
+    public void setMemberIds(Long[] memberIds) {
+        this.memberIds = memberIds;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public void setMemberCount(int memberCount) {
+        this.memberCount = memberCount;
+    }
+
+    public byte[] getMembersHash() {
+        return membersHash;
+    }
+
+    public void setMembersHash(byte[] membersHash) {
+        this.membersHash = membersHash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
@@ -24,7 +25,8 @@ public class Settlement {
     /* ==== attributes ==== */
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "settlement_seq")
+    @SequenceGenerator(name = "settlement_seq", sequenceName = "settlements_settlement_id_seq", allocationSize = 50)
     @Column(name="settlement_id")
     private Long settlementId;
 
@@ -0,0 +1,61 @@
+package com.fairshare.fairshare.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fairshare.fairshare.entity.BalanceCheckpoint;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, BalanceCheckpoint.Key> {
+
+    List<BalanceCheckpoint> findByGroupIdAndAsOf(Long groupId, Instant asOf);
+
+    // the checkpoint an as-of read at `asOf` starts from, null if there is none
+    @Query("select max(c.asOf) from BalanceCheckpoint c where c.groupId = :groupId and c.asOf <= :asOf")
+    Instant findLatestAsOf(@Param("groupId") Long groupId, @Param("asOf") Instant asOf);
+
+    /**
+     * Drops the checkpoints a write at {@code from} makes stale
+     */
+    @Modifying
+    @Query(value = "delete from balance_checkpoint where group_id = :groupId and as_of >= :from", nativeQuery = true)
+    int deleteFrom(@Param("groupId") Long groupId, @Param("from") Instant from);
+
+    /**
+     * Stores a group's balances, in cents, as of an instant in one statement
+     */
+    @Modifying
+    @Query(value = """
+            insert into balance_checkpoint (group_id, as_of, user_id, balance)
+            select :groupId, :asOf, b.user_id, b.cents * 0.01
+            from unnest(cast(:userIds as bigint[]), cast(:cents as bigint[])) as b(user_id, cents)
+            """, nativeQuery = true)
+    int insertAll(@Param("groupId") Long groupId, @Param("asOf") Instant asOf, @Param("userIds") Long[] userIds,
+            @Param("cents") Long[] cents);
+
+    /*
+     * first key of the two-int advisory locks on checkpoints, so they cannot
+     * collide with single-bigint locks or other key spaces on the database
+     */
+    int CHECKPOINT_LOCKS = 0x46530001;
+
+    /* group ids past 2^31 wrap around, which only makes two groups share a lock */
+    String GROUP_LOCK_KEY = CHECKPOINT_LOCKS + ", cast(:groupId % 2147483648 as int)";
+
+    /*
+     * transaction scoped advisory lock on the group. writes that invalidate
+     * checkpoints hold it shared, taking a checkpoint holds it exclusively,
+     * so a checkpoint never misses a back-dated write committing alongside it
+     */
+    @Query(value = "select 1 from pg_advisory_xact_lock_shared(" + GROUP_LOCK_KEY + ")", nativeQuery = true)
+    int lockShared(@Param("groupId") Long groupId);
+
+    @Query(value = "select 1 from pg_advisory_xact_lock(" + GROUP_LOCK_KEY + ")", nativeQuery = true)
+    int lockExclusive(@Param("groupId") Long groupId);
+}
@@ -1,13 +1,202 @@
 package com.fairshare.fairshare.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.fairshare.fairshare.entity.Expense;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseSearchRepository {
     List<Expense> findByGroup_GroupId(Long groupId);
+
+    /* ==== keyset pages over idx_expenses_group_time, as rows not entities ==== */
+
+    // newest expenses of a group
+    @Query("""
+            select new com.fairshare.fairshare.repository.ExpenseRow(e.expenseId, e.group.groupId, e.payer.userId,
+                   e.amount, e.currency, e.description, e.occurredAt, e.createdAt, e.splitMode, e.participantSetId)
+            from Expense e
+            where e.group.groupId = :groupId
+            order by e.occurredAt desc, e.expenseId desc
+            limit :limit
+            """)
+    List<ExpenseRow> findLatestPage(@Param("groupId") Long groupId, @Param("limit") int limit);
+
+    // expenses older than the cursor, newest first
+    @Query("""
+            select new com.fairshare.fairshare.repository.ExpenseRow(e.expenseId, e.group.groupId, e.payer.userId,
+                   e.amount, e.currency, e.description, e.occurredAt, e.createdAt, e.splitMode, e.participantSetId)
+            from Expense e
+            where e.group.groupId = :groupId
+              and (e.occurredAt, e.expenseId) < (:occurredAt, :expenseId)
+            order by e.occurredAt desc, e.expenseId desc
+            limit :limit
+            """)
+    List<ExpenseRow> findPageBefore(@Param("groupId") Long groupId, @Param("occurredAt") Instant occurredAt,
+            @Param("expenseId") Long expenseId, @Param("limit") int limit);
+
+    // expenses newer than the cursor, oldest first
+    @Query("""
+            select new com.fairshare.fairshare.repository.ExpenseRow(e.expenseId, e.group.groupId, e.payer.userId,
+                   e.amount, e.currency, e.description, e.occurredAt, e.createdAt, e.splitMode, e.participantSetId)
+            from Expense e
+            where e.group.groupId = :groupId
+              and (e.occurredAt, e.expenseId) > (:occurredAt, :expenseId)
+            order by e.occurredAt asc, e.expenseId asc
+            limit :limit
+            """)
+    List<ExpenseRow> findPageAfter(@Param("groupId") Long groupId, @Param("occurredAt") Instant occurredAt,
+            @Param("expenseId") Long expenseId, @Param("limit") int limit);
+
+    // the whole history of a group, oldest first, read through a server-side
+    // cursor (only inside a transaction)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.fairshare.fairshare.repository.ExpenseRow(e.expenseId, e.group.groupId, e.payer.userId,
+                   e.amount, e.currency, e.description, e.occurredAt, e.createdAt, e.splitMode, e.participantSetId)
+            from Expense e
+            where e.group.groupId = :groupId
+            order by e.occurredAt, e.expenseId
+            """)
+    Stream<ExpenseRow> streamByGroupId(@Param("groupId") Long groupId);
+
+    /* ==== per-user totals for balances, occurred_at in (from, to] ==== */
+
+    @Query("""
+            select new com.fairshare.fairshare.repository.UserTotal(e.payer.userId, sum(e.amount))
+            from Expense e where e.group.groupId = :groupId
+              and e.occurredAt > :from and e.occurredAt <= :to
+            group by e.payer.userId
+            """)
+    List<UserTotal> sumPaidByPayer(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
+
+    /**
+     * What each member owes across the group's equal-split expenses, split the
+     * way {@link com.fairshare.fairshare.service.SplitEngine} does: the amount
+     * divided by the member count rounded down, plus one cent for the first
+     * {@code cents % member_count} members of the snapshot. Expenses are
+     * summed per snapshot and remainder first so each snapshot is expanded to
+     * its members only a few times, not once per expense.
+     */
+    @Query(value = """
+            select m.user_id as userId,
+                   sum(t.base_cents + case when m.pos <= t.extra then t.expenses else 0 end) * 0.01 as total
+            from (
+                select e.participant_set_id,
+                       cast(e.amount * 100 as bigint) % ps.member_count as extra,
+                       sum(cast(e.amount * 100 as bigint) / ps.member_count) as base_cents,
+                       count(*) as expenses
+                from expenses e
+                join participant_set ps on ps.participant_set_id = e.participant_set_id
+                where e.group_id = :groupId and e.occurred_at > :from and e.occurred_at <= :to
+                  and e.split_mode = 'EQUAL'
+                group by e.participant_set_id, 2
+            ) t
+            join participant_set ps on ps.participant_set_id = t.participant_set_id
+            cross join unnest(ps.member_ids) with ordinality as m(user_id, pos)
+            group by m.user_id
+            """, nativeQuery = true)
+    List<UserTotal> sumEqualSharesByMember(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
+
+    /**
+     * Every member's net position in a group per currency, expenses that
+     * occurred and settlements made in (from, to]. Equal splits are expanded
+     * like {@link #sumEqualSharesByMember}, summed per snapshot, currency and
+     * remainder first.
+     */
+    @Query(value = """
+            select t.user_id as userId, t.currency as currency, sum(t.delta) as total
+            from (
+                select e.payer_id as user_id, e.currency, e.amount as delta
+                from expenses e
+                where e.group_id = :groupId and e.occurred_at > :from and e.occurred_at <= :to
+                union all
+                select es.participant_id, e.currency, -es.share_amount
+                from expense_share es
+                join expenses e on e.expense_id = es.expense_id
+                where e.group_id = :groupId and e.occurred_at > :from and e.occurred_at <= :to
+                union all
+                select m.user_id, q.currency,
+                       -(q.base_cents + case when m.pos <= q.extra then q.expenses else 0 end) * 0.01
+                from (
+                    select e.participant_set_id, e.currency,
+                           cast(e.amount * 100 as bigint) % ps.member_count as extra,
+                           sum(cast(e.amount * 100 as bigint) / ps.member_count) as base_cents,
+                           count(*) as expenses
+                    from expenses e
+                    join participant_set ps on ps.participant_set_id = e.participant_set_id
+                    where e.group_id = :groupId and e.occurred_at > :from and e.occurred_at <= :to
+                      and e.split_mode = 'EQUAL'
+                    group by e.participant_set_id, e.currency, 3
+                ) q
+                join participant_set ps on ps.participant_set_id = q.participant_set_id
+                cross join unnest(ps.member_ids) with ordinality as m(user_id, pos)
+                union all
+                select s.payer_id, s.currency, s.amount
+                from settlements s
+                where s.group_id = :groupId and s.settled_at > :from and s.settled_at <= :to
+                union all
+                select s.payee_id, s.currency, -s.amount
+                from settlements s
+                where s.group_id = :groupId and s.settled_at > :from and s.settled_at <= :to
+            ) t
+            group by t.user_id, t.currency
+            """, nativeQuery = true)
+    List<UserCurrencyTotal> sumNetByMemberAndCurrency(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
+
+    /**
+     * One user's net position in each of the given groups, per currency: what
+     * they paid and settled out minus their shares and what they were paid
+     * back. Each branch starts from the user's rows through the payer,
+     * participant and settlement indexes, equal splits from the group's
+     * snapshots that include the user.
+     */
+    @Query(value = """
+            select t.group_id as groupId, t.currency as currency, sum(t.delta) as total
+            from (
+                select e.group_id, e.currency, e.amount as delta
+                from expenses e
+                where e.payer_id = :userId and e.group_id in (:groupIds)
+                union all
+                select e.group_id, e.currency, -es.share_amount
+                from expense_share es
+                join expenses e on e.expense_id = es.expense_id
+                where es.participant_id = :userId and e.group_id in (:groupIds)
+                union all
+                select e.group_id, e.currency,
+                       -(cast(e.amount * 100 as bigint) / ps.member_count
+                         + case when array_position(ps.member_ids, cast(:userId as bigint))
+                                     <= cast(e.amount * 100 as bigint) % ps.member_count
+                                then 1 else 0 end) * 0.01
+                from participant_set ps
+                join expenses e on e.participant_set_id = ps.participant_set_id
+                where ps.group_id in (:groupIds) and cast(:userId as bigint) = any(ps.member_ids)
+                  and e.split_mode = 'EQUAL'
+                union all
+                select s.group_id, s.currency, s.amount
+                from settlements s
+                where s.payer_id = :userId and s.group_id in (:groupIds)
+                union all
+                select s.group_id, s.currency, -s.amount
+                from settlements s
+                where s.payee_id = :userId and s.group_id in (:groupIds)
+            ) t
+            group by t.group_id, t.currency
+            """, nativeQuery = true)
+    List<GroupCurrencyTotal> sumUserNetByGroupAndCurrency(@Param("userId") Long userId,
+            @Param("groupIds") Collection<Long> groupIds);
 }
@@ -0,0 +1,23 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fairshare.fairshare.entity.Expense;
+
+/**
+ * An expense as read for listing, selected straight from its columns instead
+ * of as a managed entity
+ */
+public record ExpenseRow(
+        Long expenseId,
+        Long groupId,
+        Long payerId,
+        BigDecimal amount,
+        Expense.CurrencyCode currency,
+        String description,
+        Instant occurredAt,
+        Instant createdAt,
+        Expense.SplitMode splitMode,
+        Long participantSetId) {
+}
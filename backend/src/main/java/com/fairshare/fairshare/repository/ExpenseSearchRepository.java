@@ -0,0 +1,27 @@
+package com.fairshare.fairshare.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.fairshare.fairshare.dto.ExpenseFilter;
+
+/**
+ * Filtered keyset pages over a group's expenses. The SQL is put together from
+ * the filters that are set, so every combination is planned on its own
+ * predicates instead of one statement with "or :param is null" branches.
+ */
+public interface ExpenseSearchRepository {
+
+    /**
+     * @param groupId  group to search
+     * @param filter   criteria, null fields are ignored
+     * @param cursorAt occurred_at of the cursor, null for the newest page
+     * @param cursorId expense id of the cursor
+     * @param newer    true for rows newer than the cursor, oldest first;
+     *                 false for rows older than it, newest first
+     * @param limit    max rows
+     * @return matching rows in page order
+     */
+    List<ExpenseRow> search(Long groupId, ExpenseFilter filter, Instant cursorAt, Long cursorId, boolean newer,
+            int limit);
+}
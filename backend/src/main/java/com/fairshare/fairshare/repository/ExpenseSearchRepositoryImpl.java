@@ -0,0 +1,132 @@
+package com.fairshare.fairshare.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fairshare.fairshare.dto.ExpenseFilter;
+import com.fairshare.fairshare.entity.Expense;
+
+public class ExpenseSearchRepositoryImpl implements ExpenseSearchRepository {
+
+    /**
+     * A statement and its arguments, in bind order
+     */
+    public record SearchQuery(String sql, List<Object> args) {
+    }
+
+    private static final RowMapper<ExpenseRow> ROW = (rs, i) -> new ExpenseRow(
+            rs.getLong("expense_id"),
+            rs.getLong("group_id"),
+            rs.getLong("payer_id"),
+            rs.getBigDecimal("amount"),
+            Expense.CurrencyCode.valueOf(rs.getString("currency")),
+            rs.getString("description"),
+            rs.getObject("occurred_at", OffsetDateTime.class).toInstant(),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+            Expense.SplitMode.valueOf(rs.getString("split_mode")),
+            rs.getObject("participant_set_id", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExpenseSearchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<ExpenseRow> search(Long groupId, ExpenseFilter filter, Instant cursorAt, Long cursorId,
+            boolean newer, int limit) {
+        SearchQuery query = query(groupId, filter, cursorAt, cursorId, newer, limit);
+        return jdbcTemplate.query(query.sql(), ROW, query.args().toArray());
+    }
+
+    /**
+     * The statement {@link #search} runs, only with the predicates of the
+     * filters that are set
+     */
+    public static SearchQuery query(Long groupId, ExpenseFilter filter, Instant cursorAt, Long cursorId,
+            boolean newer, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                select e.expense_id, e.group_id, e.payer_id, e.amount, e.currency, e.description,
+                       e.occurred_at, e.created_at, e.split_mode, e.participant_set_id
+                from expenses e
+                where e.group_id = ?
+                """);
+        List<Object> args = new ArrayList<>();
+        args.add(groupId);
+
+        if (filter.from() != null) {
+            sql.append("  and e.occurred_at >= ?\n");
+            args.add(timestamp(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append("  and e.occurred_at < ?\n");
+            args.add(timestamp(filter.to()));
+        }
+        if (filter.payerId() != null) {
+            sql.append("  and e.payer_id = ?\n");
+            args.add(filter.payerId());
+        }
+        if (filter.participantId() != null) {
+            // an explicit share row, or a member of the equal-split snapshot
+            sql.append("""
+                      and (e.expense_id in (select es.expense_id from expense_share es where es.participant_id = ?)
+                           or e.participant_set_id in (select ps.participant_set_id from participant_set ps
+                                                       where ps.group_id = ? and ps.member_ids @> array[?]::bigint[]))
+                    """);
+            args.add(filter.participantId());
+            args.add(groupId);
+            args.add(filter.participantId());
+        }
+        if (filter.minAmount() != null) {
+            sql.append("  and e.amount >= ?\n");
+            args.add(filter.minAmount());
+        }
+        if (filter.maxAmount() != null) {
+            sql.append("  and e.amount <= ?\n");
+            args.add(filter.maxAmount());
+        }
+        if (filter.currency() != null) {
+            sql.append("  and e.currency = ?\n");
+            args.add(filter.currency().name());
+        }
+        if (filter.q() != null) {
+            if (filter.fuzzy()) {
+                // q is similar to some part of the description
+                sql.append("  and ? <% e.description\n");
+                args.add(filter.q());
+            } else {
+                sql.append("  and e.description ilike ?\n");
+                args.add("%" + escapeLike(filter.q()) + "%");
+            }
+        }
+
+        if (cursorAt != null) {
+            sql.append(newer ? "  and (e.occurred_at, e.expense_id) > (?, ?)\n"
+                    : "  and (e.occurred_at, e.expense_id) < (?, ?)\n");
+            args.add(timestamp(cursorAt));
+            args.add(cursorId);
+        }
+        sql.append(newer ? "order by e.occurred_at asc, e.expense_id asc\n"
+                : "order by e.occurred_at desc, e.expense_id desc\n");
+        sql.append("limit ?");
+        args.add(limit);
+        return new SearchQuery(sql.toString(), args);
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    /* backslash is the default escape character of like */
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
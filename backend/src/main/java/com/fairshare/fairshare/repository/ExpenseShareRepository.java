@@ -1,8 +1,12 @@
 package com.fairshare.fairshare.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.fairshare.fairshare.entity.ExpenseShare;
@@ -11,5 +15,26 @@ import com.fairshare.fairshare.entity.ExpenseShare;
 public interface ExpenseShareRepository extends JpaRepository<ExpenseShare, Long> {
     List<ExpenseShare> findByExpense_ExpenseId(Long expenseId);
     List<ExpenseShare> findByExpense_Group_GroupId(Long groupId);
+    @Query("""
+            select new com.fairshare.fairshare.repository.ShareRow(s.expense.expenseId, s.participant.userId,
+                   s.shareAmount, s.shareRatio)
+            from ExpenseShare s
+            where s.expense.expenseId in :expenseIds
+            order by s.expense.expenseId, s.participant.userId
+            """)
+    List<ShareRow> findRowsByExpenseIdIn(@Param("expenseIds") Collection<Long> expenseIds);
+
+    /**
+     * Total of explicit share rows per participant, for expenses that occurred
+     * after {@code from} up to and including {@code to}
+     */
+    @Query("""
+            select new com.fairshare.fairshare.repository.UserTotal(s.participant.userId, sum(s.shareAmount))
+            from ExpenseShare s join s.expense e
+            where e.group.groupId = :groupId and e.occurredAt > :from and e.occurredAt <= :to
+            group by s.participant.userId
+            """)
+    List<UserTotal> sumSharesByParticipant(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
 }
 
@@ -0,0 +1,38 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fairshare.fairshare.entity.FxRate;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, FxRate.Key> {
+
+    /**
+     * Inserts a rate or replaces the existing one for the pair
+     */
+    @Modifying
+    @Query(value = """
+            insert into fx_rate (base_currency, quote_currency, rate)
+            values (:base, :quote, :rate)
+            on conflict (base_currency, quote_currency)
+            do update set rate = excluded.rate, updated_at = now()
+            """, nativeQuery = true)
+    int upsert(@Param("base") String base, @Param("quote") String quote, @Param("rate") BigDecimal rate);
+
+    /**
+     * Moves the rates' version on by one, the row stays locked until the
+     * transaction ends so rate loads commit one at a time
+     */
+    @Modifying
+    @Query(value = "update fx_rate_version set version = version + 1", nativeQuery = true)
+    int bumpVersion();
+
+    @Query(value = "select version from fx_rate_version", nativeQuery = true)
+    long findVersion();
+}
@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a per-group, per-currency aggregate query
+ */
+public record GroupCurrencyTotal(Long groupId, String currency, BigDecimal total) {
+}
@@ -1,10 +1,60 @@
 package com.fairshare.fairshare.repository;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fairshare.fairshare.dto.GroupDTO;
 import com.fairshare.fairshare.entity.Group;
 
 @Repository
 public interface GroupRepository extends JpaRepository<Group, Long> {
+
+    @Query("select g.groupId from Group g order by g.groupId")
+    List<Long> findAllGroupIds();
+
+    /* ==== read paths, selected straight into dtos ==== */
+
+    @Query("""
+            select new com.fairshare.fairshare.dto.GroupDTO(g.groupId, g.groupName, g.groupCreatedAt, g.ledgerSeq)
+            from Group g where g.groupId = :groupId
+            """)
+    Optional<GroupDTO> findDTOById(@Param("groupId") Long groupId);
+
+    @Query("""
+            select new com.fairshare.fairshare.dto.GroupDTO(g.groupId, g.groupName, g.groupCreatedAt, g.ledgerSeq)
+            from Group g
+            where g.groupId > :after
+            order by g.groupId
+            limit :limit
+            """)
+    List<GroupDTO> findDTOPageAfter(@Param("after") long after, @Param("limit") int limit);
+
+    @Query("select g.ledgerSeq from Group g where g.groupId = :groupId")
+    Optional<Long> findLedgerSeq(@Param("groupId") Long groupId);
+
+    /**
+     * Moves the group's version on by one, the row stays locked until the
+     * transaction ends
+     */
+    @Modifying
+    @Query(value = "update groups set ledger_seq = ledger_seq + 1 where group_id = :groupId", nativeQuery = true)
+    int bumpLedgerSeq(@Param("groupId") Long groupId);
+
+    /**
+     * Moves the group's version on by one if it is still {@code expected}
+     *
+     * @return 0 if the group changed since {@code expected} was read
+     */
+    @Modifying
+    @Query(value = """
+            update groups set ledger_seq = ledger_seq + 1
+            where group_id = :groupId and ledger_seq = :expected
+            """, nativeQuery = true)
+    int bumpLedgerSeqIf(@Param("groupId") Long groupId, @Param("expected") long expected);
 }
@@ -0,0 +1,46 @@
+package com.fairshare.fairshare.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fairshare.fairshare.entity.IdempotencyKey;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKey.Key> {
+
+    /**
+     * Claims a key for the current transaction. Returns 1 when the key was free
+     * (or only held by an expired row) and 0 when another request already
+     * stored a response for it. A concurrent claim on the same key waits until
+     * the first transaction commits or rolls back.
+     */
+    @Modifying
+    @Query(value = """
+            insert into idempotency_key (scope, idem_key, request_hash, expires_at)
+            values (:scope, :idemKey, :requestHash, :expiresAt)
+            on conflict (scope, idem_key) do update
+                set request_hash = excluded.request_hash,
+                    response_body = null,
+                    created_at = now(),
+                    expires_at = excluded.expires_at
+                where idempotency_key.expires_at < now()
+            """, nativeQuery = true)
+    int claim(@Param("scope") String scope, @Param("idemKey") String idemKey,
+            @Param("requestHash") String requestHash, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query(value = """
+            update idempotency_key set response_body = :body
+            where scope = :scope and idem_key = :idemKey
+            """, nativeQuery = true)
+    int storeResponse(@Param("scope") String scope, @Param("idemKey") String idemKey, @Param("body") byte[] body);
+
+    @Modifying
+    @Query(value = "delete from idempotency_key where expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") Instant now);
+}
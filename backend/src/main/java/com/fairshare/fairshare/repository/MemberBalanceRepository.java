@@ -0,0 +1,49 @@
+package com.fairshare.fairshare.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fairshare.fairshare.entity.MemberBalance;
+
+@Repository
+public interface MemberBalanceRepository extends JpaRepository<MemberBalance, MemberBalance.Key> {
+
+    List<MemberBalance> findByGroupId(Long groupId);
+
+    /**
+     * Adds each delta, in cents, to the matching user's balance in one
+     * statement, creating missing rows. Callers pass user IDs in ascending order
+     * (one entry per user) so concurrent writers lock the rows in the same order.
+     */
+    @Modifying
+    @Query(value = """
+            insert into member_balance (group_id, user_id, balance)
+            select :groupId, d.user_id, d.cents * 0.01
+            from unnest(cast(:userIds as bigint[]), cast(:deltaCents as bigint[])) as d(user_id, cents)
+            on conflict (group_id, user_id)
+            do update set balance = member_balance.balance + excluded.balance, updated_at = now()
+            """, nativeQuery = true)
+    int applyDeltas(@Param("groupId") Long groupId, @Param("userIds") Long[] userIds,
+            @Param("deltaCents") Long[] deltaCents);
+
+    /**
+     * Creates a zero balance row for a user if they do not have one yet
+     */
+    @Modifying
+    @Query(value = """
+            insert into member_balance (group_id, user_id, balance)
+            values (:groupId, :userId, 0)
+            on conflict (group_id, user_id) do nothing
+            """, nativeQuery = true)
+    int ensureRow(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    // clears the persistence context so loaded MemberBalance rows don't go stale
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "delete from member_balance where group_id = :groupId", nativeQuery = true)
+    int deleteByGroup(@Param("groupId") Long groupId);
+}
@@ -4,8 +4,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fairshare.fairshare.dto.MembershipDTO;
+import com.fairshare.fairshare.dto.UserGroupDTO;
 import com.fairshare.fairshare.entity.Membership;
 import com.fairshare.fairshare.entity.Membership.Role;
 
@@ -16,7 +20,46 @@ public interface MembershipRepository extends JpaRepository<Membership, Long> {
     long countByGroup_GroupIdAndRole(Long groupId, Role admin);
     List<Membership> findByGroup_GroupId(Long groupId);
 
+    @Query("""
+            select new com.fairshare.fairshare.dto.MembershipDTO(m.membershipId, m.user.userId, m.group.groupId, m.role)
+            from Membership m where m.group.groupId = :groupId
+            order by m.membershipId
+            """)
+    List<MembershipDTO> findDTOsByGroupId(@Param("groupId") Long groupId);
+
     boolean existsByUser_UserIdAndGroup_GroupId(Long payerId, Long groupId);
 
+    @Query("select m.user.userId from Membership m where m.group.groupId = :groupId order by m.user.userId")
+    List<Long> findUserIdsByGroupId(@Param("groupId") Long groupId);
+
+    /**
+     * Member ids as committed, key-share locked so that none of them can be
+     * removed before the calling transaction ends
+     */
+    @Query(value = """
+            select user_id from membership where group_id = :groupId
+            order by user_id
+            for key share
+            """, nativeQuery = true)
+    List<Long> lockUserIdsByGroupId(@Param("groupId") Long groupId);
+
+    @Query("select m.group.groupId from Membership m where m.user.userId = :userId order by m.group.groupId")
+    List<Long> findGroupIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * A page of the user's groups, walked off the user's memberships in group
+     * id order, each with its member count and the user's role in it
+     */
+    @Query("""
+            select new com.fairshare.fairshare.dto.UserGroupDTO(g.groupId, g.groupName, g.groupCreatedAt, g.ledgerSeq,
+                   (select count(o) from Membership o where o.group.groupId = m.group.groupId), m.role)
+            from Membership m join m.group g
+            where m.user.userId = :userId and m.group.groupId > :after
+            order by m.group.groupId
+            limit :limit
+            """)
+    List<UserGroupDTO> findUserGroupPageAfter(@Param("userId") Long userId, @Param("after") long after,
+            @Param("limit") int limit);
+
 }
 
@@ -0,0 +1,33 @@
+package com.fairshare.fairshare.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fairshare.fairshare.entity.ParticipantSet;
+
+@Repository
+public interface ParticipantSetRepository extends JpaRepository<ParticipantSet, Long> {
+
+    /**
+     * ID of the group's snapshot with exactly these members, created if it
+     * does not exist yet. Returns null if a concurrent transaction inserted
+     * the same snapshot after this statement started; calling again finds it.
+     */
+    @Query(value = """
+            with ins as (
+                insert into participant_set (group_id, member_ids, member_count, members_hash)
+                values (:groupId, cast(:memberIds as bigint[]), :memberCount, :membersHash)
+                on conflict (group_id, members_hash) do nothing
+                returning participant_set_id
+            )
+            select participant_set_id from ins
+            union all
+            select participant_set_id from participant_set
+            where group_id = :groupId and members_hash = :membersHash
+            limit 1
+            """, nativeQuery = true)
+    Long findOrCreate(@Param("groupId") Long groupId, @Param("memberIds") Long[] memberIds,
+            @Param("memberCount") int memberCount, @Param("membersHash") byte[] membersHash);
+}
@@ -1,8 +1,11 @@
 package com.fairshare.fairshare.repository;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.fairshare.fairshare.entity.Settlement;
@@ -10,4 +13,22 @@ import com.fairshare.fairshare.entity.Settlement;
 @Repository
 public interface SettlementRepository extends JpaRepository<Settlement, Long> {
     List<Settlement> findByGroup_GroupId(Long groupId);
+
+    @Query("""
+            select new com.fairshare.fairshare.repository.UserTotal(s.payer.userId, sum(s.amount))
+            from Settlement s where s.group.groupId = :groupId
+              and s.settledAt > :from and s.settledAt <= :to
+            group by s.payer.userId
+            """)
+    List<UserTotal> sumPaidByPayer(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
+
+    @Query("""
+            select new com.fairshare.fairshare.repository.UserTotal(s.payee.userId, sum(s.amount))
+            from Settlement s where s.group.groupId = :groupId
+              and s.settledAt > :from and s.settledAt <= :to
+            group by s.payee.userId
+            """)
+    List<UserTotal> sumReceivedByPayee(@Param("groupId") Long groupId, @Param("from") Instant from,
+            @Param("to") Instant to);
 }
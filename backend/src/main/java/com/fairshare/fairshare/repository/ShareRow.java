@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One explicit share row of an expense, as read for listing
+ */
+public record ShareRow(Long expenseId, Long participantId, BigDecimal shareAmount, BigDecimal shareRatio) {
+}
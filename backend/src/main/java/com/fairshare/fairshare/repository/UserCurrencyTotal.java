@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a per-user, per-currency aggregate query
+ */
+public record UserCurrencyTotal(Long userId, String currency, BigDecimal total) {
+}
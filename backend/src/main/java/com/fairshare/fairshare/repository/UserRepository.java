@@ -1,13 +1,19 @@
 package com.fairshare.fairshare.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.fairshare.fairshare.dto.UserDTO;
 import com.fairshare.fairshare.entity.User;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUserEmail(String userEmail);
+
+    @Query("select new com.fairshare.fairshare.dto.UserDTO(u.userId, u.userName, u.userEmail) from User u order by u.userId")
+    List<UserDTO> findAllDTOs();
 }
@@ -0,0 +1,9 @@
+package com.fairshare.fairshare.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a per-user aggregate query
+ */
+public record UserTotal(Long userId, BigDecimal total) {
+}
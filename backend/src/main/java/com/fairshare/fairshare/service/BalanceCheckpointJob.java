@@ -0,0 +1,52 @@
+package com.fairshare.fairshare.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+
+/**
+ * Checkpoints every group's balances as of the start of the day (UTC), so
+ * month-end and other as-of reads only replay the day they fall in.
+ */
+@Component
+public class BalanceCheckpointJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCheckpointJob.class);
+
+    private final GroupRepository groupRepository;
+    private final ExpenseService expenseService;
+    private final BalanceCheckpoints balanceCheckpoints;
+
+    public BalanceCheckpointJob(GroupRepository groupRepository, ExpenseService expenseService,
+            BalanceCheckpoints balanceCheckpoints) {
+        this.groupRepository = groupRepository;
+        this.expenseService = expenseService;
+        this.balanceCheckpoints = balanceCheckpoints;
+    }
+
+    @Scheduled(cron = "${fairshare.balances.checkpoint-cron:0 15 1 * * *}", zone = "UTC")
+    public void checkpointAll() {
+        // the last midnight checkpoints are allowed at, normally today's
+        Instant asOf = balanceCheckpoints.horizon().truncatedTo(ChronoUnit.DAYS);
+        var groupIds = groupRepository.findAllGroupIds();
+        int stored = 0;
+        // one transaction per group, like the balance rebuild
+        for (Long groupId : groupIds) {
+            try {
+                if (expenseService.checkpointBalances(groupId, asOf)) {
+                    stored++;
+                }
+            } catch (NotFoundException ex) {
+                // deleted since the ids were listed
+            }
+        }
+        log.info("Checkpointed balances as of {} for {} of {} groups", asOf, stored, groupIds.size());
+    }
+}
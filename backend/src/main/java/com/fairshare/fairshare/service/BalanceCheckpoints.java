@@ -0,0 +1,95 @@
+package com.fairshare.fairshare.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fairshare.fairshare.entity.BalanceCheckpoint;
+import com.fairshare.fairshare.repository.BalanceCheckpointRepository;
+
+/**
+ * Stored balances of a group as of past instants, so an as-of read only has
+ * to replay what happened after the nearest one.
+ *
+ * Checkpoints are only taken at least {@code fairshare.balances.checkpoint-lag}
+ * in the past. A write that happened more recently than that cannot fall
+ * inside one, so only back-dated writes pay for invalidation.
+ */
+@Component
+public class BalanceCheckpoints {
+
+    private final BalanceCheckpointRepository repository;
+    private final Duration lag;
+
+    public BalanceCheckpoints(BalanceCheckpointRepository repository,
+            @Value("${fairshare.balances.checkpoint-lag:PT1H}") Duration lag) {
+        this.repository = repository;
+        this.lag = lag;
+    }
+
+    /**
+     * @return latest instant a checkpoint may be taken at right now
+     */
+    public Instant horizon() {
+        return Instant.now().minus(lag);
+    }
+
+    /**
+     * Drops the checkpoints a write that occurred at {@code occurredAt} makes
+     * stale. Must run in the write's transaction.
+     *
+     * @param groupId    group written to
+     * @param occurredAt earliest occurred_at of the write
+     */
+    public void invalidate(Long groupId, Instant occurredAt) {
+        if (occurredAt.isAfter(horizon())) {
+            return;
+        }
+        repository.lockShared(groupId);
+        repository.deleteFrom(groupId, occurredAt);
+    }
+
+    /**
+     * Loads the nearest checkpoint at or before {@code asOf} into
+     * {@code balances}
+     *
+     * @param groupId  group to look up
+     * @param asOf     instant the balances are wanted at
+     * @param balances cents per user, the checkpoint is added onto it
+     * @return instant of the checkpoint, null if there is none
+     */
+    public Instant load(Long groupId, Instant asOf, Map<Long, Long> balances) {
+        Instant checkpoint = repository.findLatestAsOf(groupId, asOf);
+        if (checkpoint != null) {
+            for (BalanceCheckpoint row : repository.findByGroupIdAndAsOf(groupId, checkpoint)) {
+                balances.merge(row.getUserId(), Money.toCents(row.getBalance()), Long::sum);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Blocks writes that would invalidate the group's checkpoints until the
+     * current transaction ends. Call before reading what gets stored.
+     *
+     * @param groupId group about to be checkpointed
+     */
+    public void lock(Long groupId) {
+        repository.lockExclusive(groupId);
+    }
+
+    /**
+     * Stores a group's balances as of an instant
+     *
+     * @param groupId  group the balances belong to
+     * @param asOf     instant they are correct at
+     * @param balances cents per user
+     */
+    public void store(Long groupId, Instant asOf, Map<Long, Long> balances) {
+        repository.insertAll(groupId, asOf, balances.keySet().toArray(Long[]::new),
+                balances.values().toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,43 @@
+package com.fairshare.fairshare.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+
+/**
+ * Checks every group's member balances against the raw ledger on startup and
+ * rewrites the ones that drifted.
+ * Enabled with {@code --fairshare.balances.rebuild=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "fairshare.balances.rebuild", havingValue = "true")
+public class BalanceRebuildRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceRebuildRunner.class);
+
+    private final GroupRepository groupRepository;
+    private final ExpenseService expenseService;
+
+    public BalanceRebuildRunner(GroupRepository groupRepository, ExpenseService expenseService) {
+        this.groupRepository = groupRepository;
+        this.expenseService = expenseService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        var groupIds = groupRepository.findAllGroupIds();
+        int repaired = 0;
+        // one transaction per group so a large tenant doesn't hold one huge transaction
+        for (Long groupId : groupIds) {
+            if (expenseService.rebuildBalances(groupId)) {
+                repaired++;
+            }
+        }
+        log.info("Checked member balances for {} groups, rewrote {}", groupIds.size(), repaired);
+    }
+}
@@ -0,0 +1,120 @@
+package com.fairshare.fairshare.service;
+
+/**
+ * Sparse pairwise debts in cents, keyed by a pair of user ids. Only pairs that
+ * ever owed each other take a slot, stored in primitive arrays with open
+ * addressing so adding a debt does not allocate.
+ *
+ * Each unordered pair has one slot holding what the lower id owes the higher
+ * one, so a debt in the other direction simply nets against it.
+ */
+public final class DebtMatrix {
+
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(long fromUserId, long toUserId, long cents);
+    }
+
+    private long[] lowIds;
+    private long[] highIds;
+    private long[] cents;
+    private boolean[] used;
+    private int size;
+
+    public DebtMatrix() {
+        this(16);
+    }
+
+    /**
+     * @param expectedPairs number of pairs to size the table for
+     */
+    public DebtMatrix(int expectedPairs) {
+        int capacity = Integer.highestOneBit(Math.max(expectedPairs * 2 - 1, 8)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Records that one user owes another
+     *
+     * @param fromUserId user who owes
+     * @param toUserId   user who is owed
+     * @param amount     cents, negative reduces the debt
+     */
+    public void add(long fromUserId, long toUserId, long amount) {
+        if (fromUserId == toUserId || amount == 0) {
+            return;
+        }
+        long low = Math.min(fromUserId, toUserId);
+        long high = Math.max(fromUserId, toUserId);
+        int slot = slot(low, high);
+        if (!used[slot]) {
+            used[slot] = true;
+            lowIds[slot] = low;
+            highIds[slot] = high;
+            if (++size * 2 > used.length) {
+                grow();
+                slot = slot(low, high);
+            }
+        }
+        cents[slot] += fromUserId == low ? amount : -amount;
+    }
+
+    /**
+     * Visits every pair that does not net to zero, in no particular order,
+     * always from the user who owes to the user who is owed
+     *
+     * @param consumer receives each debt in positive cents
+     */
+    public void forEachDebt(PairConsumer consumer) {
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i] || cents[i] == 0) {
+                continue;
+            }
+            if (cents[i] > 0) {
+                consumer.accept(lowIds[i], highIds[i], cents[i]);
+            } else {
+                consumer.accept(highIds[i], lowIds[i], -cents[i]);
+            }
+        }
+    }
+
+    private int slot(long low, long high) {
+        int mask = used.length - 1;
+        int i = hash(low, high) & mask;
+        while (used[i] && (lowIds[i] != low || highIds[i] != high)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long low, long high) {
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        lowIds = new long[capacity];
+        highIds = new long[capacity];
+        cents = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void grow() {
+        long[] oldLow = lowIds;
+        long[] oldHigh = highIds;
+        long[] oldCents = cents;
+        boolean[] oldUsed = used;
+        allocate(oldUsed.length * 2);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldLow[i], oldHigh[i]);
+                used[slot] = true;
+                lowIds[slot] = oldLow[i];
+                highIds[slot] = oldHigh[i];
+                cents[slot] = oldCents[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.fairshare.fairshare.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fairshare.fairshare.dto.DebtDTO;
+import com.fairshare.fairshare.dto.GroupDebtsDTO;
+import com.fairshare.fairshare.repository.GroupRepository;
+
+/**
+ * Who owes whom within a group, pair by pair, from the actual expenses and
+ * settlements. Like the group balances, amounts in different currencies are
+ * added together.
+ */
+@Service
+public class DebtService {
+
+    static final int FETCH_SIZE = 1000;
+
+    /*
+     * one row per (creditor, debtor, cents): every share owed to the payer of
+     * its expense, equal splits expanded the way SplitEngine splits them, and
+     * every settlement as the payee owing the payer back
+     */
+    private static final String DEBT_ROWS = """
+            select e.payer_id, es.participant_id, cast(es.share_amount * 100 as bigint)
+            from expense_share es
+            join expenses e on e.expense_id = es.expense_id
+            where e.group_id = ? and es.participant_id <> e.payer_id
+            union all
+            select e.payer_id, m.user_id,
+                   cast(e.amount * 100 as bigint) / ps.member_count
+                   + case when m.pos <= cast(e.amount * 100 as bigint) % ps.member_count then 1 else 0 end
+            from expenses e
+            join participant_set ps on ps.participant_set_id = e.participant_set_id
+            cross join unnest(ps.member_ids) with ordinality as m(user_id, pos)
+            where e.group_id = ? and e.split_mode = 'EQUAL' and m.user_id <> e.payer_id
+            union all
+            select s.payer_id, s.payee_id, cast(s.amount * 100 as bigint)
+            from settlements s
+            where s.group_id = ?
+            """;
+
+    private final GroupRepository groupRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DebtService(GroupRepository groupRepository, DataSource dataSource) {
+        this.groupRepository = groupRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // inside a transaction the driver then reads through a cursor
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Pairwise debts of a group. The history is streamed through a forward
+     * only cursor and folded into a {@link DebtMatrix}, so memory grows with
+     * the number of pairs, not the number of expenses.
+     *
+     * @param groupId group to look at
+     * @return non-zero debts, ordered by debtor then creditor
+     * @throws NotFoundException if group not found
+     */
+    @Transactional(readOnly = true)
+    public GroupDebtsDTO getDebts(Long groupId) throws NotFoundException {
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
+
+        DebtMatrix matrix = new DebtMatrix();
+        // debtor owes creditor
+        jdbcTemplate.query(DEBT_ROWS, (RowCallbackHandler) rs -> matrix.add(rs.getLong(2), rs.getLong(1),
+                rs.getLong(3)), groupId, groupId, groupId);
+
+        List<DebtDTO> debts = new ArrayList<>();
+        matrix.forEachDebt((from, to, cents) -> debts.add(new DebtDTO(from, to, Money.toBigDecimal(cents))));
+        debts.sort(Comparator.comparing(DebtDTO::fromUserId).thenComparing(DebtDTO::toUserId));
+        return new GroupDebtsDTO(groupId, debts);
+    }
+}
@@ -0,0 +1,196 @@
+package com.fairshare.fairshare.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Group commit for expense creation. Requests for the same group wait up to
+ * {@code fairshare.expenses.batching.max-wait} or until
+ * {@code fairshare.expenses.batching.max-size} of them have arrived, then are
+ * written together by {@link ExpenseService#createExpenses}: one membership
+ * check, one transaction, one commit. Each caller still gets its own expense
+ * or its own error.
+ *
+ * Closed batches are written on the shared worker pool ({@link WorkersConfig}),
+ * whose queue is bounded: a batch it rejects fails its callers with a 503, as
+ * does a wait longer than {@code fairshare.expenses.batching.timeout}.
+ *
+ * Off unless {@code fairshare.expenses.batching.enabled=true}.
+ */
+@Service
+public class ExpenseBatcher {
+
+    private record Pending(CreateExpenseRequest request, CompletableFuture<ExpenseDTO> result) {
+    }
+
+    /* requests collected for one group, closed once it is handed to a writer */
+    private static final class Batch {
+        final Long groupId;
+        final List<Pending> items = new ArrayList<>();
+        boolean closed;
+
+        Batch(Long groupId) {
+            this.groupId = groupId;
+        }
+    }
+
+    private final ExpenseService expenseService;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<Long, Batch> open = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final TaskExecutor writers;
+
+    public ExpenseBatcher(ExpenseService expenseService,
+            @Qualifier("workerExecutor") TaskExecutor writers,
+            @Value("${fairshare.expenses.batching.enabled:false}") boolean enabled,
+            @Value("${fairshare.expenses.batching.max-size:32}") int maxSize,
+            @Value("${fairshare.expenses.batching.max-wait:5ms}") Duration maxWait,
+            @Value("${fairshare.expenses.batching.timeout:PT5S}") Duration timeout) {
+        this.expenseService = expenseService;
+        this.writers = writers;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "expense-batch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+    }
+
+    /**
+     * @return true if requests should go through the batcher
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an expense for the group's next batch
+     *
+     * @param groupId group the expense belongs to
+     * @param request expense to create
+     * @return completed with the created expense once its batch commits
+     */
+    public CompletableFuture<ExpenseDTO> submit(Long groupId, CreateExpenseRequest request) {
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        while (true) {
+            Batch batch = open.computeIfAbsent(groupId, Batch::new);
+            boolean first;
+            boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    // handed off between lookup and lock, start the next one
+                    continue;
+                }
+                batch.items.add(pending);
+                first = batch.items.size() == 1;
+                full = batch.items.size() >= maxSize;
+            }
+            if (full) {
+                flush(batch);
+            } else if (first) {
+                timer.schedule(() -> flush(batch), maxWaitNanos, TimeUnit.NANOSECONDS);
+            }
+            return pending.result();
+        }
+    }
+
+    /**
+     * Queues an expense and waits for its batch, at most
+     * {@code fairshare.expenses.batching.timeout}
+     *
+     * @param groupId group the expense belongs to
+     * @param request expense to create
+     * @return created expense
+     * @throws TimeoutException      if the batch was not written in time; it
+     *                               may still commit later
+     * @throws TaskRejectedException if the worker queue was full
+     * @throws Exception             whatever {@link ExpenseService#createExpenses}
+     *                               rejected the request or the batch with
+     */
+    public ExpenseDTO create(Long groupId, CreateExpenseRequest request) throws Exception {
+        try {
+            return submit(groupId, request).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+        }
+        open.remove(batch.groupId, batch);
+        try {
+            writers.execute(() -> write(batch));
+        } catch (TaskRejectedException ex) {
+            // the queue is full, shed the batch instead of waiting for room
+            for (Pending p : batch.items) {
+                p.result().completeExceptionally(ex);
+            }
+        }
+    }
+
+    private void write(Batch batch) {
+        List<CreateExpenseRequest> requests = new ArrayList<>(batch.items.size());
+        for (Pending p : batch.items) {
+            requests.add(p.request());
+        }
+
+        List<ExpenseService.BatchOutcome> outcomes;
+        try {
+            outcomes = expenseService.createExpenses(batch.groupId, requests);
+        } catch (Exception ex) {
+            // nothing committed, every caller gets the error
+            for (Pending p : batch.items) {
+                p.result().completeExceptionally(ex);
+            }
+            return;
+        }
+
+        // only after the commit, so nobody sees an expense that rolled back
+        for (int i = 0; i < outcomes.size(); i++) {
+            ExpenseService.BatchOutcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                batch.items.get(i).result().completeExceptionally(outcome.error());
+            } else {
+                batch.items.get(i).result().complete(outcome.expense());
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.fairshare.fairshare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.fairshare.fairshare.repository.ExpenseRow;
+
+/**
+ * Position of an expense in a group's (occurred_at, expense_id) ordering.
+ * Clients only see the opaque encoded form.
+ */
+public record ExpenseCursor(Instant occurredAt, Long expenseId) {
+
+    public static ExpenseCursor of(ExpenseRow e) {
+        return new ExpenseCursor(e.occurredAt(), e.expenseId());
+    }
+
+    public String encode() {
+        String raw = occurredAt + "|" + expenseId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor encoded cursor from a previous page
+     * @return decoded cursor
+     * @throws IllegalArgumentException if cursor is malformed
+     */
+    public static ExpenseCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new ExpenseCursor(Instant.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
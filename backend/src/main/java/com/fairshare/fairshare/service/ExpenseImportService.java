@@ -0,0 +1,454 @@
+package com.fairshare.fairshare.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fairshare.fairshare.dto.ImportErrorDTO;
+import com.fairshare.fairshare.dto.ImportExpenseRow;
+import com.fairshare.fairshare.dto.ImportShareRow;
+import com.fairshare.fairshare.dto.ImportSummaryDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
+import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Bulk expense import. Rows are read one line at a time, checked against a
+ * snapshot of the group's members taken once up front, and written with
+ * PostgreSQL COPY in chunks of {@link #CHUNK_SIZE} so memory stays flat for
+ * any upload size. Each chunk commits on its own; rows that fail validation
+ * are reported and skipped.
+ */
+@Service
+public class ExpenseImportService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    // numeric(10,2), in cents
+    private static final long MAX_CENTS = 9_999_999_999L;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final GroupRepository groupRepository;
+    private final MembershipRepository membershipRepository;
+    private final MemberBalanceRepository memberBalanceRepository;
+    private final ParticipantSetService participantSetService;
+    private final SplitEngine splitEngine;
+    private final BalanceCheckpoints balanceCheckpoints;
+    private final GroupVersions groupVersions;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader rowReader;
+
+    public ExpenseImportService(GroupRepository groupRepository, MembershipRepository membershipRepository,
+            MemberBalanceRepository memberBalanceRepository, ParticipantSetService participantSetService,
+            SplitEngine splitEngine, BalanceCheckpoints balanceCheckpoints, GroupVersions groupVersions,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.groupRepository = groupRepository;
+        this.membershipRepository = membershipRepository;
+        this.memberBalanceRepository = memberBalanceRepository;
+        this.participantSetService = participantSetService;
+        this.splitEngine = splitEngine;
+        this.balanceCheckpoints = balanceCheckpoints;
+        this.groupVersions = groupVersions;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowReader = objectMapper.readerFor(ImportExpenseRow.class);
+    }
+
+    /**
+     * Import expenses from an NDJSON or CSV stream
+     *
+     * @param groupId group the expenses belong to
+     * @param in      one expense per line (CSV starts with a header line)
+     * @param format  format of the stream
+     * @param errors  receives every rejected row as soon as it is known
+     * @return number of imported and rejected rows
+     * @throws NotFoundException
+     * @throws IOException
+     */
+    public ImportSummaryDTO importExpenses(Long groupId, Reader in, Format format, Consumer<ImportErrorDTO> errors)
+            throws NotFoundException, IOException {
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
+
+        // one membership read for the whole upload
+        List<Long> members = membershipRepository.findUserIdsByGroupId(groupId);
+        Set<Long> memberSet = new HashSet<>(members);
+
+        BufferedReader reader = in instanceof BufferedReader b ? b : new BufferedReader(in);
+        Map<String, Integer> csvColumns = null;
+        List<PendingExpense> chunk = new ArrayList<>(CHUNK_SIZE);
+        long imported = 0;
+        long failed = 0;
+        long lineNo = 0;
+        // equal-split rows all point at one snapshot of the members above
+        Long snapshotId = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = csvHeader(line);
+                if (!csvColumns.containsKey("payerId") || !csvColumns.containsKey("amount")) {
+                    errors.accept(new ImportErrorDTO(lineNo, "CSV header must name payerId and amount columns"));
+                    return new ImportSummaryDTO(0, 0);
+                }
+                continue;
+            }
+
+            PendingExpense pending;
+            try {
+                ImportExpenseRow row = format == Format.CSV ? parseCsv(line, csvColumns) : parseJson(line);
+                pending = validate(row, lineNo, memberSet);
+            } catch (IllegalArgumentException ex) {
+                errors.accept(new ImportErrorDTO(lineNo, ex.getMessage()));
+                failed++;
+                continue;
+            }
+
+            chunk.add(pending);
+            if (snapshotId == null && pending.participants() == null) {
+                snapshotId = participantSetService.snapshotId(groupId, members);
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                long written = flush(groupId, chunk, members, snapshotId, errors);
+                imported += written;
+                failed += chunk.size() - written;
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            long written = flush(groupId, chunk, members, snapshotId, errors);
+            imported += written;
+            failed += chunk.size() - written;
+        }
+        return new ImportSummaryDTO(imported, failed);
+    }
+
+    /* ==== validation ==== */
+
+    /**
+     * A validated row: amounts in cents and explicit shares, or no
+     * participants for an equal split between all members.
+     */
+    private record PendingExpense(long line, long payerId, long amount, Expense.CurrencyCode currency,
+            String description, Instant occurredAt, long[] participants, long[] shares) {
+    }
+
+    private static PendingExpense validate(ImportExpenseRow row, long lineNo, Set<Long> memberSet) {
+        if (row.payerId() == null) {
+            throw new IllegalArgumentException("payerId is required");
+        }
+        if (!memberSet.contains(row.payerId())) {
+            throw new IllegalArgumentException("Payer is not a member of this group");
+        }
+        long amount = row.amount() != null ? Money.toCents(row.amount()) : 0;
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Expense amount must be greater than 0");
+        }
+        if (amount > MAX_CENTS) {
+            throw new IllegalArgumentException("Expense amount is too large");
+        }
+
+        // no shares: same equal split as a single expense, stored without share rows
+        long[] participants = null;
+        long[] shares = null;
+        if (row.shares() != null && !row.shares().isEmpty()) {
+            int n = row.shares().size();
+            participants = new long[n];
+            shares = new long[n];
+            Set<Long> seen = new HashSet<>();
+            long total = 0;
+            for (int i = 0; i < n; i++) {
+                ImportShareRow share = row.shares().get(i);
+                if (share == null || share.participantId() == null || share.shareAmount() == null) {
+                    throw new IllegalArgumentException("Each share needs a participantId and shareAmount");
+                }
+                if (!memberSet.contains(share.participantId())) {
+                    throw new IllegalArgumentException(
+                            "Participant " + share.participantId() + " is not a member of this group");
+                }
+                if (!seen.add(share.participantId())) {
+                    throw new IllegalArgumentException(
+                            "Participant " + share.participantId() + " appears more than once");
+                }
+                if (share.shareAmount().signum() < 0) {
+                    throw new IllegalArgumentException("Share amounts cannot be negative");
+                }
+                participants[i] = share.participantId();
+                shares[i] = Money.toCents(share.shareAmount());
+                // no single share can exceed the amount, which also keeps the total in range
+                if (shares[i] > amount) {
+                    throw new IllegalArgumentException("Shares must add up to the expense amount");
+                }
+                total += shares[i];
+            }
+            if (total != amount) {
+                throw new IllegalArgumentException("Shares must add up to the expense amount");
+            }
+        }
+
+        String desc = row.description() == null || row.description().isBlank() ? null : row.description();
+        return new PendingExpense(lineNo, row.payerId(), amount,
+                row.currency() != null ? row.currency() : Expense.CurrencyCode.CAD,
+                desc,
+                row.occurredAt() != null ? row.occurredAt() : Instant.now(),
+                participants, shares);
+    }
+
+    /* ==== parsing ==== */
+
+    private ImportExpenseRow parseJson(String line) {
+        try {
+            return rowReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed row: " + ex.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> csvHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        return columns;
+    }
+
+    /**
+     * CSV columns: payerId, amount, currency, description, occurredAt, shares.
+     * Shares are written as participantId:amount pairs separated by ';'.
+     */
+    private static ImportExpenseRow parseCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        try {
+            String payer = field(fields, columns, "payerId");
+            String amount = field(fields, columns, "amount");
+            String currency = field(fields, columns, "currency");
+            String occurredAt = field(fields, columns, "occurredAt");
+            String shares = field(fields, columns, "shares");
+
+            List<ImportShareRow> shareRows = null;
+            if (shares != null) {
+                shareRows = new ArrayList<>();
+                for (String pair : shares.split(";")) {
+                    int colon = pair.indexOf(':');
+                    if (colon < 0) {
+                        throw new IllegalArgumentException("share '" + pair + "' is not participantId:amount");
+                    }
+                    shareRows.add(new ImportShareRow(
+                            Long.valueOf(pair.substring(0, colon).trim()),
+                            new BigDecimal(pair.substring(colon + 1).trim())));
+                }
+            }
+
+            return new ImportExpenseRow(
+                    payer != null ? Long.valueOf(payer) : null,
+                    amount != null ? new BigDecimal(amount) : null,
+                    currency != null ? Expense.CurrencyCode.valueOf(currency) : null,
+                    field(fields, columns, "description"),
+                    occurredAt != null ? Instant.parse(occurredAt) : null,
+                    shareRows);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed row: " + ex.getMessage());
+        }
+    }
+
+    /* blank fields read as missing */
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer idx = columns.get(name);
+        if (idx == null || idx >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(idx).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /* RFC 4180 quoting within a single line */
+    private static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cur.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    /* ==== writing ==== */
+
+    /**
+     * Writes one chunk in its own transaction. If the database rejects it the
+     * whole chunk is reported as failed.
+     *
+     * @return number of rows written
+     */
+    private long flush(Long groupId, List<PendingExpense> chunk, List<Long> members, Long snapshotId,
+            Consumer<ImportErrorDTO> errors) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeChunk(groupId, chunk, members, snapshotId));
+            return chunk.size();
+        } catch (RuntimeException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            for (PendingExpense p : chunk) {
+                errors.accept(new ImportErrorDTO(p.line(), "Chunk rejected by database: " + cause.getMessage()));
+            }
+            return 0;
+        }
+    }
+
+    private void writeChunk(Long groupId, List<PendingExpense> chunk, List<Long> members, Long snapshotId) {
+        Instant earliest = chunk.get(0).occurredAt();
+        for (PendingExpense p : chunk) {
+            if (p.occurredAt().isBefore(earliest)) {
+                earliest = p.occurredAt();
+            }
+        }
+        balanceCheckpoints.invalidate(groupId, earliest);
+
+        // the transaction's connection, so the balance update below commits with it
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            long[] ids = allocateExpenseIds(con, chunk.size());
+
+            StringBuilder expenses = new StringBuilder(chunk.size() * 96);
+            StringBuilder shares = new StringBuilder(chunk.size() * 64);
+            Map<Long, Long> deltas = new TreeMap<>();
+            // what each member owes across the chunk's equal splits, by position
+            long[] equalOwed = new long[members.size()];
+            long[] split = new long[members.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                PendingExpense p = chunk.get(i);
+                expenses.append(ids[i]).append(',')
+                        .append(p.payerId()).append(',')
+                        .append(groupId).append(',')
+                        .append(Money.toBigDecimal(p.amount()).toPlainString()).append(',')
+                        .append(p.currency().name()).append(',');
+                if (p.description() != null) {
+                    // quoted so an empty string stays distinct from null
+                    expenses.append('"').append(p.description().replace("\"", "\"\"")).append('"');
+                }
+                expenses.append(',').append(p.occurredAt()).append(',');
+
+                deltas.merge(p.payerId(), p.amount(), Long::sum);
+                if (p.participants() == null) {
+                    expenses.append("EQUAL,").append(snapshotId).append('\n');
+                    splitEngine.splitEvenly(p.amount(), split);
+                    for (int k = 0; k < split.length; k++) {
+                        equalOwed[k] += split[k];
+                    }
+                    continue;
+                }
+                expenses.append("SHARES,\n");
+                for (int k = 0; k < p.participants().length; k++) {
+                    shares.append(ids[i]).append(',')
+                            .append(p.participants()[k]).append(',')
+                            .append(Money.toBigDecimal(p.shares()[k]).toPlainString()).append('\n');
+                    deltas.merge(p.participants()[k], -p.shares()[k], Long::sum);
+                }
+            }
+            for (int k = 0; k < equalOwed.length; k++) {
+                if (equalOwed[k] != 0) {
+                    deltas.merge(members.get(k), -equalOwed[k], Long::sum);
+                }
+            }
+
+            var copy = con.unwrap(PGConnection.class).getCopyAPI();
+            copy.copyIn("copy expenses (expense_id, payer_id, group_id, amount, currency, description, occurred_at,"
+                    + " split_mode, participant_set_id) from stdin with (format csv)",
+                    new StringReader(expenses.toString()));
+            if (!shares.isEmpty()) {
+                // share ids come from the column default
+                copy.copyIn("copy expense_share (expense_id, participant_id, share_amount)"
+                        + " from stdin with (format csv)", new StringReader(shares.toString()));
+            }
+
+            memberBalanceRepository.applyDeltas(groupId, deltas.keySet().toArray(Long[]::new),
+                    deltas.values().toArray(Long[]::new));
+            groupVersions.bump(groupId);
+        } catch (SQLException | IOException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /**
+     * Reserves expense ids with one round trip. The sequence hands out values
+     * 50 apart and Hibernate's pooled optimizer only uses the 50 ids at or below
+     * a value it fetched itself, so using each fetched value directly never
+     * collides with ids assigned through JPA.
+     */
+    private static long[] allocateExpenseIds(Connection con, int count) throws SQLException {
+        long[] ids = new long[count];
+        try (PreparedStatement ps = con.prepareStatement(
+                "select nextval('expenses_expense_id_seq') from generate_series(1, ?)")) {
+            ps.setInt(1, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    ids[i++] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -1,57 +1,108 @@
 package com.fairshare.fairshare.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.file.AccessDeniedException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.CreateSettlementRequest;
 import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpenseFilter;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.dto.SettleUpPlanDTO;
 import com.fairshare.fairshare.dto.SettlementDTO;
 import com.fairshare.fairshare.dto.ShareDTO;
+import com.fairshare.fairshare.dto.TransferDTO;
 import com.fairshare.fairshare.entity.Expense;
-import com.fairshare.fairshare.entity.ExpenseShare;
-import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.MemberBalance;
+import com.fairshare.fairshare.entity.ParticipantSet;
 import com.fairshare.fairshare.entity.Settlement;
 import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.ExpenseRow;
 import com.fairshare.fairshare.repository.ExpenseShareRepository;
 import com.fairshare.fairshare.repository.GroupRepository;
-import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
 import com.fairshare.fairshare.repository.SettlementRepository;
+import com.fairshare.fairshare.repository.ShareRow;
+import com.fairshare.fairshare.repository.UserCurrencyTotal;
 import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.repository.UserTotal;
 
 @Service
 public class ExpenseService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    // expenses mapped per round of share lookups during an export
+    static final int EXPORT_CHUNK_SIZE = 500;
+
+    // bounds of the whole ledger, so the aggregate queries never bind nulls
+    static final Instant LEDGER_START = Instant.parse("1000-01-01T00:00:00Z");
+    static final Instant LEDGER_END = Instant.parse("9999-12-31T23:59:59Z");
+
     private final ExpenseRepository expenseRepository;
     private final UserRepository userRepository;
     private final GroupRepository groupRepository;
-    private final MembershipRepository membershipRepository;
     private final ExpenseShareRepository expenseShareRepository;
     private final SettlementRepository settlementRepository;
+    private final MemberBalanceRepository memberBalanceRepository;
+    private final SettleUpEngine settleUpEngine;
+    private final MembershipCache membershipCache;
+    private final ParticipantSetService participantSetService;
+    private final SplitEngine splitEngine;
+    private final BalanceCheckpoints balanceCheckpoints;
+    private final FxRateService fxRateService;
+    private final GroupVersions groupVersions;
 
     public ExpenseService(ExpenseRepository expenseRepository, GroupRepository groupRepository,
-            MembershipRepository membershipRepository,
             UserRepository userRepository, ExpenseShareRepository expenseShareRepository,
-            SettlementRepository settlementRepository) {
+            SettlementRepository settlementRepository, MemberBalanceRepository memberBalanceRepository,
+            SettleUpEngine settleUpEngine, MembershipCache membershipCache,
+            ParticipantSetService participantSetService, SplitEngine splitEngine,
+            BalanceCheckpoints balanceCheckpoints, FxRateService fxRateService, GroupVersions groupVersions) {
         this.expenseRepository = expenseRepository;
         this.groupRepository = groupRepository;
-        this.membershipRepository = membershipRepository;
         this.userRepository = userRepository;
         this.expenseShareRepository = expenseShareRepository;
         this.settlementRepository = settlementRepository;
+        this.memberBalanceRepository = memberBalanceRepository;
+        this.settleUpEngine = settleUpEngine;
+        this.membershipCache = membershipCache;
+        this.participantSetService = participantSetService;
+        this.splitEngine = splitEngine;
+        this.balanceCheckpoints = balanceCheckpoints;
+        this.fxRateService = fxRateService;
+        this.groupVersions = groupVersions;
+    }
+
+    /**
+     * Outcome of one request in {@link #createExpenses}
+     * 
+     * @param expense created expense, null if the request was rejected
+     * @param error   why it was rejected, null if it was created
+     */
+    public record BatchOutcome(ExpenseDTO expense, Exception error) {
     }
 
     /**
-     * Create an expense and split shares equally amongst members
+     * Create an expense and split shares equally amongst members. The split
+     * is stored implicitly (see {@link Expense.SplitMode#EQUAL})
      * 
      * @param groupId   group that expense will reside
      * @param payerId   person who paid the expense
@@ -67,61 +118,183 @@ public class ExpenseService {
     public ExpenseDTO createExpense(Long groupId, Long payerId, BigDecimal amount, Expense.CurrencyCode currency,
             String desc, Instant occuredAt) throws NotFoundException, AccessDeniedException {
 
-        if (!(groupRepository.existsById(groupId)) || !(userRepository.existsById(payerId))) {
-            throw new NotFoundException();
+        // group existence and membership come from the cache, only a failed
+        // check goes back to the database to tell 404 from 403
+        Money total = checkExpense(membershipCache.members(groupId), payerId, amount);
+        // the cache can be behind a member change made on another instance,
+        // the split is made amongst the members as committed
+        List<Long> members = membershipCache.lockMembers(groupId);
+        checkStillMember(members, payerId);
+
+        Expense e = newExpense(groupId, payerId, total, currency, desc, occuredAt);
+        // equal split across all members, stored as a snapshot of who the
+        // members were instead of one share row each
+        e.setParticipantSetId(participantSetService.snapshotId(groupId, members));
+        long[] shareCents = new long[members.size()];
+        splitEngine.splitEvenly(total.cents(), shareCents);
+
+        Expense saved = expenseRepository.save(e);
+        balanceCheckpoints.invalidate(groupId, saved.getOccurredAt());
+
+        // payer is owed the full amount, every member owes their share. the
+        // payer is one of the members, so the ids are already sorted and unique
+        Long[] userIds = members.toArray(Long[]::new);
+        Long[] deltaCents = new Long[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            deltaCents[i] = userIds[i].equals(payerId) ? total.cents() - shareCents[i] : -shareCents[i];
+        }
+        memberBalanceRepository.applyDeltas(groupId, userIds, deltaCents);
+        groupVersions.bump(groupId);
+
+        return toCreatedDTO(saved, members, shareCents);
+    }
+
+    /**
+     * Create several expenses in a group in one transaction, each split
+     * equally amongst members like {@link #createExpense}. Every request is
+     * checked against the same membership snapshot, a rejected one does not
+     * stop the others.
+     * 
+     * @param groupId  group the expenses reside in
+     * @param requests expenses to create
+     * @return one outcome per request, in order
+     * @throws NotFoundException if group not found
+     */
+    @Transactional
+    public List<BatchOutcome> createExpenses(Long groupId, List<CreateExpenseRequest> requests)
+            throws NotFoundException {
+
+        List<Long> cached = membershipCache.members(groupId);
+        List<Long> members = null;
+        Long[] userIds = null;
+
+        BatchOutcome[] outcomes = new BatchOutcome[requests.size()];
+        List<Integer> accepted = new ArrayList<>(requests.size());
+        List<Expense> expenses = new ArrayList<>(requests.size());
+        List<long[]> shares = new ArrayList<>(requests.size());
+        long[] deltaCents = null;
+        Long snapshotId = null;
+        Instant earliest = null;
+
+        for (int r = 0; r < requests.size(); r++) {
+            CreateExpenseRequest request = requests.get(r);
+            Money total;
+            try {
+                total = checkExpense(cached, request.payerId(), request.amount());
+                if (members == null) {
+                    // split amongst the members as committed, see createExpense
+                    members = membershipCache.lockMembers(groupId);
+                    userIds = members.toArray(Long[]::new);
+                    deltaCents = new long[userIds.length];
+                }
+                checkStillMember(members, request.payerId());
+            } catch (NotFoundException | AccessDeniedException | IllegalArgumentException ex) {
+                outcomes[r] = new BatchOutcome(null, ex);
+                continue;
+            }
+
+            if (snapshotId == null) {
+                snapshotId = participantSetService.snapshotId(groupId, members);
+            }
+            Expense e = newExpense(groupId, request.payerId(), total, request.currency(), request.description(),
+                    request.occurredAt());
+            e.setParticipantSetId(snapshotId);
+            long[] shareCents = new long[userIds.length];
+            splitEngine.splitEvenly(total.cents(), shareCents);
+            for (int i = 0; i < userIds.length; i++) {
+                deltaCents[i] += userIds[i].equals(request.payerId()) ? total.cents() - shareCents[i]
+                        : -shareCents[i];
+            }
+            if (earliest == null || e.getOccurredAt().isBefore(earliest)) {
+                earliest = e.getOccurredAt();
+            }
+            accepted.add(r);
+            expenses.add(e);
+            shares.add(shareCents);
+        }
+
+        if (!expenses.isEmpty()) {
+            // one batched insert and one balance update for the whole batch
+            List<Expense> saved = expenseRepository.saveAll(expenses);
+            balanceCheckpoints.invalidate(groupId, earliest);
+            Long[] deltas = new Long[userIds.length];
+            for (int i = 0; i < userIds.length; i++) {
+                deltas[i] = deltaCents[i];
+            }
+            memberBalanceRepository.applyDeltas(groupId, userIds, deltas);
+            groupVersions.bump(groupId);
+
+            for (int k = 0; k < saved.size(); k++) {
+                outcomes[accepted.get(k)] = new BatchOutcome(toCreatedDTO(saved.get(k), members, shares.get(k)), null);
+            }
+        }
+        return List.of(outcomes);
+    }
+
+    /* ranges must not be empty, fuzzy matching needs text to match */
+    private static void checkFilter(ExpenseFilter filter) {
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("from must be before to");
         }
-        // verify user is member of group
-        if (!membershipRepository.existsByUser_UserIdAndGroup_GroupId(payerId, groupId)) {
+        if (filter.minAmount() != null && filter.maxAmount() != null
+                && filter.minAmount().compareTo(filter.maxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount must not exceed maxAmount");
+        }
+        if (filter.q() == null && filter.fuzzy()) {
+            throw new IllegalArgumentException("fuzzy needs q");
+        }
+    }
+
+    /* the payer must be a member and the amount at least a cent */
+    private Money checkExpense(List<Long> members, Long payerId, BigDecimal amount)
+            throws NotFoundException, AccessDeniedException {
+        if (Collections.binarySearch(members, payerId) < 0) {
+            if (!userRepository.existsById(payerId)) {
+                throw new NotFoundException();
+            }
             throw new AccessDeniedException("Payer is not a member of this group");
         }
 
-        // verify amount is above 0
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        // normalize amount to cents 10.235 -> 10.24, which must be above 0
+        Money total = amount != null ? Money.of(amount) : null;
+        if (total == null || !total.isPositive()) {
             throw new IllegalArgumentException("Expense amount must be greater than 0");
         }
+        return total;
+    }
 
-        // normalize amount to 2 decimal places 10.235 -> 10.24
-        BigDecimal normalizedAmount = amount.setScale(2, RoundingMode.HALF_UP);
+    /* the payer passed the cached check but may have left since */
+    private static void checkStillMember(List<Long> members, Long payerId) throws AccessDeniedException {
+        if (Collections.binarySearch(members, payerId) < 0) {
+            throw new AccessDeniedException("Payer is not a member of this group");
+        }
+    }
 
-        // save expense
+    /* an equal-split expense, not yet saved */
+    private Expense newExpense(Long groupId, Long payerId, Money total, Expense.CurrencyCode currency, String desc,
+            Instant occuredAt) {
         Expense e = new Expense();
         e.setGroup(groupRepository.getReferenceById(groupId));
         e.setPayer(userRepository.getReferenceById(payerId));
-        e.setAmount(normalizedAmount);
+        e.setAmount(total.toBigDecimal());
         // if currency is null default to cad
         e.setCurrency(currency != null ? currency : Expense.CurrencyCode.CAD);
         e.setDescription(desc);
         // if occuredat is null default to now
         e.setOccurredAt(occuredAt != null ? occuredAt : Instant.now());
+        e.setSplitMode(Expense.SplitMode.EQUAL);
+        return e;
+    }
 
-        Expense saved = expenseRepository.save(e);
-
-        var members = membershipRepository.findByGroup_GroupId(groupId);
-        if (members.isEmpty()) {
-            throw new IllegalStateException("Cannot split expense: no members in group");
-        }
-
-        // equal split across all members
-        int memberCount = members.size();
-        BigDecimal perMemberShare = normalizedAmount
-                .divide(BigDecimal.valueOf(memberCount), 2, RoundingMode.HALF_UP);
-
-        List<ShareDTO> shares = new ArrayList<>(memberCount);
-        for (var m : members) {
-            ExpenseShare es = new ExpenseShare();
-            es.setExpense(saved);
-            es.setParticipant(m.getUser());
-            es.setShareAmount(perMemberShare);
-            es.setShareRatio(null);
-            expenseShareRepository.save(es);
-
-            shares.add(new ShareDTO(m.getUser().getUserId(), perMemberShare, null));
+    private static ExpenseDTO toCreatedDTO(Expense saved, List<Long> members, long[] shareCents) {
+        List<ShareDTO> shares = new ArrayList<>(shareCents.length);
+        for (int i = 0; i < shareCents.length; i++) {
+            shares.add(new ShareDTO(members.get(i), Money.toBigDecimal(shareCents[i]), null));
         }
-
         return new ExpenseDTO(
                 saved.getExpenseId(),
-                groupId,
-                payerId,
+                saved.getGroup().getGroupId(),
+                saved.getPayer().getUserId(),
                 saved.getAmount(),
                 saved.getCurrency(),
                 saved.getDescription(),
@@ -132,43 +305,126 @@ public class ExpenseService {
     }
 
     /**
-     * List all expenses within a group
+     * Every expense of a group, oldest first, handed to {@code out} one at a
+     * time. Rows are read through a cursor as projections, nothing is kept in
+     * the persistence context, and mapped a chunk at a time so memory does
+     * not grow with the history.
      * 
      * @param groupId where expenses are
-     * @return expense dto
+     * @param out     receives each expense dto, called inside the transaction
+     * @return number of expenses exported
+     * @throws NotFoundException if group not found, before {@code out} is
+     *                           called
+     */
+    @Transactional(readOnly = true)
+    public long exportExpenses(Long groupId, Consumer<ExpenseDTO> out) throws NotFoundException {
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
+
+        long count = 0;
+        List<ExpenseRow> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        try (Stream<ExpenseRow> rows = expenseRepository.streamByGroupId(groupId)) {
+            Iterator<ExpenseRow> it = rows.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !it.hasNext()) {
+                    toExpenseDTOs(chunk).forEach(out);
+                    count += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * List a page of expenses within a group, newest first. Pages are keyed on
+     * (occurred_at, expense_id) so deep pages cost the same as the first one.
+     * 
+     * @param groupId where expenses are
+     * @param limit   max expenses in the page (1-200)
+     * @param before  cursor, return expenses older than it
+     * @param after   cursor, return expenses newer than it
+     * @return page of expense dtos with cursors to neighbouring pages
      * @throws NotFoundException
      */
     @Transactional(readOnly = true)
-    public List<ExpenseDTO> listGroupExpenses(Long groupId) throws NotFoundException {
+    public ExpensePageDTO listGroupExpenses(Long groupId, int limit, String before, String after)
+            throws NotFoundException {
+        return listGroupExpenses(groupId, limit, before, after, ExpenseFilter.NONE);
+    }
+
+    /**
+     * List a page of a group's expenses that match a filter, newest first.
+     * Cursors only hold a position, so follow-up pages must send the same
+     * filter again.
+     * 
+     * @param groupId where expenses are
+     * @param limit   max expenses in the page (1-200)
+     * @param before  cursor, return expenses older than it
+     * @param after   cursor, return expenses newer than it
+     * @param filter  criteria the expenses must match
+     * @return page of expense dtos with cursors to neighbouring pages
+     * @throws NotFoundException
+     */
+    @Transactional(readOnly = true)
+    public ExpensePageDTO listGroupExpenses(Long groupId, int limit, String before, String after,
+            ExpenseFilter filter) throws NotFoundException {
 
         if (!groupRepository.existsById(groupId)) {
             throw new NotFoundException();
         }
 
-        // fetch all expenses for this group
-        var expenses = expenseRepository.findByGroup_GroupId(groupId);
-
-        return expenses.stream().map(expense -> {
-            // fetch all shares for this expense
-            var shares = expenseShareRepository.findByExpense_ExpenseId(expense.getExpenseId())
-                    .stream()
-                    .map(s -> new ShareDTO(
-                            s.getParticipant().getUserId(),
-                            s.getShareAmount(),
-                            s.getShareRatio()))
-                    .toList();
-
-            return new ExpenseDTO(
-                    expense.getExpenseId(),
-                    expense.getGroup().getGroupId(),
-                    expense.getPayer().getUserId(),
-                    expense.getAmount(),
-                    expense.getCurrency(),
-                    expense.getDescription(),
-                    expense.getOccurredAt(),
-                    expense.getCreatedAt(),
-                    shares);
-        }).toList();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Use either before or after, not both");
+        }
+
+        checkFilter(filter);
+
+        // fetch one extra row to learn whether another page exists
+        List<ExpenseRow> rows;
+        if (!filter.isEmpty()) {
+            String position = after != null ? after : before;
+            ExpenseCursor cursor = position != null ? ExpenseCursor.decode(position) : null;
+            rows = new ArrayList<>(expenseRepository.search(groupId, filter,
+                    cursor != null ? cursor.occurredAt() : null, cursor != null ? cursor.expenseId() : null,
+                    after != null, limit + 1));
+        } else if (after != null) {
+            ExpenseCursor cursor = ExpenseCursor.decode(after);
+            rows = new ArrayList<>(expenseRepository.findPageAfter(
+                    groupId, cursor.occurredAt(), cursor.expenseId(), limit + 1));
+        } else if (before != null) {
+            ExpenseCursor cursor = ExpenseCursor.decode(before);
+            rows = new ArrayList<>(expenseRepository.findPageBefore(
+                    groupId, cursor.occurredAt(), cursor.expenseId(), limit + 1));
+        } else {
+            rows = new ArrayList<>(expenseRepository.findLatestPage(groupId, limit + 1));
+        }
+
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows.remove(limit);
+        }
+        // "after" pages are read oldest first, flip them to newest first
+        if (after != null) {
+            Collections.reverse(rows);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!rows.isEmpty()) {
+            ExpenseCursor newest = ExpenseCursor.of(rows.get(0));
+            ExpenseCursor oldest = ExpenseCursor.of(rows.get(rows.size() - 1));
+            // "after" pages always have older rows (the cursor itself)
+            nextCursor = (after != null || more) ? oldest.encode() : null;
+            prevCursor = (after != null ? more : before != null) ? newest.encode() : null;
+        }
+
+        return new ExpensePageDTO(toExpenseDTOs(rows), nextCursor, prevCursor);
     }
 
     /**
@@ -185,55 +441,151 @@ public class ExpenseService {
             throw new NotFoundException();
         }
 
-        // get members
-        List<Membership> members = membershipRepository.findByGroup_GroupId(groupId);
+        // read the maintained projection instead of folding the whole history.
+        // splits hand out every cent, so the stored balances already net to
+        // zero and are at scale 2
+        List<MemberBalance> rows = memberBalanceRepository.findByGroupId(groupId);
+        List<BalanceDTO> balances = new ArrayList<>(rows.size());
+        for (MemberBalance row : rows) {
+            balances.add(new BalanceDTO(row.getUserId(), row.getBalance()));
+        }
+        return balances;
+    }
 
-        Map<Long, BigDecimal> balances = new HashMap<>();
+    /**
+     * retrieve balance of all users within a group at a point in time. Starts
+     * from the nearest checkpoint and only replays the expenses and
+     * settlements after it
+     * 
+     * @param groupId where users with balances are found
+     * @param asOf    only count expenses that occurred and settlements made
+     *                at or before this, null for the current balances
+     * @return balance list (userid, balance)
+     * @throws NotFoundException
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceDTO> getUserBalances(Long groupId, Instant asOf) throws NotFoundException {
+        if (asOf == null) {
+            return getUserBalances(groupId);
+        }
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
 
-        // initialize hashmap with 0.00 balance for each member
-        for (Membership member : members) {
-            balances.put(member.getUser().getUserId(), BigDecimal.ZERO);
+        Map<Long, Long> cents = new TreeMap<>();
+        for (Long memberId : membershipCache.members(groupId)) {
+            cents.put(memberId, 0L);
+        }
+        Instant checkpoint = balanceCheckpoints.load(groupId, asOf, cents);
+        if (!asOf.equals(checkpoint)) {
+            foldLedger(groupId, checkpoint != null ? checkpoint : LEDGER_START, asOf, cents);
         }
 
-        // add to balance what each payer paid
-        List<Expense> expenses = expenseRepository.findByGroup_GroupId(groupId);
-        for (Expense exp : expenses) {
-            Long payerId = exp.getPayer().getUserId();
-            BigDecimal current = balances.getOrDefault(payerId, BigDecimal.ZERO);
-            balances.put(payerId, current.add(exp.getAmount()));
+        List<BalanceDTO> balances = new ArrayList<>(cents.size());
+        cents.forEach((userId, balance) -> balances.add(new BalanceDTO(userId, Money.toBigDecimal(balance))));
+        return balances;
+    }
+
+    /**
+     * retrieve balance of all users within a group in one currency. Each
+     * member's totals per currency are aggregated in the database and then
+     * converted with the cached rates
+     * 
+     * @param groupId  where users with balances are found
+     * @param asOf     only count what happened at or before this, null for
+     *                 the current balances
+     * @param currency currency to express balances in, null to add amounts
+     *                 up as they are
+     * @return balance list (userid, balance)
+     * @throws NotFoundException
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceDTO> getUserBalances(Long groupId, Instant asOf, Expense.CurrencyCode currency)
+            throws NotFoundException {
+        if (currency == null) {
+            return getUserBalances(groupId, asOf);
+        }
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
         }
 
-        // subtract from balance what each participant owes
-        List<ExpenseShare> shares = expenseShareRepository.findByExpense_Group_GroupId(groupId);
-        for (ExpenseShare share : shares) {
-            Long participantId = share.getParticipant().getUserId();
-            BigDecimal current = balances.getOrDefault(participantId, BigDecimal.ZERO);
-            balances.put(participantId, current.subtract(share.getShareAmount()));
+        // one snapshot for the whole read, so every row uses the same rates
+        FxRateSnapshot rates = fxRateService.snapshot();
+        String target = currency.name();
+        Map<Long, Long> cents = new TreeMap<>();
+        for (Long memberId : membershipCache.members(groupId)) {
+            cents.put(memberId, 0L);
         }
+        for (UserCurrencyTotal t : expenseRepository.sumNetByMemberAndCurrency(groupId, LEDGER_START,
+                asOf != null ? asOf : LEDGER_END)) {
+            cents.merge(t.userId(), rates.convert(Money.toCents(t.total()), t.currency(), target), Long::sum);
+        }
+
+        List<BalanceDTO> balances = new ArrayList<>(cents.size());
+        cents.forEach((userId, balance) -> balances.add(new BalanceDTO(userId, Money.toBigDecimal(balance))));
+        return balances;
+    }
 
-        // apply settlements (payer pays out, payee receives)
-        List<Settlement> settlements = settlementRepository.findByGroup_GroupId(groupId);
-        for (Settlement s : settlements) {
-            Long payerId = s.getPayer().getUserId();
-            Long payeeId = s.getPayee().getUserId();
-            BigDecimal amt = s.getAmount();
-            balances.put(payerId, balances.get(payerId).subtract(amt));
-            balances.put(payeeId, balances.get(payeeId).add(amt));
+    /**
+     * Stores a group's balances as of an instant, rolled forward from the
+     * previous checkpoint. Nothing is stored if nothing happened since then.
+     * 
+     * @param groupId group to checkpoint
+     * @param asOf    instant to take it at, no later than
+     *                {@link BalanceCheckpoints#horizon()}
+     * @return true if a checkpoint was stored
+     * @throws NotFoundException if group not found
+     */
+    @Transactional
+    public boolean checkpointBalances(Long groupId, Instant asOf) throws NotFoundException {
+        if (!groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
+        if (asOf.isAfter(balanceCheckpoints.horizon())) {
+            throw new IllegalArgumentException("Checkpoint is too recent");
         }
 
-        // normalize balances
-        BigDecimal total = balances.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // back-dated writes wait for this transaction, and the reads below
+        // see every one that committed before it
+        balanceCheckpoints.lock(groupId);
+        Map<Long, Long> cents = new TreeMap<>();
+        Instant previous = balanceCheckpoints.load(groupId, asOf, cents);
+        if (asOf.equals(previous)) {
+            return false;
+        }
+        int rows = foldLedger(groupId, previous != null ? previous : LEDGER_START, asOf, cents);
+        if (previous != null && rows == 0) {
+            return false;
+        }
+        balanceCheckpoints.store(groupId, asOf, cents);
+        return true;
+    }
 
-        if (total.compareTo(BigDecimal.ZERO) != 0) {
-            Long firstUserId = balances.keySet().iterator().next();
-            balances.put(firstUserId, balances.get(firstUserId).subtract(total));
+    /**
+     * Work out the fewest transfers that settle everyone in a group
+     * 
+     * @param groupId group to settle
+     * @return plan of who pays whom
+     * @throws NotFoundException
+     */
+    @Transactional(readOnly = true)
+    public SettleUpPlanDTO getSettleUpPlan(Long groupId) throws NotFoundException {
+
+        List<BalanceDTO> balances = getUserBalances(groupId);
+
+        // balances are stored at 2 decimals, so cents are exact
+        long[] userIds = new long[balances.size()];
+        long[] cents = new long[balances.size()];
+        for (int i = 0; i < balances.size(); i++) {
+            userIds[i] = balances.get(i).userId();
+            cents[i] = Money.toCents(balances.get(i).balance());
         }
 
-        // round balances to 2 decimals for clean output
-        return balances.entrySet().stream()
-                .map(e -> new BalanceDTO(e.getKey(), e.getValue().setScale(2, RoundingMode.HALF_UP)))
+        List<TransferDTO> transfers = settleUpEngine.plan(userIds, cents).stream()
+                .map(t -> new TransferDTO(t.fromUserId(), t.toUserId(), Money.toBigDecimal(t.cents())))
                 .toList();
+
+        return new SettleUpPlanDTO(groupId, transfers);
     }
 
     /**
@@ -256,19 +608,15 @@ public class ExpenseService {
             BigDecimal amount,
             Settlement.CurrencyCode currency) throws NotFoundException, AccessDeniedException {
 
-        // validate group & users & membership
-        if (!groupRepository.existsById(groupId))
-            throw new NotFoundException();
-
-        if (!userRepository.existsById(payerId) || !userRepository.existsById(payeeId))
-            throw new NotFoundException();
-
-        if (!membershipRepository.existsByUser_UserIdAndGroup_GroupId(payerId, groupId) ||
-                !membershipRepository.existsByUser_UserIdAndGroup_GroupId(payeeId, groupId)) {
+        // validate group & users & membership, from the cache unless a check fails
+        if (!membershipCache.isMember(groupId, payerId) || !membershipCache.isMember(groupId, payeeId)) {
+            if (!userRepository.existsById(payerId) || !userRepository.existsById(payeeId))
+                throw new NotFoundException();
             throw new AccessDeniedException("Both users must be members of the group");
         }
 
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money settled = amount != null ? Money.of(amount) : null;
+        if (settled == null || !settled.isPositive()) {
             throw new IllegalArgumentException("Cannot settle 0 or negative");
         }
 
@@ -277,13 +625,101 @@ public class ExpenseService {
         s.setPayer(userRepository.getReferenceById(payerId));
         s.setPayee(userRepository.getReferenceById(payeeId));
         s.setGroup(groupRepository.getReferenceById(groupId));
-        s.setAmount(amount.setScale(2, RoundingMode.HALF_UP));
+        s.setAmount(settled.toBigDecimal());
         s.setCurrency(currency != null ? currency : Settlement.CurrencyCode.CAD);
         s.setSettledAt(Instant.now());
 
         Settlement saved = settlementRepository.save(s);
 
+        // payer's debt shrinks, payee is owed less
+        Map<Long, Long> deltas = new TreeMap<>();
+        deltas.merge(payerId, settled.cents(), Long::sum);
+        deltas.merge(payeeId, -settled.cents(), Long::sum);
+        applyBalanceDeltas(groupId, deltas);
+        groupVersions.bump(groupId);
+
         // return dto
+        return toDTO(saved, payerId, payeeId, groupId);
+    }
+
+    /**
+     * Create several settlements in a group at once, e.g. a whole settle-up
+     * plan. Every payer and payee is checked against one membership load, the
+     * rows are inserted in one batch and the balances updated in one
+     * statement. Either all of them are recorded or, if any is invalid, none.
+     * A plan is only right for the balances it was computed from, so with
+     * {@code expectedVersion} nothing is recorded once the group moved on.
+     * 
+     * @param groupId         where the settlements occur
+     * @param requests        settlements to record
+     * @param expectedVersion group version the settlements were planned at,
+     *                        null to record them whatever it is now
+     * @return created settlements, in request order
+     * @throws NotFoundException                 if group or a user not found
+     * @throws AccessDeniedException             if a payer or payee is not a
+     *                                           member
+     * @throws OptimisticLockingFailureException if the group changed since
+     *                                           {@code expectedVersion}
+     */
+    @Transactional
+    public List<SettlementDTO> createSettlements(Long groupId, List<CreateSettlementRequest> requests,
+            Long expectedVersion) throws NotFoundException, AccessDeniedException {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("No settlements to record");
+        }
+
+        List<Long> members = membershipCache.members(groupId);
+        Instant settledAt = Instant.now();
+        List<Settlement> settlements = new ArrayList<>(requests.size());
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (CreateSettlementRequest request : requests) {
+            for (Long userId : List.of(request.payerId(), request.payeeId())) {
+                if (Collections.binarySearch(members, userId) < 0) {
+                    if (!userRepository.existsById(userId)) {
+                        throw new NotFoundException();
+                    }
+                    throw new AccessDeniedException("Both users must be members of the group");
+                }
+            }
+            if (request.payerId().equals(request.payeeId())) {
+                throw new IllegalArgumentException("Cannot settle with yourself");
+            }
+            Money settled = request.amount() != null ? Money.of(request.amount()) : null;
+            if (settled == null || !settled.isPositive()) {
+                throw new IllegalArgumentException("Cannot settle 0 or negative");
+            }
+
+            Settlement s = new Settlement();
+            s.setPayer(userRepository.getReferenceById(request.payerId()));
+            s.setPayee(userRepository.getReferenceById(request.payeeId()));
+            s.setGroup(groupRepository.getReferenceById(groupId));
+            s.setAmount(settled.toBigDecimal());
+            s.setCurrency(request.currency() != null ? request.currency() : Settlement.CurrencyCode.CAD);
+            s.setSettledAt(settledAt);
+            settlements.add(s);
+
+            deltas.merge(request.payerId(), settled.cents(), Long::sum);
+            deltas.merge(request.payeeId(), -settled.cents(), Long::sum);
+        }
+
+        // ids come from the pooled sequence, so this is one batched insert
+        List<Settlement> saved = settlementRepository.saveAll(settlements);
+        applyBalanceDeltas(groupId, deltas);
+        if (expectedVersion != null) {
+            groupVersions.bump(groupId, expectedVersion);
+        } else {
+            groupVersions.bump(groupId);
+        }
+
+        List<SettlementDTO> out = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            CreateSettlementRequest request = requests.get(i);
+            out.add(toDTO(saved.get(i), request.payerId(), request.payeeId(), groupId));
+        }
+        return out;
+    }
+
+    private static SettlementDTO toDTO(Settlement saved, Long payerId, Long payeeId, Long groupId) {
         return new SettlementDTO(
                 saved.getSettlementId(),
                 payerId,
@@ -294,4 +730,162 @@ public class ExpenseService {
                 saved.getSettledAt());
     }
 
+    /**
+     * Computes a group's balances straight from its expenses, shares and
+     * settlements. Uses per-user aggregate queries, so the work in Java is
+     * O(members) no matter how long the history is.
+     * 
+     * @param groupId group to compute
+     * @return net balance per member, positive = owed, sorted by user id
+     * @throws NotFoundException if group not found
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> ledgerBalances(Long groupId) throws NotFoundException {
+        Map<Long, Long> cents = new TreeMap<>();
+        for (Long memberId : membershipCache.members(groupId)) {
+            cents.put(memberId, 0L);
+        }
+        foldLedger(groupId, LEDGER_START, LEDGER_END, cents);
+
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        cents.forEach((userId, balance) -> balances.put(userId, Money.toBigDecimal(balance)));
+        return balances;
+    }
+
+    /**
+     * Adds the per-user totals of expenses that occurred and settlements made
+     * in (from, to] onto {@code cents}
+     * 
+     * @return number of aggregate rows folded, 0 if nothing happened
+     */
+    private int foldLedger(Long groupId, Instant from, Instant to, Map<Long, Long> cents) {
+        int rows = 0;
+        for (UserTotal t : expenseRepository.sumPaidByPayer(groupId, from, to)) {
+            cents.merge(t.userId(), Money.toCents(t.total()), Long::sum);
+            rows++;
+        }
+        for (UserTotal t : expenseShareRepository.sumSharesByParticipant(groupId, from, to)) {
+            cents.merge(t.userId(), -Money.toCents(t.total()), Long::sum);
+            rows++;
+        }
+        for (UserTotal t : expenseRepository.sumEqualSharesByMember(groupId, from, to)) {
+            cents.merge(t.userId(), -Money.toCents(t.total()), Long::sum);
+            rows++;
+        }
+        for (UserTotal t : settlementRepository.sumPaidByPayer(groupId, from, to)) {
+            cents.merge(t.userId(), Money.toCents(t.total()), Long::sum);
+            rows++;
+        }
+        for (UserTotal t : settlementRepository.sumReceivedByPayee(groupId, from, to)) {
+            cents.merge(t.userId(), -Money.toCents(t.total()), Long::sum);
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Recomputes a group's member balances from its expenses, shares and
+     * settlements, rewriting the stored balances only if they drifted. A write
+     * to the group while this runs makes it start over rather than overwrite
+     * that write with balances computed before it.
+     * 
+     * @param groupId group to rebuild
+     * @return true if the stored balances were rewritten
+     * @throws NotFoundException if group not found
+     */
+    public boolean rebuildBalances(Long groupId) throws NotFoundException {
+        return groupVersions.retryOnConflict(() -> {
+            long version = groupVersions.current(groupId);
+            Map<Long, BigDecimal> ledger = ledgerBalances(groupId);
+
+            List<MemberBalance> stored = memberBalanceRepository.findByGroupId(groupId);
+            boolean same = stored.size() == ledger.size();
+            for (int i = 0; same && i < stored.size(); i++) {
+                BigDecimal expected = ledger.get(stored.get(i).getUserId());
+                same = expected != null && expected.compareTo(stored.get(i).getBalance()) == 0;
+            }
+            if (same) {
+                return false;
+            }
+
+            Map<Long, Long> deltas = new TreeMap<>();
+            ledger.forEach((userId, balance) -> deltas.put(userId, Money.toCents(balance)));
+            memberBalanceRepository.deleteByGroup(groupId);
+            applyBalanceDeltas(groupId, deltas);
+            groupVersions.bump(groupId, version);
+            return true;
+        });
+    }
+
+    /**
+     * Applies balance changes for one ledger write in a single statement
+     * 
+     * @param groupId group the write belongs to
+     * @param deltas  change in cents per user, sorted by user id
+     */
+    private void applyBalanceDeltas(Long groupId, Map<Long, Long> deltas) {
+        memberBalanceRepository.applyDeltas(
+                groupId,
+                deltas.keySet().toArray(Long[]::new),
+                deltas.values().toArray(Long[]::new));
+    }
+
+    /**
+     * Maps expenses to dtos, loading all of their shares in one query
+     * 
+     * @param expenses expenses to map
+     * @return dtos in the same order
+     */
+    private List<ExpenseDTO> toExpenseDTOs(List<ExpenseRow> expenses) {
+        if (expenses.isEmpty()) {
+            return List.of();
+        }
+
+        // explicit share rows and equal-split snapshots, each loaded in one
+        // query and only if the page has such expenses
+        List<Long> explicitIds = new ArrayList<>();
+        Set<Long> setIds = new HashSet<>();
+        for (ExpenseRow expense : expenses) {
+            if (expense.splitMode() == Expense.SplitMode.EQUAL) {
+                setIds.add(expense.participantSetId());
+            } else {
+                explicitIds.add(expense.expenseId());
+            }
+        }
+
+        Map<Long, List<ShareDTO>> sharesByExpense = new HashMap<>();
+        if (!explicitIds.isEmpty()) {
+            for (ShareRow s : expenseShareRepository.findRowsByExpenseIdIn(explicitIds)) {
+                sharesByExpense.computeIfAbsent(s.expenseId(), id -> new ArrayList<>())
+                        .add(new ShareDTO(s.participantId(), s.shareAmount(), s.shareRatio()));
+            }
+        }
+        Map<Long, ParticipantSet> sets = setIds.isEmpty() ? Map.of() : participantSetService.findAll(setIds);
+
+        return expenses.stream().map(expense -> new ExpenseDTO(
+                expense.expenseId(),
+                expense.groupId(),
+                expense.payerId(),
+                expense.amount(),
+                expense.currency(),
+                expense.description(),
+                expense.occurredAt(),
+                expense.createdAt(),
+                expense.splitMode() == Expense.SplitMode.EQUAL
+                        ? equalShares(expense.amount(), sets.get(expense.participantSetId()))
+                        : sharesByExpense.getOrDefault(expense.expenseId(), List.of())))
+                .toList();
+    }
+
+    private List<ShareDTO> equalShares(BigDecimal amount, ParticipantSet set) {
+        long[] shareCents = new long[set.getMemberCount()];
+        splitEngine.splitEvenly(Money.toCents(amount), shareCents);
+        List<ShareDTO> shares = new ArrayList<>(shareCents.length);
+        Long[] memberIds = set.getMemberIds();
+        for (int i = 0; i < shareCents.length; i++) {
+            shares.add(new ShareDTO(memberIds[i], Money.toBigDecimal(shareCents[i]), null));
+        }
+        return shares;
+    }
+
 }
@@ -0,0 +1,135 @@
+package com.fairshare.fairshare.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fairshare.fairshare.dto.FxRateDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.FxRate;
+import com.fairshare.fairshare.repository.FxRateRepository;
+
+/**
+ * Exchange rates, kept in memory as an immutable {@link FxRateSnapshot}. Every
+ * rate load moves the rate table's version on in its own transaction; readers
+ * check that version at most once per {@code fairshare.fx.refresh-interval}
+ * and re-read the table when it moved, so a load made on any instance reaches
+ * the others within that interval. The instance making the load publishes the
+ * committed rates straight away.
+ */
+@Service
+public class FxRateService {
+
+    private final FxRateRepository fxRateRepository;
+    private final long refreshNanos;
+    private volatile FxRateSnapshot snapshot;
+    // System.nanoTime() of the last version check
+    private volatile long checkedAt;
+
+    public FxRateService(FxRateRepository fxRateRepository,
+            @Value("${fairshare.fx.refresh-interval:PT5S}") Duration refreshInterval) {
+        this.fxRateRepository = fxRateRepository;
+        this.refreshNanos = refreshInterval.toNanos();
+    }
+
+    /**
+     * @return the current rates, at most one refresh interval behind loads
+     *         made on other instances
+     */
+    public FxRateSnapshot snapshot() {
+        FxRateSnapshot current = snapshot;
+        if (current != null && System.nanoTime() - checkedAt < refreshNanos) {
+            return current;
+        }
+        return refresh();
+    }
+
+    /**
+     * Adds or replaces exchange rates
+     *
+     * @param rates rates to store, 1 base currency = rate quote currency
+     * @return every rate once these are in
+     */
+    @Transactional
+    public List<FxRateDTO> loadRates(List<FxRateDTO> rates) {
+        for (FxRateDTO rate : rates) {
+            currency(rate.baseCurrency());
+            currency(rate.quoteCurrency());
+            if (rate.baseCurrency().equals(rate.quoteCurrency())) {
+                throw new IllegalArgumentException("Rate must be between two different currencies");
+            }
+            if (rate.rate() == null || rate.rate().signum() <= 0) {
+                throw new IllegalArgumentException("Rate must be greater than 0");
+            }
+        }
+
+        // first, so the version row lock orders concurrent loads: the table
+        // read below is then exactly what this load commits
+        fxRateRepository.bumpVersion();
+        for (FxRateDTO rate : rates) {
+            fxRateRepository.upsert(rate.baseCurrency(), rate.quoteCurrency(), rate.rate());
+        }
+        FxRateSnapshot loaded = read();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // only publish what actually committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(loaded);
+                }
+            });
+        } else {
+            publish(loaded);
+        }
+        return loaded.rates();
+    }
+
+    private synchronized FxRateSnapshot refresh() {
+        FxRateSnapshot current = snapshot;
+        // another reader may have checked while this one waited
+        if (current != null && System.nanoTime() - checkedAt < refreshNanos) {
+            return current;
+        }
+        if (current == null || fxRateRepository.findVersion() != current.version()) {
+            current = read();
+            snapshot = current;
+        }
+        checkedAt = System.nanoTime();
+        return current;
+    }
+
+    private FxRateSnapshot read() {
+        // version before rows: a load committing in between leaves the
+        // snapshot labelled older than its rows, so the next check reads
+        // again instead of keeping stale rates under a newer version
+        long version = fxRateRepository.findVersion();
+        List<FxRateDTO> rates = new ArrayList<>();
+        for (FxRate rate : fxRateRepository.findAll()) {
+            rates.add(new FxRateDTO(rate.getBaseCurrency(), rate.getQuoteCurrency(), rate.getRate()));
+        }
+        return FxRateSnapshot.of(version, rates);
+    }
+
+    private synchronized void publish(FxRateSnapshot loaded) {
+        // a refresh may already have read a later load
+        if (snapshot == null || loaded.version() > snapshot.version()) {
+            snapshot = loaded;
+            checkedAt = System.nanoTime();
+        }
+    }
+
+    private static void currency(String code) {
+        try {
+            Expense.CurrencyCode.valueOf(code);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new IllegalArgumentException("Unsupported currency: " + code);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.fairshare.fairshare.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fairshare.fairshare.dto.FxRateDTO;
+
+/**
+ * Immutable set of exchange rates, as of a version of the rate table. Readers
+ * hold on to one snapshot for a whole request, a rate change publishes a new
+ * snapshot instead of editing this one.
+ */
+public final class FxRateSnapshot {
+
+    static final FxRateSnapshot EMPTY = new FxRateSnapshot(0, Map.of());
+
+    private final long version;
+    // "BASE/QUOTE" -> units of quote per unit of base
+    private final Map<String, BigDecimal> rates;
+    private final int fingerprint;
+
+    private FxRateSnapshot(long version, Map<String, BigDecimal> rates) {
+        this.version = version;
+        this.rates = rates;
+        this.fingerprint = fingerprint(rates);
+    }
+
+    /**
+     * @param rates rates to include, later entries win for the same pair
+     * @return snapshot of the rates
+     */
+    public static FxRateSnapshot of(Collection<FxRateDTO> rates) {
+        return EMPTY.with(rates);
+    }
+
+    /**
+     * @param version version of the rate table the rates were read at
+     * @param rates   rates to include, later entries win for the same pair
+     * @return snapshot of the rates
+     */
+    public static FxRateSnapshot of(long version, Collection<FxRateDTO> rates) {
+        return new FxRateSnapshot(version, Map.of()).with(rates);
+    }
+
+    /**
+     * @param changed rates to add or replace
+     * @return new snapshot with this one's rates and the changed ones
+     */
+    public FxRateSnapshot with(Collection<FxRateDTO> changed) {
+        Map<String, BigDecimal> next = new HashMap<>(rates);
+        for (FxRateDTO rate : changed) {
+            next.put(key(rate.baseCurrency(), rate.quoteCurrency()), rate.rate());
+        }
+        return new FxRateSnapshot(version, Map.copyOf(next));
+    }
+
+    /**
+     * Rate from one currency to another, the inverse of the opposite pair if
+     * only that one is known
+     *
+     * @param from currency converted from
+     * @param to   currency converted to
+     * @return units of {@code to} per unit of {@code from}
+     * @throws IllegalArgumentException if there is no rate between them
+     */
+    public BigDecimal rate(String from, String to) {
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal direct = rates.get(key(from, to));
+        if (direct != null) {
+            return direct;
+        }
+        BigDecimal inverse = rates.get(key(to, from));
+        if (inverse != null) {
+            return BigDecimal.ONE.divide(inverse, MathContext.DECIMAL64);
+        }
+        throw new IllegalArgumentException("No exchange rate from " + from + " to " + to);
+    }
+
+    /**
+     * Converts an amount, rounding half up to the cent
+     *
+     * @param cents amount in cents of {@code from}
+     * @param from  currency of the amount
+     * @param to    currency to convert to
+     * @return amount in cents of {@code to}
+     */
+    public long convert(long cents, String from, String to) {
+        if (from.equals(to)) {
+            return cents;
+        }
+        return Money.toCents(BigDecimal.valueOf(cents, 2).multiply(rate(from, to)));
+    }
+
+    /**
+     * @return every rate, ordered by base then quote currency
+     */
+    public List<FxRateDTO> rates() {
+        List<FxRateDTO> out = new ArrayList<>(rates.size());
+        rates.forEach((pair, rate) -> out.add(new FxRateDTO(pair.substring(0, 3), pair.substring(4), rate)));
+        out.sort(Comparator.comparing(FxRateDTO::baseCurrency).thenComparing(FxRateDTO::quoteCurrency));
+        return out;
+    }
+
+    /**
+     * @return version of the rate table the rates were read at
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return a hash of the rates, the same for snapshots with the same rates
+     *         on any instance
+     */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    private static int fingerprint(Map<String, BigDecimal> rates) {
+        // scale-free, so 1.35 from a request and 1.35000000 read back from
+        // numeric(18,8) hash the same
+        List<String> entries = new ArrayList<>(rates.size());
+        rates.forEach((pair, rate) -> entries.add(
+                pair + "=" + rate.setScale(8, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString()));
+        Collections.sort(entries);
+        return entries.hashCode();
+    }
+
+    private static String key(String base, String quote) {
+        return base + "/" + quote;
+    }
+}
@@ -0,0 +1,208 @@
+package com.fairshare.fairshare.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Response bodies of a group's hot reads, serialized once per format and kept
+ * as bytes ready to write, gzipped as well when they are large enough to be
+ * worth it. Serialized by the same mappers as the HTTP message converters, so
+ * a cached body is what the converter would have written. Holds at most
+ * {@code fairshare.response-cache.max-bytes} of bodies, least recently used
+ * first out.
+ *
+ * Each body is stored with the group version it was read at and only served
+ * for that version, so any write to the group retires it, whichever instance
+ * made the write. The next read replaces it.
+ */
+@Component
+public class GroupResponseCache {
+
+    /* bodies smaller than this are not worth a gzipped copy */
+    static final int GZIP_MIN_BYTES = 1024;
+
+    public enum Resource {
+        BALANCES, MEMBERS
+    }
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(new MediaType("application", "x-jackson-smile")),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+    }
+
+    /**
+     * A serialized body
+     *
+     * @param format format it is written in
+     * @param data   the body
+     * @param gzip   the same body gzipped, null if it is too small to bother
+     */
+    public record Body(Format format, byte[] data, byte[] gzip) {
+        long size() {
+            return data.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+        Object load() throws E;
+    }
+
+    private record Key(long groupId, Resource resource, Format format) {
+    }
+
+    private record Entry(long version, Body body) {
+    }
+
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+    private final long maxBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GroupResponseCache(ObjectMapper objectMapper, List<AbstractJackson2HttpMessageConverter> converters,
+            MeterRegistry meterRegistry,
+            @Value("${fairshare.response-cache.max-bytes:67108864}") long maxBytes) {
+        mappers.put(Format.JSON, objectMapper);
+        for (Format format : List.of(Format.SMILE, Format.CBOR)) {
+            converters.stream()
+                    .filter(c -> c.getSupportedMediaTypes().stream()
+                            .anyMatch(format.mediaType()::equalsTypeAndSubtype))
+                    .findFirst()
+                    .ifPresent(c -> mappers.put(format, c.getObjectMapper()));
+        }
+        this.maxBytes = maxBytes;
+
+        FunctionCounter.builder("fairshare.response.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Group reads answered with a cached body")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairshare.response.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Group reads that were loaded and serialized")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairshare.response.cache.evictions", evictions, LongAdder::sum)
+                .description("Bodies dropped to stay under the size limit")
+                .register(meterRegistry);
+        Gauge.builder("fairshare.response.cache.bytes", this, GroupResponseCache::bytes)
+                .description("Bytes of bodies currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The body of a group read at a version, from memory or loaded and
+     * serialized now
+     *
+     * @param groupId  group read
+     * @param resource what is read
+     * @param format   format to serialize to, JSON if there is no converter
+     *                 for it
+     * @param version  group version read before loading
+     * @param loader   loads the value to serialize on a miss
+     * @return the serialized body
+     * @throws E whatever the loader throws
+     */
+    public <E extends Exception> Body get(long groupId, Resource resource, Format format, long version,
+            Loader<E> loader) throws E {
+        if (!mappers.containsKey(format)) {
+            format = Format.JSON;
+        }
+        Key key = new Key(groupId, resource, format);
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.version() == version) {
+                hits.increment();
+                return e.body();
+            }
+        }
+        misses.increment();
+
+        Body body = serialize(format, loader.load());
+
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            // a slower read of an older version must not replace a newer body
+            if ((e == null || e.version() < version) && body.size() <= maxBytes) {
+                if (e != null) {
+                    bytes -= e.body().size();
+                }
+                entries.put(key, new Entry(version, body));
+                bytes += body.size();
+                trim();
+            }
+        }
+        return body;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long bytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private void trim() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().body().size();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private Body serialize(Format format, Object value) {
+        try {
+            byte[] data = mappers.get(format).writeValueAsBytes(value);
+            if (data.length < GZIP_MIN_BYTES) {
+                return new Body(format, data, null);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(data);
+            }
+            return new Body(format, data, out.toByteArray());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
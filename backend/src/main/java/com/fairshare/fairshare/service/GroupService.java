@@ -1,6 +1,7 @@
 package com.fairshare.fairshare.service;
 
 import java.nio.file.AccessDeniedException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
@@ -8,26 +9,41 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fairshare.fairshare.dto.GroupDTO;
+import com.fairshare.fairshare.dto.GroupPageDTO;
 import com.fairshare.fairshare.dto.MembershipDTO;
+import com.fairshare.fairshare.dto.UserGroupDTO;
+import com.fairshare.fairshare.dto.UserGroupPageDTO;
 import com.fairshare.fairshare.entity.Group;
 import com.fairshare.fairshare.entity.Membership;
 import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
 import com.fairshare.fairshare.repository.MembershipRepository;
 import com.fairshare.fairshare.repository.UserRepository;
 
 @Service
 public class GroupService {
 
+    static final int MAX_PAGE_SIZE = 200;
+
     private final GroupRepository groupRepository;
     private final MembershipRepository membershipRepository;
     private final UserRepository userRepository;
+    private final MemberBalanceRepository memberBalanceRepository;
+    private final MembershipCache membershipCache;
+    private final GroupVersions groupVersions;
 
     public GroupService(GroupRepository groupRepository,
             MembershipRepository membershipRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            MemberBalanceRepository memberBalanceRepository,
+            MembershipCache membershipCache,
+            GroupVersions groupVersions) {
         this.groupRepository = groupRepository;
         this.membershipRepository = membershipRepository;
         this.userRepository = userRepository;
+        this.memberBalanceRepository = memberBalanceRepository;
+        this.membershipCache = membershipCache;
+        this.groupVersions = groupVersions;
     }
 
     /**
@@ -55,8 +71,10 @@ public class GroupService {
         member.setRole(Membership.Role.ADMIN);
 
         membershipRepository.save(member);
+        memberBalanceRepository.ensureRow(saved.getGroupId(), creatorUserId);
 
-        return new GroupDTO(saved.getGroupId(), saved.getGroupName(), saved.getGroupCreatedAt());
+        return new GroupDTO(saved.getGroupId(), saved.getGroupName(), saved.getGroupCreatedAt(),
+                saved.getLedgerSeq());
 
     }
 
@@ -92,6 +110,9 @@ public class GroupService {
         newMember.setRole(role != null ? role : Membership.Role.MEMBER);
 
         Membership saved = membershipRepository.save(newMember);
+        memberBalanceRepository.ensureRow(groupId, userId);
+        membershipCache.invalidate(groupId);
+        groupVersions.bump(groupId);
 
         return new MembershipDTO(
                 saved.getMembershipId(),
@@ -139,6 +160,8 @@ public class GroupService {
         }
 
         membershipRepository.delete(target);
+        membershipCache.invalidate(groupId);
+        groupVersions.bump(groupId);
     }
 
     /* TODO: method for an admin to change a user's role within a group */
@@ -157,16 +180,8 @@ public class GroupService {
             throw new NotFoundException();
         }
 
-        // using map to map each member in the group to their respective DTO
-        // converting those into a list
-        return membershipRepository.findByGroup_GroupId(groupId).stream()
-                .map(m -> new MembershipDTO(
-                        m.getMembershipId(),
-                        m.getUser().getUserId(),
-                        m.getGroup().getGroupId(),
-                        (m.getRole())))
-                .toList();
-
+        // selected straight into dtos, no entities to track
+        return membershipRepository.findDTOsByGroupId(groupId);
     }
 
     /**
@@ -178,18 +193,7 @@ public class GroupService {
      */
     @Transactional(readOnly = true)
     public GroupDTO getGroupById(Long groupId) throws NotFoundException {
-        var foundGroup = groupRepository.findById(groupId);
-
-        if (foundGroup.isEmpty()) {
-            throw new NotFoundException();
-        }
-
-        var group = foundGroup.get();
-
-        return new GroupDTO(
-                group.getGroupId(),
-                group.getGroupName(),
-                group.getGroupCreatedAt());
+        return groupRepository.findDTOById(groupId).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -225,20 +229,73 @@ public class GroupService {
 
         var group = groupRepository.findById(groupId).orElseThrow(NotFoundException::new);
         groupRepository.delete(group);
+        membershipCache.invalidate(groupId);
     }
 
     /**
-     * Lists all groups in the system.
+     * List a page of the groups in the system, in id order. Pages are keyed on
+     * the group id so deep pages cost the same as the first one.
      * 
-     * @return list of all groups as DTOs
+     * @param limit max groups in the page (1-200)
+     * @param after cursor, return groups after it
+     * @return page of group dtos with the cursor to the next page
      */
     @Transactional(readOnly = true)
-    public List<GroupDTO> listAllGroups() {
-        return groupRepository.findAll().stream()
-                .map(g -> new GroupDTO(
-                        g.getGroupId(),
-                        g.getGroupName(),
-                        g.getGroupCreatedAt()))
-                .toList();
+    public GroupPageDTO listGroups(int limit, String after) {
+        checkLimit(limit);
+
+        // fetch one extra row to learn whether another page exists
+        List<GroupDTO> rows = new ArrayList<>(groupRepository.findDTOPageAfter(afterId(after), limit + 1));
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows.remove(limit);
+        }
+        String nextCursor = more ? String.valueOf(rows.get(limit - 1).id()) : null;
+        return new GroupPageDTO(rows, nextCursor);
+    }
+
+    /**
+     * List a page of the groups a user belongs to, in id order, with each
+     * group's member count and the user's role in it
+     * 
+     * @param userId whose groups
+     * @param limit  max groups in the page (1-200)
+     * @param after  cursor, return groups after it
+     * @return page of the user's groups with the cursor to the next page
+     * @throws NotFoundException if the user does not exist
+     */
+    @Transactional(readOnly = true)
+    public UserGroupPageDTO listUserGroups(Long userId, int limit, String after) throws NotFoundException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+        checkLimit(limit);
+
+        List<UserGroupDTO> rows = new ArrayList<>(
+                membershipRepository.findUserGroupPageAfter(userId, afterId(after), limit + 1));
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows.remove(limit);
+        }
+        String nextCursor = more ? String.valueOf(rows.get(limit - 1).id()) : null;
+        return new UserGroupPageDTO(rows, nextCursor);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /* cursors are the id of the last group on the previous page */
+    private static long afterId(String after) {
+        if (after == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(after);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
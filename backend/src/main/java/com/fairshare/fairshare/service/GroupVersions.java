@@ -0,0 +1,110 @@
+package com.fairshare.fairshare.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+
+/**
+ * A group's version ({@code groups.ledger_seq}): moved on by every write to
+ * its expenses, settlements, balances or members. Anything derived from a
+ * group is current as long as the version it was derived at still is.
+ *
+ * Writers bump it as the last statement of their transaction so the group
+ * row is only locked while they commit. Writers that act on something they
+ * read earlier bump it only if it did not move, and retry otherwise.
+ */
+@Component
+public class GroupVersions {
+
+    @FunctionalInterface
+    public interface Attempt<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /* carries a checked exception out of the transaction callback */
+    private static final class CheckedFailure extends RuntimeException {
+        CheckedFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private final GroupRepository groupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public GroupVersions(GroupRepository groupRepository, PlatformTransactionManager transactionManager,
+            @Value("${fairshare.groups.max-write-attempts:5}") int maxAttempts) {
+        this.groupRepository = groupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param groupId group to look up
+     * @return the group's current version
+     * @throws NotFoundException if group not found
+     */
+    public long current(Long groupId) throws NotFoundException {
+        return groupRepository.findLedgerSeq(groupId).orElseThrow(NotFoundException::new);
+    }
+
+    /**
+     * Records that the group changed. Must run in the writing transaction.
+     *
+     * @param groupId group written to
+     */
+    public void bump(Long groupId) {
+        groupRepository.bumpLedgerSeq(groupId);
+    }
+
+    /**
+     * Records that the group changed, unless it already changed since
+     * {@code expected} was read
+     *
+     * @param groupId  group written to
+     * @param expected version the write was based on
+     * @throws OptimisticLockingFailureException if the group moved on
+     */
+    public void bump(Long groupId, long expected) {
+        if (groupRepository.bumpLedgerSeqIf(groupId, expected) == 0) {
+            throw new OptimisticLockingFailureException("Group " + groupId + " changed since version " + expected);
+        }
+    }
+
+    /**
+     * Runs {@code attempt} in a transaction of its own, again from the start
+     * whenever it loses a race with another writer
+     *
+     * @param attempt reads, writes and finishes with {@link #bump(Long, long)}
+     * @return what the successful attempt returned
+     * @throws E                                 whatever the attempt throws
+     * @throws OptimisticLockingFailureException if every attempt lost
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T retryOnConflict(Attempt<T, E> attempt) throws E {
+        for (int i = 1;; i++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        return attempt.run();
+                    } catch (RuntimeException ex) {
+                        throw ex;
+                    } catch (Exception ex) {
+                        throw new CheckedFailure(ex);
+                    }
+                });
+            } catch (CheckedFailure ex) {
+                throw (E) ex.getCause();
+            } catch (OptimisticLockingFailureException ex) {
+                if (i >= maxAttempts) {
+                    throw ex;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.fairshare.fairshare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fairshare.fairshare.entity.IdempotencyKey;
+import com.fairshare.fairshare.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs a create request at most once per Idempotency-Key. The serialized
+ * response is stored in the idempotency_key table for
+ * {@code fairshare.idempotency.ttl} and retries get exactly those bytes back.
+ * A bounded in-process cache answers hot retries without touching the
+ * database.
+ */
+@Service
+public class IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * @param body     serialized response
+     * @param replayed true if the body was stored by an earlier request
+     */
+    public record Outcome(byte[] body, boolean replayed) {
+    }
+
+    private record Stored(String requestHash, byte[] body, Instant expiresAt) {
+    }
+
+    /* a checked failure is handed out of the transaction, which still commits */
+    private record Attempt(Outcome outcome, Exception failure) {
+    }
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Map<String, Stored> cache;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${fairshare.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${fairshare.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        // access ordered, drops the least recently used entry once full
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Run the action unless the key was already used, in which case the
+     * original response is returned. A retry found in the in-process cache is
+     * answered before any transaction or connection is taken.
+     *
+     * @param scope   method and path the key applies to
+     * @param key     client supplied Idempotency-Key
+     * @param request request body, a replay must send the same one
+     * @param action  creates the resource
+     * @return serialized response
+     * @throws Exception whatever the action throws
+     */
+    public Outcome execute(String scope, String key, Object request, Action<?> action) throws Exception {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = scope + '\n' + key;
+        String requestHash = hash(scope, request);
+        Instant now = Instant.now();
+
+        Stored hit = cached(cacheKey, now);
+        if (hit != null) {
+            requireSameRequest(hit.requestHash(), requestHash);
+            return new Outcome(hit.body(), true);
+        }
+
+        Attempt attempt = transactionTemplate.execute(status -> {
+            try {
+                return new Attempt(claimAndRun(scope, key, cacheKey, requestHash, now, action), null);
+            } catch (RuntimeException ex) {
+                // rolls back, claim included
+                throw ex;
+            } catch (Exception ex) {
+                return new Attempt(null, ex);
+            }
+        });
+        if (attempt.failure() != null) {
+            throw attempt.failure();
+        }
+        return attempt.outcome();
+    }
+
+    /**
+     * Deletes expired keys
+     */
+    @Scheduled(fixedDelayString = "${fairshare.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        idempotencyKeyRepository.deleteExpired(Instant.now());
+    }
+
+    /* claims the key and runs the action, or replays what the key stored */
+    private Outcome claimAndRun(String scope, String key, String cacheKey, String requestHash, Instant now,
+            Action<?> action) throws Exception {
+        Instant expiresAt = now.plus(ttl);
+        if (idempotencyKeyRepository.claim(scope, key, requestHash, expiresAt) == 0) {
+            IdempotencyKey existing = idempotencyKeyRepository.findById(new IdempotencyKey.Key(scope, key))
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key vanished while claiming it"));
+            requireSameRequest(existing.getRequestHash(), requestHash);
+            if (existing.getResponseBody() == null) {
+                throw new IllegalStateException("Request with this Idempotency-Key has no stored response");
+            }
+            remember(cacheKey, new Stored(existing.getRequestHash(), existing.getResponseBody(),
+                    existing.getExpiresAt()));
+            return new Outcome(existing.getResponseBody(), true);
+        }
+
+        Object result;
+        try {
+            result = action.run();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            // checked exceptions commit, so give the key back for a later retry
+            idempotencyKeyRepository.deleteById(new IdempotencyKey.Key(scope, key));
+            throw ex;
+        }
+
+        byte[] body = objectMapper.writeValueAsBytes(result);
+        idempotencyKeyRepository.storeResponse(scope, key, body);
+
+        Stored stored = new Stored(requestHash, body, expiresAt);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // only cache what actually committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(cacheKey, stored);
+                }
+            });
+        } else {
+            remember(cacheKey, stored);
+        }
+        return new Outcome(body, false);
+    }
+
+    private Stored cached(String cacheKey, Instant now) {
+        synchronized (cache) {
+            Stored hit = cache.get(cacheKey);
+            if (hit != null && !hit.expiresAt().isAfter(now)) {
+                cache.remove(cacheKey);
+                return null;
+            }
+            return hit;
+        }
+    }
+
+    private void remember(String cacheKey, Stored stored) {
+        synchronized (cache) {
+            cache.put(cacheKey, stored);
+        }
+    }
+
+    private static void requireSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String hash(String scope, Object request) throws JsonProcessingException {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(scope.getBytes(StandardCharsets.UTF_8));
+            sha.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.fairshare.fairshare.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MembershipRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Member IDs per group for the write-path checks. Holds at most
+ * {@code fairshare.membership-cache.max-groups} groups, least recently used
+ * first out, and drops entries after {@code fairshare.membership-cache.ttl}.
+ *
+ * GroupService invalidates a group whenever its members change. The TTL
+ * bounds how stale an entry can get when another instance made the change,
+ * which is fine for checks but not for what gets written: writes that split
+ * amongst the members take them from {@link #lockMembers} instead.
+ */
+@Component
+public class MembershipCache {
+
+    private record Entry(List<Long> memberIds, long expiresAtNanos) {
+    }
+
+    private final GroupRepository groupRepository;
+    private final MembershipRepository membershipRepository;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+
+    // bumped on every invalidation so a load that raced with one isn't cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MembershipCache(GroupRepository groupRepository, MembershipRepository membershipRepository,
+            MeterRegistry meterRegistry,
+            @Value("${fairshare.membership-cache.max-groups:10000}") int maxGroups,
+            @Value("${fairshare.membership-cache.ttl:PT5M}") Duration ttl) {
+        this.groupRepository = groupRepository;
+        this.membershipRepository = membershipRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxGroups) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("fairshare.membership.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Membership cache lookups answered from memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairshare.membership.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Membership cache lookups that went to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairshare.membership.cache.evictions", evictions, LongAdder::sum)
+                .description("Groups dropped to stay under the size limit")
+                .register(meterRegistry);
+        Gauge.builder("fairshare.membership.cache.size", this, MembershipCache::size)
+                .description("Groups currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Member IDs of a group in ascending order
+     *
+     * @param groupId group to look up
+     * @return unmodifiable, sorted list of user IDs
+     * @throws NotFoundException if group not found
+     */
+    public List<Long> members(Long groupId) throws NotFoundException {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry e = entries.get(groupId);
+            if (e != null) {
+                if (now - e.expiresAtNanos() < 0) {
+                    hits.increment();
+                    return e.memberIds();
+                }
+                entries.remove(groupId);
+            }
+        }
+        misses.increment();
+
+        long gen = generation.get();
+        List<Long> ids = membershipRepository.findUserIdsByGroupId(groupId);
+        // a group always has its creator, but an empty result could also mean no group
+        if (ids.isEmpty() && !groupRepository.existsById(groupId)) {
+            throw new NotFoundException();
+        }
+        List<Long> memberIds = Collections.unmodifiableList(ids);
+
+        synchronized (entries) {
+            if (generation.get() == gen) {
+                entries.put(groupId, new Entry(memberIds, now + ttlNanos));
+            }
+        }
+        return memberIds;
+    }
+
+    /**
+     * Member IDs of a group as committed, read in the current transaction and
+     * locked so none of them can leave the group before it ends. Refreshes
+     * the cached entry on the way.
+     *
+     * @param groupId group to look up
+     * @return unmodifiable, sorted list of user IDs
+     */
+    public List<Long> lockMembers(Long groupId) {
+        long gen = generation.get();
+        List<Long> memberIds = Collections.unmodifiableList(membershipRepository.lockUserIdsByGroupId(groupId));
+        // an empty list may mean there is no group, members() tells them apart
+        if (!memberIds.isEmpty()) {
+            synchronized (entries) {
+                if (generation.get() == gen) {
+                    entries.put(groupId, new Entry(memberIds, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return memberIds;
+    }
+
+    /**
+     * Whether a user belongs to a group
+     *
+     * @param groupId group to check
+     * @param userId  user to look for
+     * @return true if the user is a member
+     * @throws NotFoundException if group not found
+     */
+    public boolean isMember(Long groupId, Long userId) throws NotFoundException {
+        return Collections.binarySearch(members(groupId), userId) >= 0;
+    }
+
+    /**
+     * Drops a group's entry, now and again once the current transaction
+     * commits so a read in between cannot cache the old member list
+     *
+     * @param groupId group whose members changed
+     */
+    public void invalidate(Long groupId) {
+        evict(groupId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(groupId);
+                }
+            });
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private void evict(Long groupId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(groupId);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.fairshare.fairshare.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount in cents. The service layer converts request amounts once and
+ * does all of its arithmetic on the long, BigDecimal only appears again at
+ * the entity and dto boundary.
+ *
+ * @param cents amount in minor units
+ */
+public record Money(long cents) {
+
+    /**
+     * @param amount amount in major units, rounded half up to cents
+     * @return the amount as money
+     * @throws IllegalArgumentException if the amount does not fit in a long
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(toCents(amount));
+    }
+
+    /**
+     * Same as {@link #of(BigDecimal)} without the wrapper
+     *
+     * @param amount amount in major units, rounded half up to cents
+     * @return amount in cents
+     * @throws IllegalArgumentException if the amount does not fit in a long
+     */
+    public static long toCents(BigDecimal amount) {
+        // amounts read from numeric(_, 2) columns are already at scale 2
+        BigDecimal scaled = amount.scale() == 2 ? amount : amount.setScale(2, RoundingMode.HALF_UP);
+        try {
+            return scaled.movePointRight(2).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Amount is too large");
+        }
+    }
+
+    /**
+     * @param cents amount in cents
+     * @return the amount at scale 2
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(cents);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fairshare.fairshare.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fairshare.fairshare.entity.ParticipantSet;
+import com.fairshare.fairshare.repository.ParticipantSetRepository;
+
+/**
+ * Member snapshots for equal-split expenses. Expenses created while a group's
+ * membership stays the same all point at the same snapshot.
+ */
+@Service
+public class ParticipantSetService {
+
+    private final ParticipantSetRepository participantSetRepository;
+
+    public ParticipantSetService(ParticipantSetRepository participantSetRepository) {
+        this.participantSetRepository = participantSetRepository;
+    }
+
+    /**
+     * ID of the snapshot holding exactly these members, created if needed
+     *
+     * @param groupId   group the members belong to
+     * @param memberIds member ids in ascending order
+     * @return participant set id
+     */
+    @Transactional
+    public Long snapshotId(Long groupId, List<Long> memberIds) {
+        Long[] ids = memberIds.toArray(Long[]::new);
+        byte[] hash = hash(ids);
+        Long id = participantSetRepository.findOrCreate(groupId, ids, ids.length, hash);
+        if (id == null) {
+            // lost an insert race, the other transaction's row is visible now
+            id = participantSetRepository.findOrCreate(groupId, ids, ids.length, hash);
+        }
+        return id;
+    }
+
+    /**
+     * Loads snapshots by id in one query
+     *
+     * @param ids participant set ids
+     * @return snapshots keyed by id
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ParticipantSet> findAll(Collection<Long> ids) {
+        Map<Long, ParticipantSet> out = new HashMap<>();
+        for (ParticipantSet ps : participantSetRepository.findAllById(ids)) {
+            out.put(ps.getParticipantSetId(), ps);
+        }
+        return out;
+    }
+
+    /* sha-256 over the ids as 8 byte big-endian longs */
+    private static byte[] hash(Long[] ids) {
+        ByteBuffer buf = ByteBuffer.allocate(ids.length * Long.BYTES);
+        for (Long id : ids) {
+            buf.putLong(id);
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(buf.array());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.fairshare.fairshare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Works out who pays whom so every balance in a group reaches zero.
+ *
+ * Balances are in cents, positive means the user is owed money. Small groups
+ * are solved exactly (fewest possible transfers); larger groups use a greedy
+ * max-creditor/max-debtor matcher which needs at most n - 1 transfers.
+ */
+@Component
+public class SettleUpEngine {
+
+    /* at most this many non-zero balances are solved exactly (2^n states) */
+    static final int EXACT_LIMIT = 16;
+
+    public record Transfer(long fromUserId, long toUserId, long cents) {
+    }
+
+    /**
+     * Plans transfers that settle the given balances
+     *
+     * @param userIds user per balance
+     * @param cents   net balance per user, positive = owed
+     * @return transfers from debtor to creditor
+     */
+    public List<Transfer> plan(long[] userIds, long[] cents) {
+        if (userIds.length != cents.length) {
+            throw new IllegalArgumentException("Each balance needs exactly one user");
+        }
+
+        // only non-zero balances take part
+        int[] open = new int[cents.length];
+        int n = 0;
+        for (int i = 0; i < cents.length; i++) {
+            if (cents[i] != 0) {
+                open[n++] = i;
+            }
+        }
+
+        List<Transfer> out = new ArrayList<>(Math.max(n - 1, 0));
+        if (n <= EXACT_LIMIT) {
+            exact(userIds, cents, open, n, out);
+        } else {
+            greedy(userIds, cents, open, 0, n, out);
+        }
+        return out;
+    }
+
+    /**
+     * Minimum transfers: n minus the largest number of disjoint zero-sum
+     * subsets. Each subset of k users is then settled with k - 1 transfers.
+     */
+    private static void exact(long[] userIds, long[] cents, int[] open, int n, List<Transfer> out) {
+        if (n == 0) {
+            return;
+        }
+
+        int full = (1 << n) - 1;
+        long[] sum = new long[full + 1];
+        // best[mask] = most zero-sum subsets a prefix ordering of mask can close
+        byte[] best = new byte[full + 1];
+
+        for (int mask = 1; mask <= full; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            sum[mask] = sum[mask & (mask - 1)] + cents[open[low]];
+
+            // dropping one user breaks at most one subset, so the candidates
+            // differ by at most one and the first larger one is the maximum
+            int without = mask & (mask - 1);
+            int b = best[without];
+            for (int rest = without; rest != 0; rest &= rest - 1) {
+                if (best[mask ^ (rest & -rest)] > b) {
+                    b++;
+                    break;
+                }
+            }
+            best[mask] = (byte) (b + (sum[mask] == 0 ? 1 : 0));
+        }
+
+        // walk back from the full set to recover an ordering that closes the
+        // subsets one after another
+        int[] order = new int[n];
+        int pos = n;
+        int mask = full;
+        while (mask != 0) {
+            int target = best[mask] - (sum[mask] == 0 ? 1 : 0);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = rest & -rest;
+                if (best[mask ^ bit] == target) {
+                    order[--pos] = open[Integer.numberOfTrailingZeros(bit)];
+                    mask ^= bit;
+                    break;
+                }
+            }
+        }
+
+        // settle each zero-sum run on its own (anything left over goes last)
+        int start = 0;
+        long running = 0;
+        for (int k = 0; k < n; k++) {
+            running += cents[order[k]];
+            if (running == 0) {
+                greedy(userIds, cents, order, start, k + 1, out);
+                start = k + 1;
+            }
+        }
+        if (start < n) {
+            greedy(userIds, cents, order, start, n, out);
+        }
+    }
+
+    /**
+     * Repeatedly pays the largest creditor from the largest debtor. Every
+     * transfer clears at least one side, so k users need at most k - 1.
+     */
+    private static void greedy(long[] userIds, long[] cents, int[] members, int from, int to,
+            List<Transfer> out) {
+        int size = to - from;
+        LongMaxHeap creditors = new LongMaxHeap(size);
+        LongMaxHeap debtors = new LongMaxHeap(size);
+        for (int k = from; k < to; k++) {
+            int i = members[k];
+            if (cents[i] > 0) {
+                creditors.add(i, cents[i]);
+            } else if (cents[i] < 0) {
+                debtors.add(i, -cents[i]);
+            }
+        }
+        creditors.heapify();
+        debtors.heapify();
+
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            int c = creditors.topIndex();
+            int d = debtors.topIndex();
+            long credit = creditors.topKey();
+            long debt = debtors.topKey();
+            long amount = Math.min(credit, debt);
+
+            out.add(new Transfer(userIds[d], userIds[c], amount));
+
+            if (credit > amount) {
+                creditors.replaceTopKey(credit - amount);
+            } else {
+                creditors.pop();
+            }
+            if (debt > amount) {
+                debtors.replaceTopKey(debt - amount);
+            } else {
+                debtors.pop();
+            }
+        }
+    }
+
+    /**
+     * 4-ary max-heap of (index, amount) pairs packed into single longs, amount
+     * in the high bits so plain long comparison orders by amount. Keeps the
+     * greedy pass free of boxing and halves the tree depth of a binary heap.
+     */
+    private static final class LongMaxHeap {
+        private static final int INDEX_BITS = 21;
+        private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+        private static final long MAX_KEY = (1L << (63 - INDEX_BITS)) - 1;
+
+        private final long[] heap;
+        private int size;
+
+        LongMaxHeap(int capacity) {
+            this.heap = new long[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int topIndex() {
+            return (int) (heap[0] & INDEX_MASK);
+        }
+
+        long topKey() {
+            return heap[0] >>> INDEX_BITS;
+        }
+
+        /* append without ordering, call heapify once all entries are in */
+        void add(int i, long k) {
+            if (i > INDEX_MASK || k > MAX_KEY) {
+                throw new IllegalArgumentException("Group too large to plan a settle-up");
+            }
+            heap[size++] = (k << INDEX_BITS) | i;
+        }
+
+        /* bottom-up build, O(n) instead of n pushes */
+        void heapify() {
+            for (int pos = (size - 2) >> 2; pos >= 0; pos--) {
+                siftDown(pos, heap[pos]);
+            }
+        }
+
+        void pop() {
+            size--;
+            if (size > 0) {
+                siftDown(0, heap[size]);
+            }
+        }
+
+        /* the top entry shrank, move it down to its new place */
+        void replaceTopKey(long k) {
+            siftDown(0, (k << INDEX_BITS) | (heap[0] & INDEX_MASK));
+        }
+
+        private void siftDown(int pos, long entry) {
+            while (true) {
+                int first = 4 * pos + 1;
+                if (first >= size) {
+                    break;
+                }
+                int largest = first;
+                long largestEntry = heap[first];
+                int end = Math.min(first + 4, size);
+                for (int child = first + 1; child < end; child++) {
+                    if (heap[child] > largestEntry) {
+                        largestEntry = heap[child];
+                        largest = child;
+                    }
+                }
+                if (entry >= largestEntry) {
+                    break;
+                }
+                heap[pos] = largestEntry;
+                pos = largest;
+            }
+            heap[pos] = entry;
+        }
+    }
+}
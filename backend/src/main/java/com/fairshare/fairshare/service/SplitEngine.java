@@ -0,0 +1,39 @@
+package com.fairshare.fairshare.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits an amount in cents into parts that add up to exactly the amount.
+ *
+ * Largest remainder method: every part gets the amount divided by the number
+ * of parts rounded down, then the cents left over go out one each, earliest
+ * part first. Callers pass members in ascending user id order, so a split
+ * always gives the same cent to the same person, in Java and in the balance
+ * queries. Shares are written into a caller supplied array, nothing is
+ * allocated.
+ */
+@Component
+public class SplitEngine {
+
+    /**
+     * Splits an amount evenly, 10.00 over three is 3.34, 3.33, 3.33
+     *
+     * @param cents amount to split, not negative
+     * @param out   receives one share per part
+     */
+    public void splitEvenly(long cents, long[] out) {
+        int parts = out.length;
+        if (parts == 0) {
+            throw new IllegalArgumentException("Cannot split between nobody");
+        }
+        if (cents < 0) {
+            throw new IllegalArgumentException("Cannot split a negative amount");
+        }
+
+        long base = cents / parts;
+        long extra = cents % parts;
+        for (int i = 0; i < parts; i++) {
+            out[i] = i < extra ? base + 1 : base;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.fairshare.fairshare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.fairshare.fairshare.dto.CurrencyAmountDTO;
+import com.fairshare.fairshare.dto.GroupNetBalanceDTO;
+import com.fairshare.fairshare.dto.UserBalancesDTO;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.GroupCurrencyTotal;
+import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+
+/**
+ * A user's net position across every group they belong to, per currency.
+ *
+ * Groups are aggregated in the database, {@code fairshare.user-balances.groups-per-query}
+ * at a time. A user in more groups than that has the batches run side by side
+ * on the shared {@link WorkersConfig workers}, so they are bounded along with
+ * everything else handed off there and rejected with a 503 once it is full.
+ *
+ * Up to one batch the answer is one statement and so one snapshot. Past
+ * that, each batch reads its own snapshot: every group's figures are
+ * consistent, but a write committed while the batches run may show in some
+ * groups and not yet in others, and in the totals accordingly.
+ */
+@Service
+public class UserBalanceService {
+
+    private final UserRepository userRepository;
+    private final MembershipRepository membershipRepository;
+    private final ExpenseRepository expenseRepository;
+    private final int groupsPerQuery;
+    private final TaskExecutor workers;
+
+    public UserBalanceService(UserRepository userRepository, MembershipRepository membershipRepository,
+            ExpenseRepository expenseRepository,
+            @Qualifier("workerExecutor") TaskExecutor workers,
+            @Value("${fairshare.user-balances.groups-per-query:50}") int groupsPerQuery) {
+        this.userRepository = userRepository;
+        this.membershipRepository = membershipRepository;
+        this.expenseRepository = expenseRepository;
+        this.workers = workers;
+        this.groupsPerQuery = groupsPerQuery;
+    }
+
+    /**
+     * Net balances of a user in each of their groups and overall, read in
+     * one snapshot only if the groups fit in one query
+     *
+     * @param userId user to look up
+     * @return per-group and overall net amounts per currency, positive = owed
+     * @throws NotFoundException if user not found
+     */
+    public UserBalancesDTO getUserBalances(Long userId) throws NotFoundException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+
+        List<Long> groupIds = membershipRepository.findGroupIdsByUserId(userId);
+        List<GroupCurrencyTotal> rows = groupIds.isEmpty() ? List.of() : aggregate(userId, groupIds);
+
+        // cents per currency for every group the user is in, then overall
+        Map<Long, Map<String, Long>> byGroup = new TreeMap<>();
+        for (Long groupId : groupIds) {
+            byGroup.put(groupId, new TreeMap<>());
+        }
+        Map<String, Long> totals = new TreeMap<>();
+        for (GroupCurrencyTotal row : rows) {
+            long cents = Money.toCents(row.total());
+            byGroup.get(row.groupId()).merge(row.currency(), cents, Long::sum);
+            totals.merge(row.currency(), cents, Long::sum);
+        }
+
+        List<GroupNetBalanceDTO> groups = new ArrayList<>(byGroup.size());
+        byGroup.forEach((groupId, balances) -> groups.add(new GroupNetBalanceDTO(groupId, amounts(balances))));
+        return new UserBalancesDTO(userId, groups, amounts(totals));
+    }
+
+    private List<GroupCurrencyTotal> aggregate(Long userId, List<Long> groupIds) {
+        if (groupIds.size() <= groupsPerQuery) {
+            return expenseRepository.sumUserNetByGroupAndCurrency(userId, groupIds);
+        }
+
+        List<CompletableFuture<List<GroupCurrencyTotal>>> batches = new ArrayList<>();
+        for (int from = 0; from < groupIds.size(); from += groupsPerQuery) {
+            List<Long> batch = groupIds.subList(from, Math.min(from + groupsPerQuery, groupIds.size()));
+            batches.add(CompletableFuture.supplyAsync(
+                    () -> expenseRepository.sumUserNetByGroupAndCurrency(userId, batch), workers));
+        }
+
+        List<GroupCurrencyTotal> rows = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<GroupCurrencyTotal>> batch : batches) {
+                rows.addAll(batch.join());
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        return rows;
+    }
+
+    private static List<CurrencyAmountDTO> amounts(Map<String, Long> cents) {
+        List<CurrencyAmountDTO> out = new ArrayList<>(cents.size());
+        cents.forEach((currency, amount) -> out.add(new CurrencyAmountDTO(currency, Money.toBigDecimal(amount))));
+        return out;
+    }
+}
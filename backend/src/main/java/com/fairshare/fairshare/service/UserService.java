@@ -89,8 +89,8 @@ public class UserService {
      * @return list of users
      */
     @Transactional(readOnly = true)
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserDTO> getAllUsers() {
+        return userRepository.findAllDTOs();
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.fairshare.fairshare.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Worker threads for work request threads hand off and wait for, e.g. the
+ * writes of {@link ExpenseBatcher} or the batches of
+ * {@link UserBalanceService}. At most
+ * {@code fairshare.workers.queue-capacity} tasks wait for one of the
+ * {@code fairshare.workers.threads} threads; past that, work is rejected with
+ * a {@link org.springframework.core.task.TaskRejectedException} (503) rather
+ * than queued without limit.
+ */
+@Configuration
+public class WorkersConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor workerExecutor(
+            @Value("${fairshare.workers.threads:4}") int threads,
+            @Value("${fairshare.workers.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("worker-");
+        // callers are waiting on what is already queued, let it finish
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,3 @@
+-- bumped by every write to a group's ledger, balances or members, so readers
+-- can tell whether anything they derived from the group is still current
+alter table groups add column if not exists ledger_seq bigint not null default 0;
@@ -0,0 +1,2 @@
+-- settlements are now inserted in batches too, see V4
+alter sequence settlements_settlement_id_seq increment by 50;
@@ -0,0 +1,13 @@
+-- description search: "ilike '%text%'" and word similarity ("<%") both use
+-- a trigram gin index
+create extension if not exists pg_trgm;
+create index if not exists idx_expenses_description_trgm
+    on expenses using gin (description gin_trgm_ops);
+
+-- the payer filter keeps the keyset order within a group
+create index if not exists idx_expenses_group_payer_time
+    on expenses(group_id, payer_id, occurred_at, expense_id);
+
+-- the participant filter finds the equal-split snapshots a user is in
+create index if not exists idx_participant_set_members
+    on participant_set using gin (member_ids);
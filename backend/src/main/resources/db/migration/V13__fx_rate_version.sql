@@ -0,0 +1,8 @@
+-- version of the whole fx_rate table, moved on in the same transaction as
+-- every rate load so instances can tell their in-memory rates are stale
+create table if not exists fx_rate_version (
+    id       smallint primary key default 1 check (id = 1),
+    version  bigint   not null default 0
+);
+
+insert into fx_rate_version (id, version) values (1, 0) on conflict do nothing;
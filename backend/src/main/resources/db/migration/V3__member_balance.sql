@@ -0,0 +1,29 @@
+create table if not exists member_balance (
+    group_id    bigint        not null,
+    user_id     bigint        not null,
+    balance     numeric(14,2) not null default 0,
+    updated_at  timestamptz   not null default now(),
+    constraint pk_member_balance primary key (group_id, user_id),
+    constraint fk_member_balance_group
+        foreign key (group_id) references groups (group_id) on delete cascade,
+    constraint fk_member_balance_user
+        foreign key (user_id) references users (user_id) on delete restrict
+);
+
+-- backfill the projection from the existing ledger history
+insert into member_balance (group_id, user_id, balance)
+select h.group_id, h.user_id, sum(h.delta)
+from (
+    select group_id, user_id, 0 as delta from membership
+    union all
+    select group_id, payer_id, amount from expenses
+    union all
+    select e.group_id, es.participant_id, -es.share_amount
+    from expense_share es join expenses e on e.expense_id = es.expense_id
+    union all
+    select group_id, payer_id, amount from settlements
+    union all
+    select group_id, payee_id, -amount from settlements
+) h
+group by h.group_id, h.user_id
+on conflict (group_id, user_id) do nothing;
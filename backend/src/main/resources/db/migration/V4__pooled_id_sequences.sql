@@ -0,0 +1,6 @@
+-- hand out ids in blocks of 50 so Hibernate can assign ids in memory and
+-- batch inserts (identity columns force one round trip per row).
+-- column defaults still call nextval, so plain SQL inserts keep working.
+alter sequence membership_membership_id_seq        increment by 50;
+alter sequence expenses_expense_id_seq             increment by 50;
+alter sequence expense_share_expense_share_id_seq  increment by 50;
@@ -0,0 +1,14 @@
+-- responses of POSTs sent with an Idempotency-Key header, so a retried request
+-- gets the original response instead of creating a second row.
+-- scope is the method and path the key was used on.
+create table if not exists idempotency_key (
+    scope          varchar(255) not null,
+    idem_key       varchar(255) not null,
+    request_hash   varchar(64)  not null,
+    response_body  bytea,
+    created_at     timestamptz  not null default now(),
+    expires_at     timestamptz  not null,
+    constraint pk_idempotency_key primary key (scope, idem_key)
+);
+
+create index if not exists idx_idempotency_key_expires_at on idempotency_key(expires_at);
@@ -0,0 +1,32 @@
+-- equal splits no longer write one expense_share row per member. the expense
+-- points at a snapshot of the member ids it was split across and each member
+-- owes round(amount / member_count, 2).
+-- a snapshot is shared by every expense created while the membership is the
+-- same, members_hash (sha-256 of the sorted ids) finds an existing one.
+create table if not exists participant_set (
+    participant_set_id  bigserial primary key,
+    group_id            bigint      not null,
+    member_ids          bigint[]    not null,
+    member_count        integer     not null check (member_count > 0),
+    members_hash        bytea       not null,
+    created_at          timestamptz not null default now(),
+    constraint fk_participant_set_group
+        foreign key (group_id) references groups (group_id) on delete cascade,
+    constraint uq_participant_set_members unique (group_id, members_hash)
+);
+
+-- SHARES: split stored in expense_share (all existing rows)
+-- EQUAL:  split implied by participant_set_id
+alter table expenses
+  add column if not exists split_mode varchar(16) not null default 'SHARES'
+      check (split_mode in ('SHARES', 'EQUAL'));
+alter table expenses
+  add column if not exists participant_set_id bigint;
+alter table expenses
+  add constraint fk_expenses_participant_set
+    foreign key (participant_set_id) references participant_set (participant_set_id);
+alter table expenses
+  add constraint ck_expenses_equal_split_has_set
+    check (split_mode <> 'EQUAL' or participant_set_id is not null);
+
+create index if not exists idx_expenses_participant_set on expenses(participant_set_id);
@@ -0,0 +1,59 @@
+-- equal splits now hand out every cent: each member owes the amount divided
+-- by the member count rounded down, and the cents left over go one each to
+-- the first members in user id order (10.00 over three is 3.34, 3.33, 3.33).
+-- before, every member owed round(amount / member_count, 2), so the shares
+-- could be a few cents off the amount and group balances did not net to zero.
+
+-- equal splits stored as share rows before V6: every share is the same
+-- rounded amount. move the residue onto the members the new rule picks.
+with legacy as (
+    select es.expense_id,
+           cast(e.amount * 100 as bigint) - sum(cast(es.share_amount * 100 as bigint)) as residue,
+           count(*) as parts
+    from expense_share es
+    join expenses e on e.expense_id = es.expense_id
+    where e.split_mode = 'SHARES' and es.share_ratio is null
+    group by es.expense_id, e.amount
+    having min(es.share_amount) = max(es.share_amount)
+       and sum(es.share_amount) <> e.amount
+       and abs(cast(e.amount * 100 as bigint) - sum(cast(es.share_amount * 100 as bigint))) < count(*)
+),
+ranked as (
+    select es.expense_share_id, l.residue, l.parts,
+           row_number() over (partition by es.expense_id order by es.participant_id) as pos
+    from expense_share es
+    join legacy l on l.expense_id = es.expense_id
+)
+update expense_share es
+set share_amount = es.share_amount + case when r.residue > 0 then 0.01 else -0.01 end
+from ranked r
+where es.expense_share_id = r.expense_share_id
+  and ((r.residue > 0 and r.pos <= r.residue)
+    or (r.residue < 0 and r.pos > r.parts + r.residue));
+
+-- rebuild the balance projection under the new rule
+delete from member_balance;
+
+insert into member_balance (group_id, user_id, balance)
+select h.group_id, h.user_id, sum(h.delta)
+from (
+    select group_id, user_id, 0 as delta from membership
+    union all
+    select group_id, payer_id, amount from expenses
+    union all
+    select e.group_id, es.participant_id, -es.share_amount
+    from expense_share es join expenses e on e.expense_id = es.expense_id
+    union all
+    select e.group_id, m.user_id,
+           -(cast(e.amount * 100 as bigint) / ps.member_count
+             + case when m.pos <= cast(e.amount * 100 as bigint) % ps.member_count then 1 else 0 end) * 0.01
+    from expenses e
+    join participant_set ps on ps.participant_set_id = e.participant_set_id
+    cross join unnest(ps.member_ids) with ordinality as m(user_id, pos)
+    where e.split_mode = 'EQUAL'
+    union all
+    select group_id, payer_id, amount from settlements
+    union all
+    select group_id, payee_id, -amount from settlements
+) h
+group by h.group_id, h.user_id;
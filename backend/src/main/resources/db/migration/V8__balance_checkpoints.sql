@@ -0,0 +1,17 @@
+-- as-of balances read settlements by time within a group
+create index if not exists idx_settlement_group_time on settlements(group_id, settled_at);
+
+-- every member's balance in a group as of a point in time, so an as-of read
+-- only replays the expenses and settlements after the nearest checkpoint.
+-- writes that land at or before a checkpoint delete it.
+create table if not exists balance_checkpoint (
+    group_id    bigint        not null,
+    as_of       timestamptz   not null,
+    user_id     bigint        not null,
+    balance     numeric(14,2) not null,
+    constraint pk_balance_checkpoint primary key (group_id, as_of, user_id),
+    constraint fk_balance_checkpoint_group
+        foreign key (group_id) references groups (group_id) on delete cascade,
+    constraint fk_balance_checkpoint_user
+        foreign key (user_id) references users (user_id) on delete restrict
+);
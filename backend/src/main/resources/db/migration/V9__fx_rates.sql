@@ -0,0 +1,13 @@
+-- exchange rates for converting balances into one currency:
+-- 1 base_currency = rate quote_currency. the inverse pair is derived when
+-- only one direction is loaded.
+create table if not exists fx_rate (
+    base_currency   varchar(3)    not null
+                    check (char_length(base_currency)=3 and base_currency = upper(base_currency)),
+    quote_currency  varchar(3)    not null
+                    check (char_length(quote_currency)=3 and quote_currency = upper(quote_currency)),
+    rate            numeric(18,8) not null check (rate > 0),
+    updated_at      timestamptz   not null default now(),
+    constraint pk_fx_rate primary key (base_currency, quote_currency),
+    constraint ck_fx_rate_pair check (base_currency <> quote_currency)
+);
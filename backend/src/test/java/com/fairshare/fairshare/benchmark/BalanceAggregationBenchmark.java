@@ -0,0 +1,175 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.ExpenseShare;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.Settlement;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.ExpenseShareRepository;
+import com.fairshare.fairshare.repository.SettlementRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+/**
+ * Computing a group's balances over a long history: loading every expense,
+ * share and settlement entity and folding them in Java, against per-user
+ * aggregate queries, against reading the member_balance projection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BalanceAggregationBenchmark {
+
+    static final int MEMBERS = 4;
+    static final int SETTLEMENTS = 100;
+
+    @Param({ "100000" })
+    int expenses;
+
+    BenchmarkApp app;
+    ExpenseService expenseService;
+    ExpenseRepository expenseRepository;
+    ExpenseShareRepository expenseShareRepository;
+    SettlementRepository settlementRepository;
+    TransactionTemplate readOnly;
+    Long groupId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        app = BenchmarkApp.start();
+        expenseService = app.bean(ExpenseService.class);
+        expenseRepository = app.bean(ExpenseRepository.class);
+        expenseShareRepository = app.bean(ExpenseShareRepository.class);
+        settlementRepository = app.bean(SettlementRepository.class);
+        readOnly = new TransactionTemplate(app.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        var groupService = app.bean(GroupService.class);
+        var userRepository = app.bean(UserRepository.class);
+        String run = String.valueOf(System.nanoTime());
+        long[] ids = new long[MEMBERS];
+        for (int i = 0; i < MEMBERS; i++) {
+            var u = new User();
+            u.setUserName("Member " + i);
+            u.setUserEmail("member" + i + "-" + run + "@example.com");
+            ids[i] = userRepository.save(u).getUserId();
+            if (i == 0) {
+                groupId = groupService.createGroup("Bench " + run, ids[0]).id();
+            } else {
+                groupService.addMember(groupId, ids[i], Membership.Role.MEMBER);
+            }
+        }
+
+        // explicit share rows, the storage every expense used before equal
+        // splits became implicit
+        var summary = app.bean(ExpenseImportService.class).importExpenses(groupId, rows(ids),
+                ExpenseImportService.Format.NDJSON, error -> {
+                    throw new IllegalStateException(error.error());
+                });
+        if (summary.imported() != expenses) {
+            throw new IllegalStateException("Seeded " + summary.imported() + " expenses");
+        }
+        for (int i = 0; i < SETTLEMENTS; i++) {
+            expenseService.createSettlement(groupId, ids[(i + 1) % MEMBERS], ids[i % MEMBERS],
+                    new BigDecimal("5.00"), null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    /* the pre-aggregate approach: one entity per ledger row */
+    @Benchmark
+    public Map<Long, BigDecimal> hydrateEntities() {
+        return readOnly.execute(status -> {
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            for (Expense e : expenseRepository.findByGroup_GroupId(groupId)) {
+                balances.merge(e.getPayer().getUserId(), e.getAmount(), BigDecimal::add);
+            }
+            for (ExpenseShare s : expenseShareRepository.findByExpense_Group_GroupId(groupId)) {
+                balances.merge(s.getParticipant().getUserId(), s.getShareAmount().negate(), BigDecimal::add);
+            }
+            for (Settlement s : settlementRepository.findByGroup_GroupId(groupId)) {
+                balances.merge(s.getPayer().getUserId(), s.getAmount(), BigDecimal::add);
+                balances.merge(s.getPayee().getUserId(), s.getAmount().negate(), BigDecimal::add);
+            }
+            return balances;
+        });
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> aggregateQueries() throws Exception {
+        return expenseService.ledgerBalances(groupId);
+    }
+
+    @Benchmark
+    public List<BalanceDTO> projection() throws Exception {
+        return expenseService.getUserBalances(groupId);
+    }
+
+    /* ndjson import body generated on the fly */
+    private Reader rows(long[] ids) {
+        return new Reader() {
+            int next = 0;
+            CharBuffer line = CharBuffer.allocate(0);
+
+            @Override
+            public int read(char[] buf, int off, int len) {
+                if (!line.hasRemaining()) {
+                    if (next == expenses) {
+                        return -1;
+                    }
+                    long payer = ids[next % MEMBERS];
+                    StringBuilder sb = new StringBuilder("{\"payerId\":").append(payer)
+                            .append(",\"amount\":\"8.00\",\"shares\":[");
+                    for (int k = 0; k < MEMBERS; k++) {
+                        sb.append(k == 0 ? "" : ",").append("{\"participantId\":").append(ids[k])
+                                .append(",\"shareAmount\":\"2.00\"}");
+                    }
+                    line = CharBuffer.wrap(sb.append("]}\n"));
+                    next++;
+                }
+                int n = Math.min(len, line.remaining());
+                line.get(buf, off, n);
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.fairshare.fairshare.FairshareApplication;
+
+/**
+ * Boots the application (without the web layer) against PostgreSQL for the
+ * database benchmarks. Uses a throwaway Testcontainers database unless
+ * {@code -Dbenchmark.jdbc.url=...} (plus {@code .username}/{@code .password})
+ * points at an existing empty one.
+ */
+final class BenchmarkApp implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApp(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    /**
+     * @param properties extra {@code key=value} overrides for this run
+     */
+    static BenchmarkApp start(String... properties) {
+        String url = System.getProperty("benchmark.jdbc.url");
+        String username = System.getProperty("benchmark.jdbc.username", "postgres");
+        String password = System.getProperty("benchmark.jdbc.password", "");
+
+        PostgreSQLContainer<?> postgres = null;
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        List<String> props = new ArrayList<>(List.of(
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + username,
+                "spring.datasource.password=" + password,
+                // keep statistics logging out of the measurements
+                "spring.jpa.properties.hibernate.generate_statistics=false",
+                "logging.level.root=warn"));
+        props.addAll(List.of(properties));
+
+        // passed as command line args so they win over application.properties
+        var context = new SpringApplicationBuilder(FairshareApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(props.stream().map(p -> "--" + p).toArray(String[]::new));
+        return new BenchmarkApp(postgres, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
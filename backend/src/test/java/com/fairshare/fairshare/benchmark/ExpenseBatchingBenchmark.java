@@ -0,0 +1,137 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseBatcher;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+/**
+ * Many clients creating expenses in the same group at once, each expense in
+ * its own transaction or group committed by {@link ExpenseBatcher}. Next to
+ * expenses per second JMH reports {@code createExpense:commits}, the commits
+ * per second the database saw (from pg_stat_database, which lags by up to a
+ * second).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class ExpenseBatchingBenchmark {
+
+    @Param({ "false", "true" })
+    boolean batching;
+
+    BenchmarkApp app;
+    ExpenseService expenseService;
+    ExpenseBatcher expenseBatcher;
+    JdbcTemplate jdbc;
+    Long groupId;
+    Long payerId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        app = BenchmarkApp.start(
+                "fairshare.expenses.batching.enabled=" + batching,
+                "fairshare.expenses.batching.max-wait=2ms",
+                "spring.datasource.hikari.maximum-pool-size=10");
+        expenseService = app.bean(ExpenseService.class);
+        expenseBatcher = app.bean(ExpenseBatcher.class);
+        jdbc = new JdbcTemplate(app.bean(DataSource.class));
+        var groupService = app.bean(GroupService.class);
+        var userRepository = app.bean(UserRepository.class);
+
+        String run = batching + "-" + System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            var u = new User();
+            u.setUserName("Member " + i);
+            u.setUserEmail("member" + i + "-" + run + "@example.com");
+            u = userRepository.save(u);
+            if (i == 0) {
+                payerId = u.getUserId();
+                groupId = groupService.createGroup("Bench " + run, payerId).id();
+            } else {
+                groupService.addMember(groupId, u.getUserId(), Membership.Role.MEMBER);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    /**
+     * The database's commits in an iteration, normalized by JMH like the
+     * expenses. They are counted database wide, so only the first thread
+     * fills its counter in and the sum over threads is the total.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Commits {
+        public long commits;
+        private long before;
+        private boolean counting;
+
+        @Setup(Level.Iteration)
+        public void start(ExpenseBatchingBenchmark benchmark, ThreadParams thread) {
+            counting = thread.getThreadIndex() == 0;
+            if (counting) {
+                before = benchmark.commits();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(ExpenseBatchingBenchmark benchmark) {
+            if (counting) {
+                commits = benchmark.commits() - before;
+            }
+        }
+    }
+
+    private long commits() {
+        return jdbc.queryForObject("select pg_stat_clear_snapshot(), xact_commit from pg_stat_database"
+                + " where datname = current_database()", (rs, i) -> rs.getLong(2));
+    }
+
+    @Benchmark
+    public ExpenseDTO createExpense(Commits commits) throws Exception {
+        if (batching) {
+            return expenseBatcher.create(groupId, new CreateExpenseRequest(payerId, new BigDecimal("123.45"),
+                    Expense.CurrencyCode.CAD, "Benchmark", null));
+        }
+        return expenseService.createExpense(groupId, payerId, new BigDecimal("123.45"),
+                Expense.CurrencyCode.CAD, "Benchmark", Instant.now());
+    }
+}
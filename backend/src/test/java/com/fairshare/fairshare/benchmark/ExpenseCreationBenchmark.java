@@ -0,0 +1,84 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+/**
+ * createExpense throughput by group size, with JDBC batching off
+ * (batchSize=1, one insert per share) and on (batchSize=50).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpenseCreationBenchmark {
+
+    @Param({ "10", "200" })
+    int members;
+
+    @Param({ "1", "50" })
+    int batchSize;
+
+    BenchmarkApp app;
+    ExpenseService expenseService;
+    Long groupId;
+    Long payerId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        app = BenchmarkApp.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        expenseService = app.bean(ExpenseService.class);
+        var groupService = app.bean(GroupService.class);
+        var userRepository = app.bean(UserRepository.class);
+
+        String run = members + "-" + batchSize + "-" + System.nanoTime();
+        for (int i = 0; i < members; i++) {
+            var u = new User();
+            u.setUserName("Member " + i);
+            u.setUserEmail("member" + i + "-" + run + "@example.com");
+            u = userRepository.save(u);
+            if (i == 0) {
+                payerId = u.getUserId();
+                groupId = groupService.createGroup("Bench " + run, payerId).id();
+            } else {
+                groupService.addMember(groupId, u.getUserId(), Membership.Role.MEMBER);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public ExpenseDTO createExpense() throws Exception {
+        return expenseService.createExpense(groupId, payerId, new BigDecimal("123.45"),
+                Expense.CurrencyCode.CAD, "Benchmark", Instant.now());
+    }
+}
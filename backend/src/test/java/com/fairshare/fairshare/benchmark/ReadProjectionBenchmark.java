@@ -0,0 +1,192 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.GroupDTO;
+import com.fairshare.fairshare.dto.GroupPageDTO;
+import com.fairshare.fairshare.dto.MembershipDTO;
+import com.fairshare.fairshare.dto.UserDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fairshare.fairshare.service.UserService;
+
+/**
+ * The list endpoints over large result sets: loading managed entities in a
+ * read-only transaction and copying them into dtos, the way the services
+ * used to, against selecting straight into the dtos. Run with
+ * {@code -prof gc} to see bytes allocated per operation next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadProjectionBenchmark {
+
+    // users, groups, members of the big group and expenses in it
+    @Param({ "10000" })
+    int rows;
+
+    BenchmarkApp app;
+    UserService userService;
+    GroupService groupService;
+    ExpenseService expenseService;
+    UserRepository userRepository;
+    GroupRepository groupRepository;
+    MembershipRepository membershipRepository;
+    ExpenseRepository expenseRepository;
+    TransactionTemplate readOnly;
+    Long groupId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        app = BenchmarkApp.start();
+        userService = app.bean(UserService.class);
+        groupService = app.bean(GroupService.class);
+        expenseService = app.bean(ExpenseService.class);
+        userRepository = app.bean(UserRepository.class);
+        groupRepository = app.bean(GroupRepository.class);
+        membershipRepository = app.bean(MembershipRepository.class);
+        expenseRepository = app.bean(ExpenseRepository.class);
+        readOnly = new TransactionTemplate(app.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        // users, groups and one group everybody belongs to, seeded in sql
+        var jdbc = new JdbcTemplate(app.bean(DataSource.class));
+        String run = String.valueOf(System.nanoTime());
+        jdbc.update("""
+                insert into users (user_name, user_email)
+                select 'User ' || i, 'user' || i || '-' || ? || '@example.com' from generate_series(1, ?) i
+                """, run, rows);
+        jdbc.update("insert into groups (group_name) select 'Group ' || i from generate_series(1, ?) i", rows - 1);
+        groupId = jdbc.queryForObject("insert into groups (group_name) values ('Everyone') returning group_id",
+                Long.class);
+        jdbc.update("""
+                insert into membership (user_id, group_id, role)
+                select user_id, ?, case when row_number() over (order by user_id) = 1 then 'ADMIN' else 'MEMBER' end
+                from users
+                """, groupId);
+        jdbc.update("""
+                insert into member_balance (group_id, user_id, balance)
+                select group_id, user_id, 0 from membership where group_id = ?
+                """, groupId);
+
+        Long payerId = membershipRepository.findUserIdsByGroupId(groupId).get(0);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"payerId\":").append(payerId).append(",\"amount\":\"").append(1 + i % 97)
+                    .append(".25\",\"description\":\"Expense ").append(i).append("\"}\n");
+        }
+        var summary = app.bean(ExpenseImportService.class).importExpenses(groupId,
+                new StringReader(ndjson.toString()), ExpenseImportService.Format.NDJSON, error -> {
+                    throw new IllegalStateException(error.error());
+                });
+        if (summary.imported() != rows) {
+            throw new IllegalStateException("Seeded " + summary.imported() + " expenses");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<UserDTO> usersEntities() {
+        return readOnly.execute(status -> userRepository.findAll().stream()
+                .map(u -> new UserDTO(u.getUserId(), u.getUserName(), u.getUserEmail()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserDTO> usersProjection() {
+        return userService.getAllUsers();
+    }
+
+    @Benchmark
+    public List<GroupDTO> groupsEntities() {
+        return readOnly.execute(status -> groupRepository.findAll().stream()
+                .map(g -> new GroupDTO(g.getGroupId(), g.getGroupName(), g.getGroupCreatedAt(), g.getLedgerSeq()))
+                .toList());
+    }
+
+    /* every page of groups, to read the same rows as the entities */
+    @Benchmark
+    public List<GroupDTO> groupsProjection() {
+        List<GroupDTO> groups = new ArrayList<>();
+        String after = null;
+        do {
+            GroupPageDTO page = groupService.listGroups(200, after);
+            groups.addAll(page.items());
+            after = page.nextCursor();
+        } while (after != null);
+        return groups;
+    }
+
+    /* memberships eagerly load their user and group */
+    @Benchmark
+    public List<MembershipDTO> membersEntities() {
+        return readOnly.execute(status -> membershipRepository.findByGroup_GroupId(groupId).stream()
+                .map(m -> new MembershipDTO(m.getMembershipId(), m.getUser().getUserId(),
+                        m.getGroup().getGroupId(), m.getRole()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<MembershipDTO> membersProjection() throws Exception {
+        return groupService.listAllMembers(groupId);
+    }
+
+    /* the expense columns only, shares are the same work either way */
+    @Benchmark
+    public void expensesEntities(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (Expense e : expenseRepository.findByGroup_GroupId(groupId)) {
+                bh.consume(new ExpenseDTO(e.getExpenseId(), e.getGroup().getGroupId(), e.getPayer().getUserId(),
+                        e.getAmount(), e.getCurrency(), e.getDescription(), e.getOccurredAt(), e.getCreatedAt(),
+                        List.of()));
+            }
+        });
+    }
+
+    @Benchmark
+    public void expensesProjection(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            try (var rows = expenseRepository.streamByGroupId(groupId)) {
+                rows.forEach(e -> bh.consume(new ExpenseDTO(e.expenseId(), e.groupId(), e.payerId(), e.amount(),
+                        e.currency(), e.description(), e.occurredAt(), e.createdAt(), List.of())));
+            }
+        });
+    }
+}
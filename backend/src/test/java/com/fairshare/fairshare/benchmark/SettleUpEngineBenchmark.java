@@ -0,0 +1,61 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fairshare.fairshare.service.SettleUpEngine;
+
+/**
+ * Settle-up plan latency by group size. The 10k member case is the greedy path
+ * and has to stay around a millisecond; 16 members is the largest group the
+ * exact solver handles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SettleUpEngineBenchmark {
+
+    @Param({ "16", "1000", "10000" })
+    int members;
+
+    long[] userIds;
+    long[] cents;
+    SettleUpEngine engine = new SettleUpEngine();
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(42);
+        userIds = new long[members];
+        cents = new long[members];
+
+        // random balances up to +-$500 that net to zero
+        long total = 0;
+        for (int i = 0; i < members; i++) {
+            userIds[i] = i + 1;
+            cents[i] = random.nextLong(-50_000, 50_000);
+            total += cents[i];
+        }
+        cents[members - 1] -= total;
+    }
+
+    @Benchmark
+    public List<SettleUpEngine.Transfer> plan() {
+        return engine.plan(userIds, cents);
+    }
+}
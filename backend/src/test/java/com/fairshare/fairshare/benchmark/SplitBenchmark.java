@@ -0,0 +1,117 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.service.Money;
+import com.fairshare.fairshare.service.SplitEngine;
+
+/**
+ * The arithmetic of an equal-split expense and of a balance read, done in
+ * BigDecimal the way the service used to and in long cents. Run with
+ * {@code -prof gc} to see bytes allocated per operation next to throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SplitBenchmark {
+
+    @Param({ "4", "50" })
+    int members;
+
+    List<Long> memberIds;
+    Long payerId;
+    BigDecimal amount = new BigDecimal("1234.5");
+    BigDecimal[] storedBalances;
+    SplitEngine engine = new SplitEngine();
+
+    @Setup
+    public void setUp() {
+        memberIds = new ArrayList<>(members);
+        storedBalances = new BigDecimal[members];
+        for (int i = 0; i < members; i++) {
+            memberIds.add(1000L + i);
+            storedBalances[i] = BigDecimal.valueOf(i * 731L - members * 365L, 2);
+        }
+        payerId = memberIds.get(members / 2);
+    }
+
+    /* per-member share rounded on its own, deltas merged in a TreeMap */
+    @Benchmark
+    public void splitBigDecimal(Blackhole bh) {
+        BigDecimal normalizedAmount = amount.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal perMemberShare = normalizedAmount
+                .divide(BigDecimal.valueOf(memberIds.size()), 2, RoundingMode.HALF_UP);
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        deltas.put(payerId, normalizedAmount);
+        for (Long memberId : memberIds) {
+            deltas.merge(memberId, perMemberShare.negate(), BigDecimal::add);
+        }
+        bh.consume(deltas.keySet().toArray(Long[]::new));
+        bh.consume(deltas.values().toArray(BigDecimal[]::new));
+    }
+
+    @Benchmark
+    public void splitCents(Blackhole bh) {
+        Money total = Money.of(amount);
+        long[] shares = new long[memberIds.size()];
+        engine.splitEvenly(total.cents(), shares);
+        Long[] userIds = memberIds.toArray(Long[]::new);
+        Long[] deltaCents = new Long[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            deltaCents[i] = userIds[i].equals(payerId) ? total.cents() - shares[i] : -shares[i];
+        }
+        bh.consume(userIds);
+        bh.consume(deltaCents);
+    }
+
+    /* the old read: total the balances and push any residue onto one member */
+    @Benchmark
+    public List<BalanceDTO> balancesNormalized() {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int i = 0; i < members; i++) {
+            balances.put(memberIds.get(i), storedBalances[i]);
+        }
+        BigDecimal total = balances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.compareTo(BigDecimal.ZERO) != 0) {
+            Long firstUserId = balances.keySet().iterator().next();
+            balances.put(firstUserId, balances.get(firstUserId).subtract(total));
+        }
+        return balances.entrySet().stream()
+                .map(e -> new BalanceDTO(e.getKey(), e.getValue().setScale(2, RoundingMode.HALF_UP)))
+                .toList();
+    }
+
+    /* splits net to zero, stored balances are returned as they are */
+    @Benchmark
+    public List<BalanceDTO> balancesExact() {
+        List<BalanceDTO> balances = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            balances.add(new BalanceDTO(memberIds.get(i), storedBalances[i]));
+        }
+        return balances;
+    }
+}
@@ -0,0 +1,123 @@
+package com.fairshare.fairshare.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fairshare.fairshare.api.BinaryFormatsConfig;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.dto.ShareDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writing and reading a full page of expenses (200, four shares each) in
+ * JSON, CBOR and Smile, with the mappers configured the way the application
+ * configures them. Payload sizes, plain and gzipped, are reported by JMH
+ * next to the times as {@code :bytes} and {@code :gzippedBytes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({ "json", "cbor", "smile" })
+    String format;
+
+    ObjectMapper mapper;
+    ExpensePageDTO page;
+    byte[] encoded;
+    int gzippedSize;
+
+    @Setup
+    public void setUp() throws IOException {
+        // spring.jackson defaults: dates as ISO-8601 text
+        var config = new BinaryFormatsConfig();
+        var builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper = switch (format) {
+            case "cbor" -> config.cborHttpMessageConverter(builder).getObjectMapper();
+            case "smile" -> config.smileHttpMessageConverter(builder).getObjectMapper();
+            default -> builder.build();
+        };
+
+        List<ExpenseDTO> items = new ArrayList<>();
+        Instant at = Instant.parse("2025-03-01T10:00:00Z");
+        for (long id = 1; id <= 200; id++) {
+            List<ShareDTO> shares = new ArrayList<>();
+            for (long p = 0; p < 4; p++) {
+                shares.add(new ShareDTO(1000 + p, BigDecimal.valueOf(1000 + id * 7 + p, 2), null));
+            }
+            items.add(new ExpenseDTO(id * 50, 7L, 1000 + id % 4, BigDecimal.valueOf(4000 + id * 28, 2),
+                    Expense.CurrencyCode.CAD, "Groceries " + id, at.minusSeconds(id * 3600),
+                    at.minusSeconds(id * 3600 - 5), shares));
+        }
+        page = new ExpensePageDTO(items, "MTc0MDgyMzIwMDAwMDoxMDAwMA", null);
+
+        encoded = mapper.writeValueAsBytes(page);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(encoded);
+        }
+        gzippedSize = gzipped.size();
+    }
+
+    /**
+     * The page's size in the format. JMH adds event counters up over the
+     * measured iterations, so only the first of them reports it.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long bytes;
+        public long gzippedBytes;
+        private boolean reported;
+
+        @TearDown(Level.Iteration)
+        public void measure(WireFormatBenchmark benchmark, IterationParams iteration) {
+            if (iteration.getType() == IterationType.MEASUREMENT && !reported) {
+                bytes = benchmark.encoded.length;
+                gzippedBytes = benchmark.gzippedSize;
+                reported = true;
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] write(Payload payload) throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public ExpensePageDTO read(Payload payload) throws IOException {
+        return mapper.readValue(encoded, ExpensePageDTO.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.BalanceCheckpointRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class AsOfBalancesIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    BalanceCheckpointRepository balanceCheckpointRepository;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private static List<BalanceDTO> balances(long a, String aliceBalance, long b, String bobBalance) {
+        return List.of(new BalanceDTO(a, new BigDecimal(aliceBalance)), new BalanceDTO(b, new BigDecimal(bobBalance)));
+    }
+
+    /**
+     * as-of balances only count what happened up to the instant, give the
+     * same answer with or without a checkpoint, and a back-dated expense
+     * drops the checkpoints it falls before
+     * 
+     * @throws Exception
+     */
+    @Test
+    void asOfBalances_countHistoryUpToInstant() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        Long groupId = groupService.createGroup("Flat", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+
+        Instant endOfJanuary = Instant.parse("2025-01-31T00:00:00Z");
+        Instant endOfFebruary = Instant.parse("2025-02-28T00:00:00Z");
+
+        // alice pays 20 in january, bob pays 10 in february, bob settles 5 today
+        expenseService.createExpense(groupId, a, new BigDecimal("20.00"), null, "Rent",
+                Instant.parse("2025-01-10T12:00:00Z"));
+        expenseService.createExpense(groupId, b, new BigDecimal("10.00"), null, "Power",
+                Instant.parse("2025-02-10T12:00:00Z"));
+        expenseService.createSettlement(groupId, b, a, new BigDecimal("5.00"), null);
+
+        assertThat(expenseService.getUserBalances(groupId, endOfJanuary)).isEqualTo(balances(a, "10.00", b, "-10.00"));
+        assertThat(expenseService.getUserBalances(groupId, endOfFebruary)).isEqualTo(balances(a, "5.00", b, "-5.00"));
+        assertThat(expenseService.getUserBalances(groupId, Instant.parse("2024-12-31T00:00:00Z")))
+                .isEqualTo(balances(a, "0.00", b, "0.00"));
+        assertThat(expenseService.getUserBalances(groupId, Instant.now())).isEqualTo(balances(a, "0.00", b, "0.00"));
+
+        // checkpointing changes nothing about the answers, and a second
+        // checkpoint with nothing new since is skipped
+        assertThat(expenseService.checkpointBalances(groupId, endOfJanuary)).isTrue();
+        assertThat(expenseService.checkpointBalances(groupId, Instant.parse("2025-02-01T00:00:00Z"))).isFalse();
+        assertThat(expenseService.checkpointBalances(groupId, endOfFebruary)).isTrue();
+        assertThat(expenseService.getUserBalances(groupId, endOfJanuary)).isEqualTo(balances(a, "10.00", b, "-10.00"));
+        assertThat(expenseService.getUserBalances(groupId, Instant.parse("2025-02-15T00:00:00Z")))
+                .isEqualTo(balances(a, "5.00", b, "-5.00"));
+        assertThat(balanceCheckpointRepository.findLatestAsOf(groupId, Instant.now())).isEqualTo(endOfFebruary);
+
+        // bob pays 4 back-dated into january, both checkpoints are stale
+        expenseService.createExpense(groupId, b, new BigDecimal("4.00"), null, "Bulbs",
+                Instant.parse("2025-01-20T12:00:00Z"));
+
+        assertThat(balanceCheckpointRepository.findLatestAsOf(groupId, Instant.now())).isNull();
+        assertThat(expenseService.getUserBalances(groupId, endOfJanuary)).isEqualTo(balances(a, "8.00", b, "-8.00"));
+        assertThat(expenseService.getUserBalances(groupId, endOfFebruary)).isEqualTo(balances(a, "3.00", b, "-3.00"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.CreateSettlementRequest;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.dto.SettlementDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.Settlement;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class BinaryFormatsIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final TypeReference<List<BalanceDTO>> BALANCES = new TypeReference<>() {
+    };
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    MappingJackson2CborHttpMessageConverter cborConverter;
+    @Autowired
+    MappingJackson2SmileHttpMessageConverter smileConverter;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private MockHttpServletResponse fetch(String path, String accept) throws Exception {
+        var request = get(path);
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        var response = mockMvc.perform(request).andReturn().getResponse();
+        assertThat(response.getStatus()).as(path + " " + accept).isEqualTo(200);
+        return response;
+    }
+
+    /**
+     * the same records come back in CBOR and Smile when asked for, smaller
+     * than the JSON, which stays the default
+     * 
+     * @throws Exception
+     */
+    @Test
+    void accept_selectsEncoding() throws Exception {
+        long alice = user("Alice", "alice@example.com").getUserId();
+        long bob = user("Bob", "bob@example.com").getUserId();
+        Long groupId = groupService.createGroup("Flat", alice).id();
+        groupService.addMember(groupId, bob, Membership.Role.MEMBER);
+        for (int i = 0; i < 20; i++) {
+            expenseService.createExpense(groupId, i % 2 == 0 ? alice : bob, new BigDecimal("12.34"),
+                    Expense.CurrencyCode.CAD, "Groceries " + i, Instant.parse("2025-03-01T10:00:00Z").plusSeconds(i));
+        }
+        String expenses = "/groups/" + groupId + "/expenses?limit=50";
+        String balances = "/groups/" + groupId + "/balances";
+
+        var json = fetch(expenses, null);
+        var cbor = fetch(expenses, MediaType.APPLICATION_CBOR_VALUE);
+        var smile = fetch(expenses, SMILE);
+        assertThat(json.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(fetch(expenses, "*/*").getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(cbor.getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(smile.getContentType()).isEqualTo(SMILE);
+
+        ExpensePageDTO page = objectMapper.readValue(json.getContentAsByteArray(), ExpensePageDTO.class);
+        assertThat(page.items()).hasSize(20);
+        assertThat(cborConverter.getObjectMapper().readValue(cbor.getContentAsByteArray(), ExpensePageDTO.class))
+                .isEqualTo(page);
+        assertThat(smileConverter.getObjectMapper().readValue(smile.getContentAsByteArray(), ExpensePageDTO.class))
+                .isEqualTo(page);
+        assertThat(cbor.getContentAsByteArray().length).isLessThan(json.getContentAsByteArray().length);
+        assertThat(smile.getContentAsByteArray().length).isLessThan(cbor.getContentAsByteArray().length);
+
+        // cached reads are negotiated too, and each encoding has its own tag
+        var jsonBalances = fetch(balances, null);
+        var cborBalances = fetch(balances, "application/cbor, application/json;q=0.5");
+        assertThat(cborBalances.getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(cborConverter.getObjectMapper().readValue(cborBalances.getContentAsByteArray(), BALANCES))
+                .isEqualTo(objectMapper.readValue(jsonBalances.getContentAsByteArray(), BALANCES));
+        String jsonTag = jsonBalances.getHeader(HttpHeaders.ETAG);
+        assertThat(cborBalances.getHeader(HttpHeaders.ETAG)).isNotEqualTo(jsonTag);
+        assertThat(cborBalances.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+        assertThat(mockMvc.perform(get(balances).header(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonTag)).andReturn().getResponse().getStatus()).isEqualTo(200);
+        assertThat(mockMvc.perform(get(balances).header(HttpHeaders.IF_NONE_MATCH, jsonTag)).andReturn()
+                .getResponse().getStatus()).isEqualTo(304);
+
+        // request bodies can be binary as well
+        var created = mockMvc.perform(post("/groups/" + groupId + "/settlements")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborConverter.getObjectMapper().writeValueAsBytes(
+                        new CreateSettlementRequest(bob, alice, new BigDecimal("5.00"), Settlement.CurrencyCode.CAD))))
+                .andReturn().getResponse();
+        assertThat(created.getStatus()).isEqualTo(201);
+        SettlementDTO settlement = cborConverter.getObjectMapper().readValue(created.getContentAsByteArray(),
+                SettlementDTO.class);
+        assertThat(settlement.amount()).isEqualByComparingTo("5.00");
+        assertThat(settlement.payerId()).isEqualTo(bob);
+
+        // an idempotent create answers in the format asked for, first time
+        // and on replay alike
+        var request = new CreateSettlementRequest(alice, bob, new BigDecimal("2.50"), Settlement.CurrencyCode.CAD);
+        List<MockHttpServletResponse> replies = new ArrayList<>();
+        for (String accept : List.of(MediaType.APPLICATION_CBOR_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                MediaType.APPLICATION_JSON_VALUE)) {
+            var reply = mockMvc.perform(post("/groups/" + groupId + "/settlements")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.ACCEPT, accept)
+                    .header("Idempotency-Key", "binary-settlement")
+                    .content(objectMapper.writeValueAsBytes(request)))
+                    .andReturn().getResponse();
+            assertThat(reply.getStatus()).isEqualTo(201);
+            assertThat(reply.getContentType()).startsWith(accept);
+            replies.add(reply);
+        }
+        assertThat(replies.get(0).getHeader("Idempotent-Replayed")).isEqualTo("false");
+        assertThat(replies.get(1).getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(replies.get(1).getContentAsByteArray()).isEqualTo(replies.get(0).getContentAsByteArray());
+        SettlementDTO replayed = cborConverter.getObjectMapper().readValue(replies.get(1).getContentAsByteArray(),
+                SettlementDTO.class);
+        assertThat(replayed)
+                .isEqualTo(objectMapper.readValue(replies.get(2).getContentAsByteArray(), SettlementDTO.class));
+        assertThat(replayed.amount()).isEqualByComparingTo("2.50");
+    }
+}
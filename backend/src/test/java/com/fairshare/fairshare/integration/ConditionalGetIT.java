@@ -0,0 +1,147 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.FxRateDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.Settlement;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.FxRateService;
+import com.fairshare.fairshare.service.GroupService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ConditionalGetIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    FxRateService fxRateService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private String etag(String path) throws Exception {
+        String etag = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn().getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+
+    private MvcResult poll(String path, String etag) throws Exception {
+        return mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+    }
+
+    /**
+     * a poll with the current ETag gets a 304 after a single statement, any
+     * write to the group makes the next poll a 200 with a new ETag
+     * 
+     * @throws Exception
+     */
+    @Test
+    void polls_getNotModifiedUntilGroupChanges() throws Exception {
+        long alice = user("Alice", "alice@example.com").getUserId();
+        long bob = user("Bob", "bob@example.com").getUserId();
+        Long groupId = groupService.createGroup("Flat", alice).id();
+        groupService.addMember(groupId, bob, Membership.Role.MEMBER);
+        expenseService.createExpense(groupId, alice, new BigDecimal("10.00"), Expense.CurrencyCode.CAD, "Milk",
+                Instant.now());
+
+        List<String> paths = List.of(
+                "/groups/" + groupId + "/balances",
+                "/groups/" + groupId + "/expenses?limit=10",
+                "/groups/" + groupId + "/members");
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String path : paths) {
+            String etag = etag(path);
+
+            stats.clear();
+            MvcResult notModified = poll(path, etag);
+            assertThat(notModified.getResponse().getStatus()).as(path).isEqualTo(304);
+            assertThat(notModified.getResponse().getContentLength()).isZero();
+            assertThat(stats.getPrepareStatementCount()).as(path).isEqualTo(1);
+        }
+
+        String balances = etag(paths.get(0));
+        String expenses = etag(paths.get(1));
+        String members = etag(paths.get(2));
+        expenseService.createSettlement(groupId, bob, alice, new BigDecimal("5.00"), Settlement.CurrencyCode.CAD);
+        assertThat(poll(paths.get(0), balances).getResponse().getStatus()).isEqualTo(200);
+        assertThat(poll(paths.get(1), expenses).getResponse().getStatus()).isEqualTo(200);
+        assertThat(poll(paths.get(2), members).getResponse().getStatus()).isEqualTo(200);
+
+        members = etag(paths.get(2));
+        groupService.addMember(groupId, user("Carol", "carol@example.com").getUserId(), Membership.Role.MEMBER);
+        MvcResult changed = poll(paths.get(2), members);
+        assertThat(changed.getResponse().getStatus()).isEqualTo(200);
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(members);
+        assertThat(changed.getResponse().getContentAsString()).contains("\"role\":\"MEMBER\"");
+
+        mockMvc.perform(get("/groups/" + Long.MAX_VALUE + "/balances").header(HttpHeaders.IF_NONE_MATCH, balances))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * converted balances also change with the exchange rates, which do not
+     * move the group's version
+     * 
+     * @throws Exception
+     */
+    @Test
+    void convertedBalances_changeWithRates() throws Exception {
+        long alice = user("Dana", "dana@example.com").getUserId();
+        Long groupId = groupService.createGroup("Trip", alice).id();
+        expenseService.createExpense(groupId, alice, new BigDecimal("10.00"), Expense.CurrencyCode.USD, "Taxi",
+                Instant.now());
+        fxRateService.loadRates(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.35"))));
+
+        String path = "/groups/" + groupId + "/balances?currency=CAD";
+        String etag = etag(path);
+        assertThat(poll(path, etag).getResponse().getStatus()).isEqualTo(304);
+
+        fxRateService.loadRates(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.40"))));
+        assertThat(poll(path, etag).getResponse().getStatus()).isEqualTo(200);
+        assertThat(etag(path)).isNotEqualTo(etag);
+    }
+}
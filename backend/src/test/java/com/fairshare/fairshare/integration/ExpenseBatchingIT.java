@@ -0,0 +1,104 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.nio.file.AccessDeniedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseBatcher;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest(properties = {
+        "fairshare.expenses.batching.enabled=true",
+        "fairshare.expenses.batching.max-size=8",
+        "fairshare.expenses.batching.max-wait=20ms" })
+@Testcontainers
+@ActiveProfiles("test")
+class ExpenseBatchingIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseBatcher expenseBatcher;
+    @Autowired
+    ExpenseRepository expenseRepository;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    /**
+     * concurrent requests for one group are committed in batches, each caller
+     * gets its own expense, a non-member only fails their own request, and
+     * the stored balances match the ledger
+     * 
+     * @throws Exception
+     */
+    @Test
+    void concurrentRequests_committedInBatches() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        long c = user("Carol", "carol@example.com").getUserId();
+        long outsider = user("Dave", "dave@example.com").getUserId();
+        Long groupId = groupService.createGroup("Festival", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        groupService.addMember(groupId, c, Membership.Role.MEMBER);
+
+        long[] payers = { a, b, c };
+        List<CompletableFuture<ExpenseDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            var request = new CreateExpenseRequest(payers[i % 3], new BigDecimal(i + 1 + ".01"), null,
+                    "Round " + i, null);
+            results.add(CompletableFuture.supplyAsync(() -> expenseBatcher.submit(groupId, request))
+                    .thenCompose(f -> f));
+        }
+        CompletableFuture<ExpenseDTO> rejected = expenseBatcher.submit(groupId,
+                new CreateExpenseRequest(outsider, new BigDecimal("9.99"), null, "Not mine", null));
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            ExpenseDTO dto = results.get(i).join();
+            assertThat(dto.description()).isEqualTo("Round " + i);
+            assertThat(dto.shares()).hasSize(3);
+            ids.add(dto.id());
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(AccessDeniedException.class);
+        assertThat(expenseRepository.findByGroup_GroupId(groupId)).hasSize(30);
+
+        Map<Long, BigDecimal> ledger = expenseService.ledgerBalances(groupId);
+        for (BalanceDTO balance : expenseService.getUserBalances(groupId)) {
+            assertThat(balance.balance()).isEqualByComparingTo(ledger.get(balance.userId()));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ExpenseExportIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private MockHttpServletResponse export(Long groupId) throws Exception {
+        return mockMvc.perform(get("/groups/" + groupId + "/expenses/export")).andReturn().getResponse();
+    }
+
+    /**
+     * the export holds every expense, oldest first, across several chunks,
+     * with the same content as the paged listing
+     * 
+     * @throws Exception
+     */
+    @Test
+    void export_streamsWholeHistory() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        Long groupId = groupService.createGroup("Archive", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+
+        // more rows than one export chunk, the last one with explicit shares
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1203; i++) {
+            ndjson.append("{\"payerId\":").append(i % 2 == 0 ? a : b)
+                    .append(",\"amount\":").append(1 + i % 50).append(".25")
+                    .append(",\"occurredAt\":\"").append(start.plus(i, ChronoUnit.HOURS)).append("\"}\n");
+        }
+        ndjson.append("{\"payerId\":").append(a).append(",\"amount\":9,\"occurredAt\":\"2025-01-01T00:00:00Z\",")
+                .append("\"shares\":[{\"participantId\":").append(b).append(",\"shareAmount\":9}]}\n");
+        expenseImportService.importExpenses(groupId, new StringReader(ndjson.toString()),
+                ExpenseImportService.Format.NDJSON, error -> {
+                    throw new AssertionError(error.toString());
+                });
+
+        var response = export(groupId);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith("application/json");
+        List<ExpenseDTO> exported = objectMapper.readValue(response.getContentAsByteArray(),
+                new TypeReference<List<ExpenseDTO>>() {
+                });
+        assertThat(exported).hasSize(1204);
+        assertThat(exported).isSortedAccordingTo((x, y) -> x.occurredAt().compareTo(y.occurredAt()));
+
+        // newest page of the listing, oldest first, matches the export's tail
+        List<ExpenseDTO> newest = new ArrayList<>(expenseService.listGroupExpenses(groupId, 50, null, null).items());
+        Collections.reverse(newest);
+        assertThat(exported.subList(1204 - 50, 1204)).isEqualTo(newest);
+        assertThat(exported.get(1203).shares()).hasSize(1);
+    }
+
+    /**
+     * an empty group exports an empty array, a missing one the usual 404
+     * 
+     * @throws Exception
+     */
+    @Test
+    void export_emptyAndMissingGroups() throws Exception {
+        long a = user("Cleo", "cleo@example.com").getUserId();
+        Long groupId = groupService.createGroup("Empty", a).id();
+
+        var empty = export(groupId);
+        assertThat(empty.getStatus()).isEqualTo(200);
+        assertThat(empty.getContentAsString()).isEqualTo("[]");
+
+        var missing = export(groupId + 1000);
+        assertThat(missing.getStatus()).isEqualTo(404);
+        assertThat(missing.getContentAsString()).contains("\"status\":404");
+    }
+}
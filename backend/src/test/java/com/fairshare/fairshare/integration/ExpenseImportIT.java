@@ -0,0 +1,131 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ImportErrorDTO;
+import com.fairshare.fairshare.dto.ImportSummaryDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class ExpenseImportIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private Map<Long, BigDecimal> balances(Long groupId) throws Exception {
+        return expenseService.getUserBalances(groupId).stream()
+                .collect(Collectors.toMap(BalanceDTO::userId, BalanceDTO::balance));
+    }
+
+    /**
+     * valid rows are copied in and counted in balances, bad rows are reported
+     * by line and skipped
+     *
+     * @throws Exception
+     */
+    @Test
+    void importsValidRows_andReportsBadOnes() throws Exception {
+        var alice = user("Alice", "alice@example.com");
+        var bob = user("Bob", "bob@example.com");
+        var mallory = user("Mallory", "mallory@example.com");
+        long a = alice.getUserId();
+        long b = bob.getUserId();
+
+        Long groupId = groupService.createGroup("Trip", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+
+        String ndjson = String.join("\n",
+                // equal split: Alice +20, Bob -20
+                "{\"payerId\":" + a + ",\"amount\":\"40.00\",\"description\":\"Hotel \\\"Inn\\\", night 1\","
+                        + "\"occurredAt\":\"2025-03-01T10:00:00Z\"}",
+                // explicit shares: Bob +9, Alice -9
+                "{\"payerId\":" + b + ",\"amount\":12,\"currency\":\"USD\",\"shares\":["
+                        + "{\"participantId\":" + a + ",\"shareAmount\":9},"
+                        + "{\"participantId\":" + b + ",\"shareAmount\":3}]}",
+                "",
+                "{\"payerId\":" + mallory.getUserId() + ",\"amount\":5}",
+                "{\"payerId\":" + a + ",\"amount\":",
+                "{\"payerId\":" + a + ",\"amount\":10,\"shares\":[{\"participantId\":" + b + ",\"shareAmount\":4}]}");
+
+        List<ImportErrorDTO> errors = new ArrayList<>();
+        ImportSummaryDTO summary = expenseImportService.importExpenses(groupId, new StringReader(ndjson),
+                ExpenseImportService.Format.NDJSON, errors::add);
+
+        assertThat(summary).isEqualTo(new ImportSummaryDTO(2, 3));
+        assertThat(errors).extracting(ImportErrorDTO::line).containsExactly(4L, 5L, 6L);
+        assertThat(errors.get(0).error()).isEqualTo("Payer is not a member of this group");
+        assertThat(errors.get(1).error()).startsWith("Malformed row");
+        assertThat(errors.get(2).error()).isEqualTo("Shares must add up to the expense amount");
+
+        String csv = String.join("\n",
+                "payerId,amount,currency,description,occurredAt,shares",
+                // Bob +6, Alice -6
+                b + ",6.00,CAD,\"Taxi, airport\",2025-03-02T08:00:00Z," + a + ":6",
+                a + ",1.00,XYZ,,,");
+
+        errors.clear();
+        summary = expenseImportService.importExpenses(groupId, new StringReader(csv),
+                ExpenseImportService.Format.CSV, errors::add);
+
+        assertThat(summary).isEqualTo(new ImportSummaryDTO(1, 1));
+        assertThat(errors).extracting(ImportErrorDTO::line).containsExactly(3L);
+
+        List<ExpenseDTO> items = expenseService.listGroupExpenses(groupId, 50, null, null).items();
+        assertThat(items).hasSize(3);
+        assertThat(items).extracting(ExpenseDTO::description)
+                .contains("Hotel \"Inn\", night 1", "Taxi, airport", null);
+        assertThat(items).filteredOn(e -> e.currency() == Expense.CurrencyCode.USD)
+                .singleElement()
+                .satisfies(e -> assertThat(e.shares()).hasSize(2));
+
+        Map<Long, BigDecimal> bal = balances(groupId);
+        assertThat(bal.get(a)).isEqualByComparingTo("5.00");
+        assertThat(bal.get(b)).isEqualByComparingTo("-5.00");
+
+        // ids handed out by the import do not clash with ids assigned through jpa
+        expenseService.createExpense(groupId, a, new BigDecimal("2.00"), null, "after import",
+                Instant.parse("2025-03-03T00:00:00Z"));
+        assertThat(expenseService.listGroupExpenses(groupId, 50, null, null).items()).hasSize(4);
+    }
+}
@@ -0,0 +1,91 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class ExpenseListingQueryCountIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    // creates a two member group with the given number of expenses
+    private Long groupWithExpenses(String suffix, int expenseCount) throws Exception {
+        var alice = user("Alice", "alice-" + suffix + "@example.com");
+        var bob = user("Bob", "bob-" + suffix + "@example.com");
+        Long groupId = groupService.createGroup("Group " + suffix, alice.getUserId()).id();
+        groupService.addMember(groupId, bob.getUserId(), Membership.Role.MEMBER);
+
+        for (int i = 0; i < expenseCount; i++) {
+            expenseService.createExpense(groupId, (i % 2 == 0 ? alice : bob).getUserId(),
+                    new BigDecimal("10.00"), Expense.CurrencyCode.CAD, "Expense " + i, Instant.now());
+        }
+        return groupId;
+    }
+
+    // number of JDBC statements prepared while listing the group's expenses
+    private long statementsToList(Long groupId) throws Exception {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        var expenses = expenseService.listGroupExpenses(groupId, 50, null, null).items();
+        assertThat(expenses).allSatisfy(e -> assertThat(e.shares()).hasSize(2));
+        return stats.getPrepareStatementCount();
+    }
+
+    /**
+     * listing expenses issues the same number of statements regardless of how
+     * many expenses the group has (no per-expense share query)
+     * 
+     * @throws Exception
+     */
+    @Test
+    void listGroupExpenses_statementCountIsConstant() throws Exception {
+        Long small = groupWithExpenses("small", 2);
+        Long large = groupWithExpenses("large", 40);
+
+        long smallCount = statementsToList(small);
+        long largeCount = statementsToList(large);
+
+        assertThat(expenseService.listGroupExpenses(large, 50, null, null).items()).hasSize(40);
+        assertThat(largeCount).isEqualTo(smallCount);
+        assertThat(largeCount).isLessThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,86 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class ExpensePaginationIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+
+    /**
+     * walking pages with before/after visits every expense exactly once, in
+     * (occurred_at, expense_id) order, including expenses with equal timestamps
+     * 
+     * @throws Exception
+     */
+    @Test
+    void listGroupExpenses_cursorsWalkWholeHistory() throws Exception {
+        var alice = new User();
+        alice.setUserName("Alice");
+        alice.setUserEmail("alice@example.com");
+        alice = userRepository.save(alice);
+        Long groupId = groupService.createGroup("Trip", alice.getUserId()).id();
+
+        // 7 expenses, pairs share a timestamp so ties are broken by id
+        for (int i = 0; i < 7; i++) {
+            expenseService.createExpense(groupId, alice.getUserId(), new BigDecimal("5.00"),
+                    Expense.CurrencyCode.CAD, "Expense " + i, Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i / 2));
+        }
+
+        // walk older pages with "before"
+        List<ExpenseDTO> seen = new ArrayList<>();
+        ExpensePageDTO page = expenseService.listGroupExpenses(groupId, 3, null, null);
+        assertThat(page.prevCursor()).isNull();
+        List<ExpensePageDTO> pages = new ArrayList<>(List.of(page));
+        seen.addAll(page.items());
+        while (page.nextCursor() != null) {
+            page = expenseService.listGroupExpenses(groupId, 3, page.nextCursor(), null);
+            pages.add(page);
+            seen.addAll(page.items());
+        }
+
+        assertThat(pages).hasSize(3);
+        assertThat(seen).extracting(ExpenseDTO::description)
+                .containsExactly("Expense 6", "Expense 5", "Expense 4", "Expense 3", "Expense 2", "Expense 1",
+                        "Expense 0");
+
+        // walking back with "after" from the last page returns the middle page
+        ExpensePageDTO back = expenseService.listGroupExpenses(groupId, 3, null, pages.get(2).prevCursor());
+        assertThat(back.items()).isEqualTo(pages.get(1).items());
+        assertThat(back.prevCursor()).isNotNull();
+
+        assertThatThrownBy(() -> expenseService.listGroupExpenses(groupId, 3, "not-a-cursor", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,256 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpenseFilter;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.ExpenseSearchRepositoryImpl;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ExpenseSearchIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private static ExpenseFilter filter(Instant from, Instant to, Long payerId, Long participantId,
+            String minAmount, String maxAmount, Expense.CurrencyCode currency, String q, boolean fuzzy) {
+        return new ExpenseFilter(from, to, payerId, participantId,
+                minAmount != null ? new BigDecimal(minAmount) : null,
+                maxAmount != null ? new BigDecimal(maxAmount) : null, currency, q, fuzzy);
+    }
+
+    private List<String> descriptions(Long groupId, ExpenseFilter filter) throws Exception {
+        return expenseService.listGroupExpenses(groupId, 50, null, null, filter).items().stream()
+                .map(ExpenseDTO::description).toList();
+    }
+
+    /**
+     * each filter narrows the listing to the expected expenses, newest first
+     * 
+     * @throws Exception
+     */
+    @Test
+    void filters_matchExpectedExpenses() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        long c = user("Carol", "carol@example.com").getUserId();
+        Long groupId = groupService.createGroup("Road trip", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+
+        String ndjson = String.join("\n",
+                "{\"payerId\":" + a + ",\"amount\":\"12.00\",\"description\":\"Tacos al pastor\","
+                        + "\"occurredAt\":\"2025-01-01T12:00:00Z\"}",
+                "{\"payerId\":" + b + ",\"amount\":\"80.00\",\"currency\":\"USD\",\"description\":\"Gas station\","
+                        + "\"occurredAt\":\"2025-01-02T12:00:00Z\"}",
+                // bob's share only: alice is not a participant
+                "{\"payerId\":" + a + ",\"amount\":\"30.00\",\"description\":\"Museum 100% fun_pass\","
+                        + "\"occurredAt\":\"2025-01-03T12:00:00Z\",\"shares\":[{\"participantId\":" + b
+                        + ",\"shareAmount\":\"30.00\"}]}",
+                "{\"payerId\":" + b + ",\"amount\":\"5.50\",\"description\":\"Taco truck\","
+                        + "\"occurredAt\":\"2025-01-04T12:00:00Z\"}");
+        expenseImportService.importExpenses(groupId, new StringReader(ndjson), ExpenseImportService.Format.NDJSON,
+                error -> {
+                    throw new AssertionError(error.toString());
+                });
+        // carol joins later, her snapshot covers only the expense after that
+        groupService.addMember(groupId, c, Membership.Role.MEMBER);
+        expenseService.createExpense(groupId, c, new BigDecimal("9.00"), null, "Parking",
+                Instant.parse("2025-01-05T12:00:00Z"));
+
+        assertThat(descriptions(groupId, filter(Instant.parse("2025-01-02T00:00:00Z"),
+                Instant.parse("2025-01-04T00:00:00Z"), null, null, null, null, null, null, false)))
+                .containsExactly("Museum 100% fun_pass", "Gas station");
+        assertThat(descriptions(groupId, filter(null, null, b, null, null, null, null, null, false)))
+                .containsExactly("Taco truck", "Gas station");
+        assertThat(descriptions(groupId, filter(null, null, null, a, null, null, null, null, false)))
+                .containsExactly("Parking", "Taco truck", "Gas station", "Tacos al pastor");
+        assertThat(descriptions(groupId, filter(null, null, null, c, null, null, null, null, false)))
+                .containsExactly("Parking");
+        assertThat(descriptions(groupId, filter(null, null, null, null, "9.00", "30.00", null, null, false)))
+                .containsExactly("Parking", "Museum 100% fun_pass", "Tacos al pastor");
+        assertThat(descriptions(groupId, filter(null, null, null, null, null, null, Expense.CurrencyCode.USD,
+                null, false))).containsExactly("Gas station");
+        assertThat(descriptions(groupId, filter(null, null, null, null, null, null, null, "taco", false)))
+                .containsExactly("Taco truck", "Tacos al pastor");
+        // like wildcards in the text are literal
+        assertThat(descriptions(groupId, filter(null, null, null, null, null, null, null, "0% fun_", false)))
+                .containsExactly("Museum 100% fun_pass");
+        assertThat(descriptions(groupId, filter(null, null, null, null, null, null, null, "_", false)))
+                .containsExactly("Museum 100% fun_pass");
+        // misspelt, still similar
+        assertThat(descriptions(groupId, filter(null, null, null, null, null, null, null, "musem", true)))
+                .containsExactly("Museum 100% fun_pass");
+
+        assertThatThrownBy(() -> descriptions(groupId, filter(null, null, null, null, "5", "1", null, null,
+                false))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> descriptions(groupId, filter(null, null, null, null, null, null, null, null,
+                true))).isInstanceOf(IllegalArgumentException.class);
+
+        // over http, paging with the filter repeated
+        String path = "/groups/" + groupId + "/expenses?limit=1&participantId=" + a;
+        ExpensePageDTO first = objectMapper.readValue(mockMvc.perform(get(path)).andReturn().getResponse()
+                .getContentAsByteArray(), ExpensePageDTO.class);
+        ExpensePageDTO second = objectMapper.readValue(mockMvc.perform(get(path + "&before=" + first.nextCursor()))
+                .andReturn().getResponse().getContentAsByteArray(), ExpensePageDTO.class);
+        ExpensePageDTO back = objectMapper.readValue(mockMvc.perform(get(path + "&after=" + second.prevCursor()))
+                .andReturn().getResponse().getContentAsByteArray(), ExpensePageDTO.class);
+        assertThat(first.items().get(0).description()).isEqualTo("Parking");
+        assertThat(second.items().get(0).description()).isEqualTo("Taco truck");
+        assertThat(back.items()).isEqualTo(first.items());
+    }
+
+    /**
+     * on a large fixture every combination of filters is planned with
+     * indexes, never a sequential scan of expenses or shares
+     * 
+     * @throws Exception
+     */
+    @Test
+    void everyFilterCombination_usesIndexes() throws Exception {
+        Long groupId = seedLargeFixture();
+        Long payerId = jdbcTemplate.queryForObject(
+                "select min(user_id) from membership where group_id = ?", Long.class, groupId);
+        Instant cursorAt = Instant.parse("2024-06-01T00:00:00Z");
+
+        int plans = 0;
+        // bits: from/to, payer, participant, amount, currency, description, fuzzy description
+        for (int mask = 1; mask < 1 << 7; mask++) {
+            if ((mask & 0b1100000) == 0b1100000) {
+                continue;
+            }
+            ExpenseFilter f = filter(
+                    (mask & 1) != 0 ? Instant.parse("2024-03-01T00:00:00Z") : null,
+                    (mask & 1) != 0 ? Instant.parse("2024-09-01T00:00:00Z") : null,
+                    (mask & 2) != 0 ? payerId : null,
+                    (mask & 4) != 0 ? payerId + 1 : null,
+                    (mask & 8) != 0 ? "10.00" : null,
+                    (mask & 8) != 0 ? "20.00" : null,
+                    (mask & 16) != 0 ? Expense.CurrencyCode.USD : null,
+                    (mask & 32) != 0 ? "coffee" : (mask & 64) != 0 ? "cofee" : null,
+                    (mask & 64) != 0);
+            for (int page = 0; page < 3; page++) {
+                var query = ExpenseSearchRepositoryImpl.query(groupId, f, page == 0 ? null : cursorAt,
+                        page == 0 ? null : Long.MAX_VALUE, page == 2, 51);
+                String plan = String.join("\n", jdbcTemplate.queryForList("explain " + query.sql(),
+                        String.class, query.args().toArray()));
+                assertThat(plan).as("mask %s page %s", Integer.toBinaryString(mask), page)
+                        .doesNotContain("Seq Scan on expenses")
+                        .doesNotContain("Seq Scan on expense_share");
+                plans++;
+            }
+        }
+        assertThat(plans).isEqualTo(3 * 95);
+    }
+
+    /*
+     * 200 groups of 10 members with 500 expenses each, one in ten with
+     * explicit shares, descriptions drawn from a small vocabulary
+     */
+    private Long seedLargeFixture() {
+        String run = String.valueOf(System.nanoTime());
+        List<Long> groupIds = new ArrayList<>();
+        for (int g = 0; g < 200; g++) {
+            groupIds.add(jdbcTemplate.queryForObject(
+                    "insert into groups (group_name) values (?) returning group_id", Long.class, "Large " + g));
+        }
+        jdbcTemplate.update("""
+                insert into users (user_name, user_email)
+                select 'Large ' || i, 'large' || i || '-' || ? || '@example.com' from generate_series(0, 1999) i
+                """, run);
+        jdbcTemplate.update("""
+                insert into membership (user_id, group_id)
+                select u.user_id, g.group_id
+                from (select user_id, row_number() over (order by user_id) - 1 as n from users
+                      where user_email like '%-' || ? || '@example.com') u
+                join (select group_id, row_number() over (order by group_id) - 1 as n from groups
+                      where group_name like 'Large %') g on u.n / 10 = g.n
+                """, run);
+        jdbcTemplate.update("""
+                insert into participant_set (group_id, member_ids, member_count, members_hash)
+                select m.group_id, array_agg(m.user_id order by m.user_id), count(*), decode(md5(m.group_id::text), 'hex')
+                from membership m join groups g on g.group_id = m.group_id
+                where g.group_name like 'Large %'
+                group by m.group_id
+                """);
+        jdbcTemplate.update("""
+                insert into expenses (payer_id, group_id, amount, currency, description, occurred_at,
+                                      split_mode, participant_set_id)
+                select ps.member_ids[1 + i % 10], ps.group_id, 1 + (i * 37 % 9900) / 100.0,
+                       case when i % 3 = 0 then 'USD' else 'CAD' end,
+                       (array['Coffee','Groceries','Taxi','Hotel','Dinner','Museum','Gas','Snacks'])[1 + i % 8]
+                           || ' ' || i,
+                       timestamptz '2024-01-01' + (i * interval '17 minutes'),
+                       case when i % 10 = 0 then 'SHARES' else 'EQUAL' end,
+                       case when i % 10 = 0 then null else ps.participant_set_id end
+                from participant_set ps
+                cross join generate_series(1, 500) i
+                where ps.group_id = any(?)
+                """, (Object) groupIds.toArray(Long[]::new));
+        jdbcTemplate.update("""
+                insert into expense_share (expense_id, participant_id, share_amount)
+                select e.expense_id, m.user_id, round(e.amount / 10, 2)
+                from expenses e
+                join membership m on m.group_id = e.group_id
+                where e.split_mode = 'SHARES' and e.group_id = any(?)
+                """, (Object) groupIds.toArray(Long[]::new));
+        jdbcTemplate.execute("analyze");
+
+        Map<String, Object> counts = jdbcTemplate.queryForMap(
+                "select (select count(*) from expenses) as expenses, (select count(*) from expense_share) as shares");
+        assertThat((Long) counts.get("expenses")).isGreaterThanOrEqualTo(100_000L);
+        return groupIds.get(100);
+    }
+}
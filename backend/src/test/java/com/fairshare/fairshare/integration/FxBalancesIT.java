@@ -0,0 +1,136 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.FxRateDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.FxRateService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest(properties = "fairshare.fx.refresh-interval=0s")
+@Testcontainers
+@ActiveProfiles("test")
+class FxBalancesIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    FxRateService fxRateService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private static List<BalanceDTO> balances(long a, String aliceBalance, long b, String bobBalance) {
+        return List.of(new BalanceDTO(a, new BigDecimal(aliceBalance)), new BalanceDTO(b, new BigDecimal(bobBalance)));
+    }
+
+    /**
+     * balances in one currency convert CAD and USD amounts with the loaded
+     * rates, and a rate load is picked up by the next read
+     * 
+     * @throws Exception
+     */
+    @Test
+    void balancesInCurrency_convertWithLoadedRates() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        Long groupId = groupService.createGroup("Road trip", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+
+        // alice pays 20 CAD, bob pays 10 USD, each split two ways
+        expenseService.createExpense(groupId, a, new BigDecimal("20.00"), Expense.CurrencyCode.CAD, "Gas",
+                Instant.parse("2025-03-01T12:00:00Z"));
+        expenseService.createExpense(groupId, b, new BigDecimal("10.00"), Expense.CurrencyCode.USD, "Toll",
+                Instant.parse("2025-03-02T12:00:00Z"));
+
+        assertThatThrownBy(() -> expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        fxRateService.loadRates(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.35"))));
+
+        // alice: 10 CAD - 5 USD
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isEqualTo(balances(a, "3.25", b, "-3.25"));
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.USD))
+                .isEqualTo(balances(a, "2.41", b, "-2.41"));
+        // only the CAD expense had happened by then
+        assertThat(expenseService.getUserBalances(groupId, Instant.parse("2025-03-01T23:00:00Z"),
+                Expense.CurrencyCode.USD)).isEqualTo(balances(a, "7.41", b, "-7.41"));
+
+        assertThat(fxRateService.loadRates(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.40")))))
+                .singleElement().satisfies(r -> {
+                    assertThat(r.baseCurrency()).isEqualTo("USD");
+                    assertThat(r.rate()).isEqualByComparingTo("1.40");
+                });
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isEqualTo(balances(a, "3.00", b, "-3.00"));
+
+        assertThatThrownBy(() -> fxRateService.loadRates(List.of(new FxRateDTO("EUR", "CAD", BigDecimal.ONE))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * a rate load committed by another instance is picked up once the rate
+     * table's version moves, and only then
+     * 
+     * @throws Exception
+     */
+    @Test
+    void ratesLoadedElsewhere_arePickedUpByVersion() throws Exception {
+        long a = user("Carol", "carol@example.com").getUserId();
+        long b = user("Dan", "dan@example.com").getUserId();
+        Long groupId = groupService.createGroup("Ski trip", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        expenseService.createExpense(groupId, b, new BigDecimal("10.00"), Expense.CurrencyCode.USD, "Lift",
+                Instant.parse("2025-03-02T12:00:00Z"));
+
+        fxRateService.loadRates(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.35"))));
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isEqualTo(balances(a, "-6.75", b, "6.75"));
+
+        // a row changed without a load is not seen, the version says nothing moved
+        jdbcTemplate.update("update fx_rate set rate = 1.50 where base_currency = 'USD' and quote_currency = 'CAD'");
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isEqualTo(balances(a, "-6.75", b, "6.75"));
+
+        // what another instance's load commits
+        jdbcTemplate.update("update fx_rate_version set version = version + 1");
+        assertThat(expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD))
+                .isEqualTo(balances(a, "-7.50", b, "7.50"));
+
+        // leave no rates behind for the other tests
+        jdbcTemplate.update("delete from fx_rate");
+        jdbcTemplate.update("update fx_rate_version set version = version + 1");
+    }
+}
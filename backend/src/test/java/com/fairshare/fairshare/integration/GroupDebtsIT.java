@@ -0,0 +1,105 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.DebtDTO;
+import com.fairshare.fairshare.dto.GroupDebtsDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.DebtService;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class GroupDebtsIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+    @Autowired
+    DebtService debtService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private static DebtDTO debt(long from, long to, String amount) {
+        return new DebtDTO(from, to, new BigDecimal(amount));
+    }
+
+    /**
+     * pairs come from who paid for whom, net against each other and against
+     * settlements, and agree with the group balances
+     * 
+     * @throws Exception
+     */
+    @Test
+    void pairsNetAndMatchBalances() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        long c = user("Carol", "carol@example.com").getUserId();
+        Long groupId = groupService.createGroup("Trip", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        groupService.addMember(groupId, c, Membership.Role.MEMBER);
+
+        // alice pays 30 three ways: bob and carol owe her 10 each
+        expenseService.createExpense(groupId, a, new BigDecimal("30.00"), null, "Hotel", null);
+        // bob pays 12 for alice alone, which nets against what he owes her
+        String row = "{\"payerId\":" + b + ",\"amount\":12,\"shares\":["
+                + "{\"participantId\":" + a + ",\"shareAmount\":12}]}";
+        expenseImportService.importExpenses(groupId, new StringReader(row), ExpenseImportService.Format.NDJSON,
+                error -> {
+                });
+        // carol settles 4 of her 10
+        expenseService.createSettlement(groupId, c, a, new BigDecimal("4.00"), null);
+        // carol pays 5 three ways, the left over cent goes to alice
+        expenseService.createExpense(groupId, c, new BigDecimal("5.00"), null, "Snacks", null);
+
+        GroupDebtsDTO dto = debtService.getDebts(groupId);
+
+        // alice -> bob: 12 - 10 = 2, carol -> alice: 10 - 4 - 1.67 = 4.33, bob -> carol: 1.67
+        assertThat(dto.groupId()).isEqualTo(groupId);
+        assertThat(dto.debts()).containsExactly(
+                debt(a, b, "2.00"),
+                debt(b, c, "1.67"),
+                debt(c, a, "4.33"));
+
+        Map<Long, BigDecimal> net = new HashMap<>();
+        for (DebtDTO d : dto.debts()) {
+            net.merge(d.toUserId(), d.amount(), BigDecimal::add);
+            net.merge(d.fromUserId(), d.amount().negate(), BigDecimal::add);
+        }
+        for (BalanceDTO balance : expenseService.getUserBalances(groupId)) {
+            assertThat(net.getOrDefault(balance.userId(), BigDecimal.ZERO))
+                    .isEqualByComparingTo(balance.balance());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.fairshare.fairshare.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.GroupDTO;
+import com.fairshare.fairshare.dto.GroupPageDTO;
+import com.fairshare.fairshare.dto.UserGroupDTO;
+import com.fairshare.fairshare.dto.UserGroupPageDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class GroupListingIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private <T> T read(String path, Class<T> type) throws Exception {
+        byte[] body = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn().getResponse()
+                .getContentAsByteArray();
+        return objectMapper.readValue(body, type);
+    }
+
+    /**
+     * a user's groups come with their member counts and the user's role,
+     * groups the user is not in are left out, and every page costs the same
+     * two statements however many members the groups have
+     *
+     * @throws Exception
+     */
+    @Test
+    void userGroups_listsOnlyTheUsersGroups() throws Exception {
+        long alice = user("Alice", "alice@listing.example.com").getUserId();
+        long bob = user("Bob", "bob@listing.example.com").getUserId();
+        long carol = user("Carol", "carol@listing.example.com").getUserId();
+
+        Long flat = groupService.createGroup("Flat", alice).id();
+        groupService.addMember(flat, bob, Membership.Role.MEMBER);
+        groupService.addMember(flat, carol, Membership.Role.MEMBER);
+        Long trip = groupService.createGroup("Trip", bob).id();
+        groupService.addMember(trip, alice, Membership.Role.MEMBER);
+        groupService.createGroup("Book club", carol);
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        UserGroupPageDTO first = read("/users/" + alice + "/groups?limit=1", UserGroupPageDTO.class);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(first.items()).singleElement().satisfies(g -> {
+            assertThat(g.id()).isEqualTo(flat);
+            assertThat(g.name()).isEqualTo("Flat");
+            assertThat(g.memberCount()).isEqualTo(3);
+            assertThat(g.role()).isEqualTo(Membership.Role.ADMIN);
+        });
+        assertThat(first.nextCursor()).isNotNull();
+
+        stats.clear();
+        UserGroupPageDTO second = read("/users/" + alice + "/groups?limit=1&after=" + first.nextCursor(),
+                UserGroupPageDTO.class);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(second.items()).singleElement().satisfies(g -> {
+            assertThat(g.id()).isEqualTo(trip);
+            assertThat(g.memberCount()).isEqualTo(2);
+            assertThat(g.role()).isEqualTo(Membership.Role.MEMBER);
+        });
+        assertThat(second.nextCursor()).isNull();
+
+        assertThat(read("/users/" + bob + "/groups", UserGroupPageDTO.class).items())
+                .extracting(UserGroupDTO::id).containsExactly(flat, trip);
+
+        mockMvc.perform(get("/users/" + (carol + 1000) + "/groups")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/" + alice + "/groups?limit=0")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * walking GET /groups page by page returns every group once, in id
+     * order, and the last page has no cursor
+     *
+     * @throws Exception
+     */
+    @Test
+    void groups_pagedByKeyset() throws Exception {
+        long dave = user("Dave", "dave@listing.example.com").getUserId();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(groupService.createGroup("Group " + i, dave).id());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String after = null;
+        do {
+            GroupPageDTO page = read("/groups?limit=2" + (after != null ? "&after=" + after : ""),
+                    GroupPageDTO.class);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(2);
+            page.items().stream().map(GroupDTO::id).forEach(seen::add);
+            after = page.nextCursor();
+        } while (after != null);
+
+        assertThat(seen).isSorted().doesNotHaveDuplicates().containsAll(created);
+
+        mockMvc.perform(get("/groups?limit=201")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/groups?after=abc")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,141 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class GroupVersionIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private long version(Long groupId) throws Exception {
+        return groupService.getGroupById(groupId).version();
+    }
+
+    /**
+     * every kind of write moves the group's version on by one, a rebuild only
+     * when it rewrites drifted balances
+     * 
+     * @throws Exception
+     */
+    @Test
+    void everyWriteBumpsVersion() throws Exception {
+        long a = user("Alice", "alice@example.com").getUserId();
+        long b = user("Bob", "bob@example.com").getUserId();
+        long c = user("Carol", "carol@example.com").getUserId();
+        Long groupId = groupService.createGroup("Cottage", a).id();
+        assertThat(version(groupId)).isZero();
+
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        groupService.addMember(groupId, c, Membership.Role.MEMBER);
+        assertThat(version(groupId)).isEqualTo(2);
+
+        expenseService.createExpense(groupId, a, new BigDecimal("30.00"), null, "Firewood", null);
+        expenseService.createSettlement(groupId, b, a, new BigDecimal("10.00"), null);
+        expenseImportService.importExpenses(groupId, new StringReader("{\"payerId\":" + b + ",\"amount\":6}"),
+                ExpenseImportService.Format.NDJSON, error -> {
+                });
+        groupService.removeMember(a, c, groupId);
+        assertThat(version(groupId)).isEqualTo(6);
+
+        // nothing drifted, nothing rewritten
+        assertThat(expenseService.rebuildBalances(groupId)).isFalse();
+        assertThat(version(groupId)).isEqualTo(6);
+
+        jdbcTemplate.update("update member_balance set balance = balance + 1 where group_id = ? and user_id = ?",
+                groupId, a);
+        assertThat(expenseService.rebuildBalances(groupId)).isTrue();
+        assertThat(version(groupId)).isEqualTo(7);
+        assertThat(groupService.listGroups(1, String.valueOf(groupId - 1)).items()).singleElement().satisfies(g -> {
+            assertThat(g.id()).isEqualTo(groupId);
+            assertThat(g.version()).isEqualTo(7);
+        });
+    }
+
+    /**
+     * rebuilds racing with expense writes never overwrite them: every write
+     * lands in the balances and the version counts each write once. A rebuild
+     * may give up after too many conflicts, never silently drop a write
+     * 
+     * @throws Exception
+     */
+    @Test
+    void rebuildRacingWrites_losesNothing() throws Exception {
+        long a = user("Dana", "dana@example.com").getUserId();
+        long b = user("Eli", "eli@example.com").getUserId();
+        Long groupId = groupService.createGroup("Racing", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        long before = version(groupId);
+
+        List<CompletableFuture<?>> work = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long payer = i % 2 == 0 ? a : b;
+            work.add(CompletableFuture.runAsync(() -> {
+                try {
+                    expenseService.createExpense(groupId, payer, new BigDecimal("3.00"), null, "Round", null);
+                    // drift the stored balances so the rebuild has to rewrite
+                    jdbcTemplate.update("update member_balance set balance = balance + 0.01 where group_id = ?",
+                            groupId);
+                    try {
+                        expenseService.rebuildBalances(groupId);
+                    } catch (OptimisticLockingFailureException giveUp) {
+                        // out of attempts under this much contention, the next rebuild catches up
+                    }
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }));
+        }
+        CompletableFuture.allOf(work.toArray(CompletableFuture[]::new)).join();
+        expenseService.rebuildBalances(groupId);
+
+        // ten 3.00 expenses each, split two ways: everyone is even
+        for (BalanceDTO balance : expenseService.getUserBalances(groupId)) {
+            assertThat(balance.balance()).isEqualByComparingTo("0");
+        }
+        assertThat(version(groupId)).isGreaterThanOrEqualTo(before + 20);
+    }
+}
@@ -0,0 +1,111 @@
+package com.fairshare.fairshare.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.SettlementRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.GroupService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class IdempotentCreateIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ExpenseRepository expenseRepository;
+    @Autowired
+    SettlementRepository settlementRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private MockHttpServletResponse send(String path, String key, String body) throws Exception {
+        return mockMvc.perform(post(path)
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andReturn().getResponse();
+    }
+
+    /**
+     * retries with the same key create one row and get the first response
+     * back unchanged; reusing the key for another body is rejected
+     * 
+     * @throws Exception
+     */
+    @Test
+    void retriesWithSameKey_createOnce_andReplayResponse() throws Exception {
+        var alice = user("Alice", "alice@example.com");
+        var bob = user("Bob", "bob@example.com");
+        Long groupId = groupService.createGroup("Flat", alice.getUserId()).id();
+        groupService.addMember(groupId, bob.getUserId(), Membership.Role.MEMBER);
+
+        String expensePath = "/groups/" + groupId + "/expenses";
+        String expense = "{\"payerId\":" + alice.getUserId() + ",\"amount\":20.00,\"description\":\"Rent\"}";
+
+        var first = send(expensePath, "exp-1", expense);
+        var retry = send(expensePath, "exp-1", expense);
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(retry.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+        assertThat(expenseRepository.findByGroup_GroupId(groupId)).hasSize(1);
+
+        // same key, different request
+        var reused = send(expensePath, "exp-1",
+                "{\"payerId\":" + alice.getUserId() + ",\"amount\":21.00,\"description\":\"Rent\"}");
+        assertThat(reused.getStatus()).isEqualTo(400);
+
+        String settlementPath = "/groups/" + groupId + "/settlements";
+        String settlement = "{\"payerId\":" + bob.getUserId() + ",\"payeeId\":" + alice.getUserId()
+                + ",\"amount\":10.00}";
+
+        var paid = send(settlementPath, "set-1", settlement);
+        // a hot retry is answered from memory, without a connection
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        var paidAgain = send(settlementPath, "set-1", settlement);
+        assertThat(stats.getConnectCount()).isZero();
+        assertThat(stats.getPrepareStatementCount()).isZero();
+
+        assertThat(paid.getStatus()).isEqualTo(201);
+        assertThat(paidAgain.getContentAsByteArray()).isEqualTo(paid.getContentAsByteArray());
+        assertThat(settlementRepository.findAll()).hasSize(1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ShareDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.ExpenseShareRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class ImplicitEqualSplitIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ExpenseRepository expenseRepository;
+    @Autowired
+    ExpenseShareRepository expenseShareRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private Map<Long, BigDecimal> balances(Long groupId) throws Exception {
+        return expenseService.getUserBalances(groupId).stream()
+                .collect(Collectors.toMap(BalanceDTO::userId, BalanceDTO::balance));
+    }
+
+    private ExpenseDTO listed(Long groupId, Long expenseId) throws Exception {
+        return expenseService.listGroupExpenses(groupId, 50, null, null).items().stream()
+                .filter(e -> e.id().equals(expenseId)).findFirst().orElseThrow();
+    }
+
+    /**
+     * equal splits write no share rows, expand to the members at the time of
+     * the expense, and sit alongside expenses with explicit share rows
+     * 
+     * @throws Exception
+     */
+    @Test
+    void equalSplit_storesSnapshot_andExpandsOnRead() throws Exception {
+        var alice = user("Alice", "alice@example.com");
+        var bob = user("Bob", "bob@example.com");
+        var carol = user("Carol", "carol@example.com");
+        Long groupId = groupService.createGroup("House", alice.getUserId()).id();
+        groupService.addMember(groupId, bob.getUserId(), Membership.Role.MEMBER);
+
+        // two expenses with the same members share one snapshot
+        var first = expenseService.createExpense(groupId, alice.getUserId(), new BigDecimal("10.00"),
+                Expense.CurrencyCode.CAD, "Milk", Instant.parse("2025-01-01T00:00:00Z"));
+        var second = expenseService.createExpense(groupId, bob.getUserId(), new BigDecimal("4.00"),
+                Expense.CurrencyCode.CAD, "Bread", Instant.parse("2025-01-02T00:00:00Z"));
+
+        groupService.addMember(groupId, carol.getUserId(), Membership.Role.MEMBER);
+        var third = expenseService.createExpense(groupId, carol.getUserId(), new BigDecimal("9.00"),
+                Expense.CurrencyCode.CAD, "Eggs", Instant.parse("2025-01-03T00:00:00Z"));
+
+        var e1 = expenseRepository.findById(first.id()).orElseThrow();
+        var e2 = expenseRepository.findById(second.id()).orElseThrow();
+        var e3 = expenseRepository.findById(third.id()).orElseThrow();
+        assertThat(e1.getSplitMode()).isEqualTo(Expense.SplitMode.EQUAL);
+        assertThat(e2.getParticipantSetId()).isEqualTo(e1.getParticipantSetId());
+        assertThat(e3.getParticipantSetId()).isNotEqualTo(e1.getParticipantSetId());
+        assertThat(expenseShareRepository.findByExpense_Group_GroupId(groupId)).isEmpty();
+
+        // carol joined later and is not part of the first expense
+        assertThat(listed(groupId, first.id()).shares()).extracting(ShareDTO::participantId)
+                .containsExactly(alice.getUserId(), bob.getUserId());
+        assertThat(listed(groupId, third.id()).shares()).hasSize(3)
+                .allSatisfy(s -> assertThat(s.shareAmount()).isEqualByComparingTo("3.00"));
+
+        // an explicit split still goes to expense_share
+        String row = "{\"payerId\":" + alice.getUserId() + ",\"amount\":6,\"shares\":[{\"participantId\":"
+                + carol.getUserId() + ",\"shareAmount\":6}]}";
+        var errors = new ArrayList<>();
+        var summary = expenseImportService.importExpenses(groupId, new StringReader(row),
+                ExpenseImportService.Format.NDJSON, errors::add);
+        assertThat(summary.imported()).isEqualTo(1);
+        assertThat(expenseShareRepository.findByExpense_Group_GroupId(groupId)).hasSize(1);
+
+        var items = expenseService.listGroupExpenses(groupId, 50, null, null).items();
+        assertThat(items).hasSize(4);
+        assertThat(items.get(0).shares()).singleElement()
+                .satisfies(s -> assertThat(s.participantId()).isEqualTo(carol.getUserId()));
+
+        // alice +10 -5 -2 -3 +6 = 6, bob -5 +4 -2 -3 = -6, carol -3 +9 -6 = 0
+        Map<Long, BigDecimal> live = balances(groupId);
+        assertThat(live.get(alice.getUserId())).isEqualByComparingTo("6.00");
+        assertThat(live.get(bob.getUserId())).isEqualByComparingTo("-6.00");
+        assertThat(live.get(carol.getUserId())).isEqualByComparingTo("0.00");
+
+        // a rebuild from history expands the snapshots the same way
+        expenseService.rebuildBalances(groupId);
+        assertThat(balances(groupId)).isEqualTo(live);
+    }
+
+    /**
+     * amounts that do not divide evenly hand the left over cents to the lowest
+     * user ids, the same way on create, import, listing and rebuild, so the
+     * group nets to exactly zero
+     * 
+     * @throws Exception
+     */
+    @Test
+    void unevenAmounts_handOutEveryCent() throws Exception {
+        var alice = user("Alice", "alice2@example.com");
+        var bob = user("Bob", "bob2@example.com");
+        var carol = user("Carol", "carol2@example.com");
+        Long groupId = groupService.createGroup("Flat", alice.getUserId()).id();
+        groupService.addMember(groupId, bob.getUserId(), Membership.Role.MEMBER);
+        groupService.addMember(groupId, carol.getUserId(), Membership.Role.MEMBER);
+
+        var taxi = expenseService.createExpense(groupId, alice.getUserId(), new BigDecimal("10.00"),
+                Expense.CurrencyCode.CAD, "Taxi", Instant.parse("2025-02-01T00:00:00Z"));
+        assertThat(taxi.shares()).extracting(ShareDTO::shareAmount)
+                .containsExactly(new BigDecimal("3.34"), new BigDecimal("3.33"), new BigDecimal("3.33"));
+        assertThat(listed(groupId, taxi.id()).shares()).isEqualTo(taxi.shares());
+
+        String rows = "{\"payerId\":" + bob.getUserId() + ",\"amount\":\"20.00\"}\n"
+                + "{\"payerId\":" + carol.getUserId() + ",\"amount\":\"0.01\"}";
+        var summary = expenseImportService.importExpenses(groupId, new StringReader(rows),
+                ExpenseImportService.Format.NDJSON, error -> {
+                });
+        assertThat(summary.imported()).isEqualTo(2);
+
+        // alice +10 -3.34 -6.67 -0.01, bob -3.33 +20 -6.67, carol -3.33 -6.66 +0.01
+        Map<Long, BigDecimal> live = balances(groupId);
+        assertThat(live.get(alice.getUserId())).isEqualByComparingTo("-0.02");
+        assertThat(live.get(bob.getUserId())).isEqualByComparingTo("10.00");
+        assertThat(live.get(carol.getUserId())).isEqualByComparingTo("-9.98");
+
+        // the balance queries expand the snapshots the same way
+        assertThat(expenseService.ledgerBalances(groupId)).allSatisfy(
+                (userId, balance) -> assertThat(balance).isEqualByComparingTo(live.get(userId)));
+        assertThat(expenseService.rebuildBalances(groupId)).isFalse();
+    }
+}
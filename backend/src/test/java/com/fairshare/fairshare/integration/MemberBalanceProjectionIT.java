@@ -0,0 +1,99 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.Settlement;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class MemberBalanceProjectionIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    MemberBalanceRepository memberBalanceRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private Map<Long, BigDecimal> balances(Long groupId) throws Exception {
+        return expenseService.getUserBalances(groupId).stream()
+                .collect(Collectors.toMap(BalanceDTO::userId, BalanceDTO::balance));
+    }
+
+    /**
+     * balances are kept up to date by writes and match a rebuild from history
+     * 
+     * @throws Exception
+     */
+    @Test
+    void writesMaintainProjection_andRebuildMatches() throws Exception {
+        var alice = user("Alice", "alice@example.com");
+        var bob = user("Bob", "bob@example.com");
+        var carol = user("Carol", "carol@example.com");
+
+        Long groupId = groupService.createGroup("Cabin", alice.getUserId()).id();
+        groupService.addMember(groupId, bob.getUserId(), Membership.Role.MEMBER);
+        groupService.addMember(groupId, carol.getUserId(), Membership.Role.MEMBER);
+
+        // new members start at zero
+        assertThat(balances(groupId)).hasSize(3).allSatisfy((id, b) -> assertThat(b).isEqualByComparingTo("0"));
+
+        // Alice pays 90 -> +60, Bob -30, Carol -30
+        expenseService.createExpense(groupId, alice.getUserId(), new BigDecimal("90.00"),
+                Expense.CurrencyCode.CAD, "Groceries", Instant.parse("2025-01-01T00:00:00Z"));
+        // Bob settles with Alice
+        expenseService.createSettlement(groupId, bob.getUserId(), alice.getUserId(),
+                new BigDecimal("30.00"), Settlement.CurrencyCode.CAD);
+
+        Map<Long, BigDecimal> live = balances(groupId);
+        assertThat(live.get(alice.getUserId())).isEqualByComparingTo("30.00");
+        assertThat(live.get(bob.getUserId())).isEqualByComparingTo("0.00");
+        assertThat(live.get(carol.getUserId())).isEqualByComparingTo("-30.00");
+
+        // wipe the projection and recompute it from the raw ledger
+        memberBalanceRepository.deleteAll(memberBalanceRepository.findByGroupId(groupId));
+        assertThat(expenseService.getUserBalances(groupId)).isEmpty();
+
+        assertThat(expenseService.rebuildBalances(groupId)).isTrue();
+        // nothing left to repair
+        assertThat(expenseService.rebuildBalances(groupId)).isFalse();
+
+        List<BalanceDTO> rebuilt = expenseService.getUserBalances(groupId);
+        assertThat(rebuilt).hasSize(3);
+        assertThat(balances(groupId)).isEqualTo(live);
+    }
+}
@@ -0,0 +1,137 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.MembershipDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupResponseCache;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ResponseCacheIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    GroupResponseCache responseCache;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private MockHttpServletResponse fetch(String path, String acceptEncoding) throws Exception {
+        var request = get(path);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        var response = mockMvc.perform(request).andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws Exception {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * balances and members are serialized once per group version, sent
+     * gzipped to clients that accept it, and read again after a write
+     * 
+     * @throws Exception
+     */
+    @Test
+    void hotReads_areServedFromCacheUntilGroupChanges() throws Exception {
+        long alice = user("Alice", "alice@example.com").getUserId();
+        Long groupId = groupService.createGroup("Club", alice).id();
+        for (int i = 0; i < 30; i++) {
+            groupService.addMember(groupId, user("Member " + i, "member" + i + "@example.com").getUserId(),
+                    Membership.Role.MEMBER);
+        }
+        expenseService.createExpense(groupId, alice, new BigDecimal("31.00"), Expense.CurrencyCode.CAD, "Hall",
+                Instant.now());
+        String balancesPath = "/groups/" + groupId + "/balances";
+        String membersPath = "/groups/" + groupId + "/members";
+
+        long misses = responseCache.missCount();
+        var plain = fetch(membersPath, null);
+        var gzipped = fetch(membersPath, "gzip, deflate");
+        assertThat(responseCache.missCount()).isEqualTo(misses + 1);
+
+        assertThat(plain.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gunzip(gzipped.getContentAsByteArray())).isEqualTo(plain.getContentAsByteArray());
+        // the gzipped bytes carry a tag of their own, which a plain request
+        // does not revalidate against
+        String gzipTag = gzipped.getHeader(HttpHeaders.ETAG);
+        assertThat(gzipTag).isEqualTo(plain.getHeader(HttpHeaders.ETAG).replaceFirst("\"$", "-gzip\""));
+        assertThat(mockMvc.perform(get(membersPath).header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andReturn().getResponse().getStatus()).isEqualTo(200);
+        assertThat(mockMvc.perform(get(membersPath).header(HttpHeaders.IF_NONE_MATCH, gzipTag)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andReturn().getResponse().getStatus()).isEqualTo(304);
+        List<MembershipDTO> members = objectMapper.readValue(plain.getContentAsByteArray(),
+                new TypeReference<List<MembershipDTO>>() {
+                });
+        assertThat(members).isEqualTo(groupService.listAllMembers(groupId));
+        assertThat(fetch(membersPath, "gzip;q=0").getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+
+        List<BalanceDTO> before = objectMapper.readValue(fetch(balancesPath, null).getContentAsByteArray(),
+                new TypeReference<List<BalanceDTO>>() {
+                });
+        assertThat(before).isEqualTo(expenseService.getUserBalances(groupId));
+        fetch(balancesPath, null);
+        assertThat(responseCache.missCount()).isEqualTo(misses + 2);
+
+        expenseService.createExpense(groupId, alice, new BigDecimal("62.00"), Expense.CurrencyCode.CAD, "Band",
+                Instant.now());
+        List<BalanceDTO> after = objectMapper.readValue(fetch(balancesPath, null).getContentAsByteArray(),
+                new TypeReference<List<BalanceDTO>>() {
+                });
+        assertThat(after).isEqualTo(expenseService.getUserBalances(groupId)).isNotEqualTo(before);
+        assertThat(responseCache.missCount()).isEqualTo(misses + 3);
+    }
+}
@@ -0,0 +1,176 @@
+package com.fairshare.fairshare.integration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.CreateSettlementRequest;
+import com.fairshare.fairshare.dto.SettleUpPlanDTO;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.SettlementRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class SettleUpBatchIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    SettlementRepository settlementRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private MockHttpServletResponse send(Long groupId, Object body) throws Exception {
+        return send(groupId, body, null);
+    }
+
+    private MockHttpServletResponse send(Long groupId, Object body, String ifMatch) throws Exception {
+        var request = post("/groups/" + groupId + "/settlements/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(body));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private List<CreateSettlementRequest> transfers(SettleUpPlanDTO plan) {
+        return plan.transfers().stream()
+                .map(t -> new CreateSettlementRequest(t.fromUserId(), t.toUserId(), t.amount(), null))
+                .toList();
+    }
+
+    /**
+     * the whole settle-up plan of a large group goes in as one request and
+     * leaves everyone even
+     * 
+     * @throws Exception
+     */
+    @Test
+    void settleUpPlan_inOneRequest_clearsGroup() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ids.add(user("User " + i, "settle" + i + "@example.com").getUserId());
+        }
+        Long groupId = groupService.createGroup("Festival", ids.get(0)).id();
+        for (Long id : ids.subList(1, ids.size())) {
+            groupService.addMember(groupId, id, Membership.Role.MEMBER);
+        }
+        for (int i = 0; i < ids.size(); i += 3) {
+            expenseService.createExpense(groupId, ids.get(i), new BigDecimal(17 + i + ".33"), null, "Round", null);
+        }
+
+        SettleUpPlanDTO plan = expenseService.getSettleUpPlan(groupId);
+        assertThat(plan.transfers()).hasSizeGreaterThan(30);
+        List<CreateSettlementRequest> body = transfers(plan);
+        long before = settlementRepository.count();
+
+        var response = send(groupId, body);
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(objectMapper.readTree(response.getContentAsByteArray()).size()).isEqualTo(body.size());
+        assertThat(settlementRepository.count()).isEqualTo(before + body.size());
+        for (BalanceDTO balance : expenseService.getUserBalances(groupId)) {
+            assertThat(balance.balance()).isEqualByComparingTo("0");
+        }
+    }
+
+    /**
+     * a plan sent back with the ETag it came with is refused once the group
+     * changed, and recorded when it is current
+     * 
+     * @throws Exception
+     */
+    @Test
+    void stalePlan_isRefused() throws Exception {
+        long a = user("Amy", "amy@example.com").getUserId();
+        long b = user("Bo", "bo@example.com").getUserId();
+        Long groupId = groupService.createGroup("Stale", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        expenseService.createExpense(groupId, a, new BigDecimal("20.00"), null, "Taxi", null);
+        String planPath = "/groups/" + groupId + "/settle-up-plan";
+
+        var read = mockMvc.perform(get(planPath)).andReturn().getResponse();
+        String tag = read.getHeader(HttpHeaders.ETAG);
+        List<CreateSettlementRequest> stale = transfers(
+                objectMapper.readValue(read.getContentAsByteArray(), SettleUpPlanDTO.class));
+        expenseService.createExpense(groupId, a, new BigDecimal("8.00"), null, "Snacks", null);
+        long before = settlementRepository.count();
+
+        assertThat(send(groupId, stale, tag).getStatus()).isEqualTo(409);
+        assertThat(settlementRepository.count()).isEqualTo(before);
+        assertThat(send(groupId, stale, "not-a-tag").getStatus()).isEqualTo(400);
+
+        read = mockMvc.perform(get(planPath)).andReturn().getResponse();
+        var response = send(groupId, transfers(objectMapper.readValue(read.getContentAsByteArray(),
+                SettleUpPlanDTO.class)), read.getHeader(HttpHeaders.ETAG));
+        assertThat(response.getStatus()).isEqualTo(201);
+        for (BalanceDTO balance : expenseService.getUserBalances(groupId)) {
+            assertThat(balance.balance()).isEqualByComparingTo("0");
+        }
+    }
+
+    /**
+     * one transfer involving an outsider rejects the whole batch
+     * 
+     * @throws Exception
+     */
+    @Test
+    void batchWithNonMember_recordsNothing() throws Exception {
+        long a = user("Ann", "ann@example.com").getUserId();
+        long b = user("Ben", "ben@example.com").getUserId();
+        long outsider = user("Oz", "oz@example.com").getUserId();
+        Long groupId = groupService.createGroup("Small", a).id();
+        groupService.addMember(groupId, b, Membership.Role.MEMBER);
+        long before = settlementRepository.count();
+
+        var response = send(groupId, List.of(
+                new CreateSettlementRequest(b, a, new BigDecimal("5.00"), null),
+                new CreateSettlementRequest(outsider, a, new BigDecimal("5.00"), null)));
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(settlementRepository.count()).isEqualTo(before);
+        assertThat(send(groupId, List.of(new CreateSettlementRequest(b, a, new BigDecimal("-1"), null)))
+                .getStatus()).isEqualTo(400);
+    }
+}
@@ -0,0 +1,122 @@
+package com.fairshare.fairshare.integration;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fairshare.fairshare.dto.CurrencyAmountDTO;
+import com.fairshare.fairshare.dto.GroupNetBalanceDTO;
+import com.fairshare.fairshare.dto.UserBalancesDTO;
+import com.fairshare.fairshare.entity.Expense;
+import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.Settlement;
+import com.fairshare.fairshare.entity.User;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.ExpenseImportService;
+import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.GroupService;
+import com.fairshare.fairshare.service.UserBalanceService;
+
+// one group per query so the user's groups are aggregated in parallel batches
+@SpringBootTest(properties = "fairshare.user-balances.groups-per-query=1")
+@Testcontainers
+@ActiveProfiles("test")
+class UserBalancesIT {
+
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    GroupService groupService;
+    @Autowired
+    ExpenseService expenseService;
+    @Autowired
+    ExpenseImportService expenseImportService;
+    @Autowired
+    UserBalanceService userBalanceService;
+
+    private User user(String name, String email) {
+        var u = new User();
+        u.setUserName(name);
+        u.setUserEmail(email);
+        return userRepository.save(u);
+    }
+
+    private static CurrencyAmountDTO amount(String currency, String amount) {
+        return new CurrencyAmountDTO(currency, new BigDecimal(amount));
+    }
+
+    /**
+     * a user's net position in every group matches the group's own balances,
+     * per currency, and adds up to the overall totals
+     * 
+     * @throws Exception
+     */
+    @Test
+    void netsEveryGroupPerCurrency() throws Exception {
+        var alice = user("Alice", "alice@example.com");
+        var bob = user("Bob", "bob@example.com");
+        var carol = user("Carol", "carol@example.com");
+        long a = alice.getUserId();
+        long b = bob.getUserId();
+        long c = carol.getUserId();
+
+        Long trip = groupService.createGroup("Trip", a).id();
+        groupService.addMember(trip, b, Membership.Role.MEMBER);
+        groupService.addMember(trip, c, Membership.Role.MEMBER);
+        Long flat = groupService.createGroup("Flat", b).id();
+        groupService.addMember(flat, a, Membership.Role.MEMBER);
+        Long empty = groupService.createGroup("Quiet", a).id();
+        // alice is not in this one
+        Long other = groupService.createGroup("Other", c).id();
+
+        // trip: alice pays 10.00 CAD three ways (she owes the extra cent) and
+        // 30 USD explicitly split with bob, then bob settles 5 CAD
+        expenseService.createExpense(trip, a, new BigDecimal("10.00"), Expense.CurrencyCode.CAD, "Taxi", null);
+        String row = "{\"payerId\":" + a + ",\"amount\":30,\"currency\":\"USD\",\"shares\":["
+                + "{\"participantId\":" + a + ",\"shareAmount\":10},"
+                + "{\"participantId\":" + b + ",\"shareAmount\":20}]}";
+        expenseImportService.importExpenses(trip, new StringReader(row), ExpenseImportService.Format.NDJSON,
+                error -> {
+                });
+        expenseService.createSettlement(trip, b, a, new BigDecimal("5.00"), Settlement.CurrencyCode.CAD);
+
+        // flat: bob pays 8.00 CAD two ways, alice settles 4 EUR
+        expenseService.createExpense(flat, b, new BigDecimal("8.00"), Expense.CurrencyCode.CAD, "Rent", null);
+        expenseService.createSettlement(flat, a, b, new BigDecimal("4.00"), Settlement.CurrencyCode.EUR);
+
+        expenseService.createExpense(other, c, new BigDecimal("99.00"), Expense.CurrencyCode.CAD, "Else", null);
+
+        UserBalancesDTO dto = userBalanceService.getUserBalances(a);
+
+        // trip CAD: +10 - 3.34 - 5 = 1.66, USD: +30 - 10 = 20
+        // flat CAD: -4, EUR: +4
+        assertThat(dto.groups()).containsExactly(
+                new GroupNetBalanceDTO(trip, List.of(amount("CAD", "1.66"), amount("USD", "20.00"))),
+                new GroupNetBalanceDTO(flat, List.of(amount("CAD", "-4.00"), amount("EUR", "4.00"))),
+                new GroupNetBalanceDTO(empty, List.of()));
+        assertThat(dto.totals()).containsExactly(
+                amount("CAD", "-2.34"), amount("EUR", "4.00"), amount("USD", "20.00"));
+
+        // the group projection nets all currencies together
+        var tripBalance = expenseService.getUserBalances(trip).stream()
+                .filter(bal -> bal.userId().equals(a)).findFirst().orElseThrow();
+        assertThat(tripBalance.balance()).isEqualByComparingTo("21.66");
+
+        assertThatThrownBy(() -> userBalanceService.getUserBalances(Long.MAX_VALUE))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.fairshare.fairshare.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fairshare.fairshare.service.DebtMatrix;
+
+public class DebtMatrixTest {
+
+    /* ==== helper functions ==== */
+    // collects the non-zero debts as "from->to" keys
+    private static Map<String, Long> debts(DebtMatrix matrix) {
+        Map<String, Long> out = new HashMap<>();
+        matrix.forEachDebt((from, to, cents) -> {
+            assertTrue(cents > 0, "Debts should be reported in positive cents");
+            out.put(from + "->" + to, cents);
+        });
+        return out;
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test debts in opposite directions net against each other and pairs that
+     * cancel out are left out
+     */
+    @Test
+    void add_netsOppositeDirections() {
+        DebtMatrix matrix = new DebtMatrix();
+        matrix.add(2, 1, 1200);
+        matrix.add(1, 2, 200);
+        matrix.add(3, 1, 500);
+        matrix.add(1, 3, 800);
+        matrix.add(4, 5, 100);
+        matrix.add(5, 4, 100);
+        // owing yourself is ignored
+        matrix.add(6, 6, 100);
+
+        assertEquals(Map.of("2->1", 1000L, "1->3", 300L), debts(matrix));
+    }
+
+    /**
+     * Test the table grows past its initial size without losing pairs
+     */
+    @Test
+    void add_manyPairs_matchesReferenceMap() {
+        var random = new SplittableRandom(11);
+        DebtMatrix matrix = new DebtMatrix(4);
+        Map<List<Long>, Long> reference = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long from = random.nextLong(1, 200);
+            long to = random.nextLong(1, 200);
+            long cents = random.nextLong(1, 10_000);
+            matrix.add(from, to, cents);
+            if (from != to) {
+                reference.merge(List.of(Math.min(from, to), Math.max(from, to)), from < to ? cents : -cents,
+                        Long::sum);
+            }
+        }
+
+        Map<String, Long> expected = new HashMap<>();
+        reference.forEach((pair, cents) -> {
+            if (cents > 0) {
+                expected.put(pair.get(0) + "->" + pair.get(1), cents);
+            } else if (cents < 0) {
+                expected.put(pair.get(1) + "->" + pair.get(0), -cents);
+            }
+        });
+        assertEquals(expected, debts(matrix));
+    }
+}
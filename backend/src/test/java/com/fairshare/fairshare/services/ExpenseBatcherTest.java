@@ -0,0 +1,163 @@
+package com.fairshare.fairshare.services;
+
+import java.math.BigDecimal;
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.service.ExpenseBatcher;
+import com.fairshare.fairshare.service.ExpenseService;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpenseBatcherTest {
+
+    @Mock
+    ExpenseService expenseService;
+
+    ExpenseBatcher batcher;
+    ThreadPoolTaskExecutor writers;
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+        writers.shutdown();
+    }
+
+    private ExpenseBatcher batcher(int maxSize, Duration maxWait, int threads, int queueCapacity,
+            Duration timeout) {
+        writers = new ThreadPoolTaskExecutor();
+        writers.setCorePoolSize(threads);
+        writers.setMaxPoolSize(threads);
+        writers.setQueueCapacity(queueCapacity);
+        writers.initialize();
+        return new ExpenseBatcher(expenseService, writers, true, maxSize, maxWait, timeout);
+    }
+
+    private static CreateExpenseRequest request(long payerId, String amount) {
+        return new CreateExpenseRequest(payerId, new BigDecimal(amount), null, null, null);
+    }
+
+    private static ExpenseDTO dto(long id, CreateExpenseRequest request) {
+        return new ExpenseDTO(id, 1L, request.payerId(), request.amount(), null, null, null, null, List.of());
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test a full batch is written at once and each caller gets its own
+     * outcome, a rejected request included
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void submit_fullBatch_writesOnceAndCompletesEachCaller() throws Exception {
+        // a wait long enough that only the size can close the batch
+        batcher = batcher(3, Duration.ofMinutes(1), 1, 8, Duration.ofSeconds(5));
+        var first = request(10L, "1.00");
+        var second = request(30L, "2.00");
+        var third = request(20L, "3.00");
+        var denied = new AccessDeniedException("Payer is not a member of this group");
+        when(expenseService.createExpenses(1L, List.of(first, second, third))).thenReturn(List.of(
+                new ExpenseService.BatchOutcome(dto(100L, first), null),
+                new ExpenseService.BatchOutcome(null, denied),
+                new ExpenseService.BatchOutcome(dto(101L, third), null)));
+
+        CompletableFuture<ExpenseDTO> a = batcher.submit(1L, first);
+        CompletableFuture<ExpenseDTO> b = batcher.submit(1L, second);
+        CompletableFuture<ExpenseDTO> c = batcher.submit(1L, third);
+
+        assertEquals(100L, a.join().id());
+        assertEquals(101L, c.join().id());
+        assertEquals(AccessDeniedException.class, b.handle((v, ex) -> ex.getClass()).join());
+        verify(expenseService, times(1)).createExpenses(eq(1L), any());
+    }
+
+    /**
+     * Test a partial batch is written once the wait runs out, groups are
+     * batched separately
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void submit_partialBatch_writtenAfterWait() throws Exception {
+        batcher = batcher(100, Duration.ofMillis(5), 2, 8, Duration.ofSeconds(5));
+        when(expenseService.createExpenses(any(), any())).thenAnswer(inv -> {
+            List<CreateExpenseRequest> requests = inv.getArgument(1);
+            List<ExpenseService.BatchOutcome> out = new ArrayList<>();
+            for (CreateExpenseRequest r : requests) {
+                out.add(new ExpenseService.BatchOutcome(dto(r.payerId(), r), null));
+            }
+            return out;
+        });
+
+        CompletableFuture<ExpenseDTO> a = batcher.submit(1L, request(10L, "1.00"));
+        ExpenseDTO b = batcher.create(2L, request(20L, "2.00"));
+
+        assertEquals(10L, a.join().id());
+        assertEquals(20L, b.id());
+        verify(expenseService).createExpenses(1L, List.of(request(10L, "1.00")));
+        verify(expenseService).createExpenses(2L, List.of(request(20L, "2.00")));
+    }
+
+    /**
+     * Test a batch that fails as a whole fails every caller with the error
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void submit_failedBatch_failsEveryCaller() throws Exception {
+        batcher = batcher(2, Duration.ofMinutes(1), 1, 8, Duration.ofSeconds(5));
+        when(expenseService.createExpenses(eq(1L), any())).thenThrow(new IllegalStateException("connection lost"));
+
+        CompletableFuture<ExpenseDTO> a = batcher.submit(1L, request(10L, "1.00"));
+
+        assertThrows(IllegalStateException.class, () -> batcher.create(1L, request(20L, "2.00")));
+        assertEquals(IllegalStateException.class, a.handle((v, ex) -> ex.getClass()).join());
+    }
+
+    /**
+     * Test a batch the full worker queue cannot take fails its callers at
+     * once, and a caller stops waiting once the timeout runs out
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void create_busyWriters_rejectOrTimeOut() throws Exception {
+        // one writer, no queue, every request a batch of its own
+        batcher = batcher(1, Duration.ofMinutes(1), 1, 0, Duration.ofMillis(50));
+        CountDownLatch stalled = new CountDownLatch(1);
+        when(expenseService.createExpenses(eq(1L), any())).thenAnswer(inv -> {
+            stalled.await();
+            return List.of(new ExpenseService.BatchOutcome(dto(1L, request(10L, "1.00")), null));
+        });
+
+        try {
+            assertThrows(TimeoutException.class, () -> batcher.create(1L, request(10L, "1.00")));
+            assertThrows(TaskRejectedException.class, () -> batcher.create(2L, request(20L, "2.00")));
+        } finally {
+            stalled.countDown();
+        }
+        verify(expenseService, never()).createExpenses(eq(2L), any());
+    }
+}
@@ -2,37 +2,64 @@ package com.fairshare.fairshare.services;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.AccessDeniedException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import com.fairshare.fairshare.dto.BalanceDTO;
+import com.fairshare.fairshare.dto.CreateExpenseRequest;
+import com.fairshare.fairshare.dto.CreateSettlementRequest;
 import com.fairshare.fairshare.dto.ExpenseDTO;
+import com.fairshare.fairshare.dto.ExpenseFilter;
+import com.fairshare.fairshare.dto.ExpensePageDTO;
+import com.fairshare.fairshare.dto.FxRateDTO;
 import com.fairshare.fairshare.dto.SettlementDTO;
+import com.fairshare.fairshare.dto.ShareDTO;
 import com.fairshare.fairshare.entity.Expense;
-import com.fairshare.fairshare.entity.ExpenseShare;
 import com.fairshare.fairshare.entity.Group;
-import com.fairshare.fairshare.entity.Membership;
+import com.fairshare.fairshare.entity.MemberBalance;
+import com.fairshare.fairshare.entity.ParticipantSet;
 import com.fairshare.fairshare.entity.Settlement;
 import com.fairshare.fairshare.entity.User;
 import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.ExpenseRow;
 import com.fairshare.fairshare.repository.ExpenseShareRepository;
 import com.fairshare.fairshare.repository.GroupRepository;
-import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
 import com.fairshare.fairshare.repository.SettlementRepository;
+import com.fairshare.fairshare.repository.UserCurrencyTotal;
 import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.repository.UserTotal;
+import com.fairshare.fairshare.service.BalanceCheckpoints;
 import com.fairshare.fairshare.service.ExpenseService;
+import com.fairshare.fairshare.service.FxRateService;
+import com.fairshare.fairshare.service.FxRateSnapshot;
+import com.fairshare.fairshare.service.GroupVersions;
+import com.fairshare.fairshare.service.MembershipCache;
+import com.fairshare.fairshare.service.ParticipantSetService;
+import com.fairshare.fairshare.service.SplitEngine;
 
 @ExtendWith(MockitoExtension.class)
 public class ExpenseServiceTest {
@@ -42,13 +69,25 @@ public class ExpenseServiceTest {
     @Mock
     ExpenseShareRepository expenseShareRepository;
     @Mock
-    MembershipRepository membershipRepository;
-    @Mock
     GroupRepository groupRepository;
     @Mock
     UserRepository userRepository;
     @Mock
     SettlementRepository settlementRepository;
+    @Mock
+    MemberBalanceRepository memberBalanceRepository;
+    @Mock
+    MembershipCache membershipCache;
+    @Mock
+    ParticipantSetService participantSetService;
+    @Mock
+    BalanceCheckpoints balanceCheckpoints;
+    @Mock
+    FxRateService fxRateService;
+    @Mock
+    GroupVersions groupVersions;
+    @Spy
+    SplitEngine splitEngine = new SplitEngine();
 
     @InjectMocks
     ExpenseService expenseService;
@@ -70,12 +109,12 @@ public class ExpenseServiceTest {
         return g;
     }
 
-    private static Membership membership(User u, Group g, Membership.Role role) {
-        Membership m = new Membership();
-        m.setUser(u);
-        m.setGroup(g);
-        m.setRole(role);
-        return m;
+    private static MemberBalance balance(long groupId, long userId, String amount) {
+        MemberBalance b = new MemberBalance();
+        b.setGroupId(groupId);
+        b.setUserId(userId);
+        b.setBalance(new BigDecimal(amount));
+        return b;
     }
 
     /* ==== tests ==== */
@@ -93,17 +132,11 @@ public class ExpenseServiceTest {
         var alice = user(payerId, "Alice", "alice@example.com");
         var bob = user(20L, "Bob", "bob@example.com");
 
-        // validate group and payer exist + payer is a member
-        when(groupRepository.existsById(groupId)).thenReturn(true);
-        when(userRepository.existsById(payerId)).thenReturn(true);
-        when(membershipRepository.existsByUser_UserIdAndGroup_GroupId(payerId, groupId)).thenReturn(true);
-
-        // define group membership (alice = admin, bob = member)
-        // ensures two members to divide the cost
-        when(membershipRepository.findByGroup_GroupId(groupId))
-                .thenReturn(List.of(
-                        membership(alice, g, Membership.Role.ADMIN),
-                        membership(bob, g, Membership.Role.MEMBER)));
+        // define group membership (alice + bob), this also proves the group exists
+        // and the payer is a member. ensures two members to divide the cost
+        when(membershipCache.members(groupId)).thenReturn(List.of(payerId, bob.getUserId()));
+        when(membershipCache.lockMembers(groupId)).thenReturn(List.of(payerId, bob.getUserId()));
+        when(participantSetService.snapshotId(groupId, List.of(payerId, bob.getUserId()))).thenReturn(7L);
 
         // stub saving an expense. repository should assign an ID and return the saved
         // entity
@@ -120,10 +153,6 @@ public class ExpenseServiceTest {
         when(userRepository.getReferenceById(payerId)).thenReturn(alice);
         when(expenseRepository.save(any(Expense.class))).thenReturn(saved);
 
-        // for each ExpenseShare saved, just return the same object
-        when(expenseShareRepository.save(any(ExpenseShare.class)))
-                .thenAnswer(inv -> inv.getArgument(0));
-
         /* Act: call service method */
         ExpenseDTO dto = expenseService.createExpense(
                 groupId,
@@ -140,10 +169,143 @@ public class ExpenseServiceTest {
         assertEquals(new BigDecimal("30.00"), dto.amount());
         assertEquals(2, dto.shares().size());
 
-        // Verify: split logic, each share is 15.00 & we persisted 2 share rows
+        // Verify: split logic, each share is 15.00 & the split is stored as a
+        // member snapshot rather than share rows
         var perShare = new BigDecimal("30.00").divide(new BigDecimal("2"), 2, RoundingMode.HALF_UP);
         assertTrue(dto.shares().stream().allMatch(s -> s.shareAmount().compareTo(perShare) == 0));
-        verify(expenseShareRepository, times(2)).save(any(ExpenseShare.class));
+        verify(expenseRepository).save(argThat((Expense e) -> e.getSplitMode() == Expense.SplitMode.EQUAL
+                && e.getParticipantSetId().equals(7L)));
+        verify(expenseShareRepository, never()).saveAll(any());
+
+        // Verify: balances updated in one statement, payer +15, bob -15
+        verify(memberBalanceRepository).applyDeltas(
+                groupId,
+                new Long[] { 10L, 20L },
+                new Long[] { 1500L, -1500L });
+        verify(groupVersions).bump(groupId);
+    }
+
+    /**
+     * Test a batch is checked against one membership snapshot, a rejected
+     * request only fails itself, and the rest are saved and applied to the
+     * balances together
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createExpenses_writesAcceptedRequestsTogether() throws Exception {
+        Long groupId = 1L;
+        var g = group(groupId, "Dinner");
+        var alice = user(10L, "Alice", "alice@example.com");
+        var bob = user(20L, "Bob", "bob@example.com");
+
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        when(membershipCache.lockMembers(groupId)).thenReturn(List.of(10L, 20L));
+        when(participantSetService.snapshotId(groupId, List.of(10L, 20L))).thenReturn(7L);
+        when(groupRepository.getReferenceById(groupId)).thenReturn(g);
+        when(userRepository.getReferenceById(10L)).thenReturn(alice);
+        when(userRepository.getReferenceById(20L)).thenReturn(bob);
+        // carol exists but is not a member
+        when(userRepository.existsById(30L)).thenReturn(true);
+        when(expenseRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<ExpenseService.BatchOutcome> outcomes = expenseService.createExpenses(groupId, List.of(
+                new CreateExpenseRequest(10L, new BigDecimal("10.00"), null, "Wine", null),
+                new CreateExpenseRequest(30L, new BigDecimal("5.00"), null, "Gatecrash", null),
+                new CreateExpenseRequest(20L, new BigDecimal("3.01"), null, "Bread", null)));
+
+        assertEquals(3, outcomes.size());
+        assertEquals(new BigDecimal("10.00"), outcomes.get(0).expense().amount());
+        assertTrue(outcomes.get(1).error() instanceof AccessDeniedException);
+        assertEquals(20L, outcomes.get(2).expense().payerId());
+
+        verify(membershipCache, times(1)).members(groupId);
+        verify(membershipCache, times(1)).lockMembers(groupId);
+        verify(expenseRepository, times(1)).saveAll(argThat((List<Expense> l) -> l.size() == 2));
+        verify(expenseRepository, never()).save(any());
+        // alice: +10 - 5 - 1.51, bob: -5 + 3.01 - 1.50
+        verify(memberBalanceRepository, times(1)).applyDeltas(
+                groupId,
+                new Long[] { 10L, 20L },
+                new Long[] { 349L, -349L });
+        verify(groupVersions, times(1)).bump(groupId);
+    }
+
+    /**
+     * Test an amount that does not divide evenly: the left over cent goes to
+     * the lowest user id and the shares add up to exactly the amount
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createExpense_handsOutRemainderCents_soSharesAddUp() throws Exception {
+        Long groupId = 1L;
+        Long payerId = 20L;
+        var g = group(groupId, "Lunch");
+
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, payerId, 30L));
+        when(membershipCache.lockMembers(groupId)).thenReturn(List.of(10L, payerId, 30L));
+        when(participantSetService.snapshotId(groupId, List.of(10L, payerId, 30L))).thenReturn(7L);
+        when(groupRepository.getReferenceById(groupId)).thenReturn(g);
+        when(userRepository.getReferenceById(payerId)).thenReturn(user(payerId, "Bob", "bob@example.com"));
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        ExpenseDTO dto = expenseService.createExpense(groupId, payerId, new BigDecimal("10.00"), null, "Taxi", null);
+
+        assertEquals(List.of(new BigDecimal("3.34"), new BigDecimal("3.33"), new BigDecimal("3.33")),
+                dto.shares().stream().map(ShareDTO::shareAmount).toList());
+
+        // payer +10.00 - 3.33, the others owe their share, nets to zero
+        verify(memberBalanceRepository).applyDeltas(
+                groupId,
+                new Long[] { 10L, 20L, 30L },
+                new Long[] { -334L, 667L, -333L });
+    }
+
+    /**
+     * Test the split follows the members as committed when the cached list is
+     * behind: a member who joined elsewhere gets a share, a payer who left is
+     * rejected
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createExpense_splitsAmongstCommittedMembers() throws Exception {
+        Long groupId = 1L;
+        var g = group(groupId, "Lunch");
+
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        when(membershipCache.lockMembers(groupId)).thenReturn(List.of(10L, 30L));
+        when(participantSetService.snapshotId(groupId, List.of(10L, 30L))).thenReturn(7L);
+        when(groupRepository.getReferenceById(groupId)).thenReturn(g);
+        when(userRepository.getReferenceById(10L)).thenReturn(user(10L, "Alice", "alice@example.com"));
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        expenseService.createExpense(groupId, 10L, new BigDecimal("10.00"), null, "Taxi", null);
+        verify(memberBalanceRepository).applyDeltas(groupId, new Long[] { 10L, 30L }, new Long[] { 500L, -500L });
+
+        assertThrows(AccessDeniedException.class, () -> expenseService.createExpense(
+                groupId, 20L, new BigDecimal("10.00"), null, "Taxi", null));
+        verify(expenseRepository, times(1)).save(any(Expense.class));
+    }
+
+    /**
+     * Test a payer outside the group is rejected without touching the ledger
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createExpense_payerNotMember_throwsAccessDenied() throws Exception {
+        Long groupId = 1L;
+
+        // cached members do not include the payer, who does exist
+        when(membershipCache.members(groupId)).thenReturn(List.of(20L));
+        when(userRepository.existsById(10L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> expenseService.createExpense(
+                groupId, 10L, new BigDecimal("30.00"), null, "Pizza", null));
+
+        verify(expenseRepository, never()).save(any(Expense.class));
     }
 
     /**
@@ -154,44 +316,16 @@ public class ExpenseServiceTest {
     @Test
     void getUserBalances_computesNetBalancesCorrectly() throws Exception {
         Long groupId = 1L;
-        var g = group(groupId, "Trip");
-        var alice = user(10L, "Alice", "alice@example.com");
-        var bob = user(20L, "Bob", "bob@example.com");
 
         // group must exist, otherwise NotFoundException should be thrown
         when(groupRepository.existsById(groupId)).thenReturn(true);
 
-        // define group membership (Alice + Bob)
-        when(membershipRepository.findByGroup_GroupId(groupId))
+        // projection rows maintained by the write paths
+        // (Alice paid $20 split two ways -> +10, Bob owes 10 -> -10)
+        when(memberBalanceRepository.findByGroupId(groupId))
                 .thenReturn(List.of(
-                        membership(alice, g, Membership.Role.ADMIN),
-                        membership(bob, g, Membership.Role.MEMBER)));
-
-        // stub one expense (Alice paid $20)
-        var expense = new Expense();
-        expense.setExpenseId(100L);
-        expense.setGroup(g);
-        expense.setPayer(alice);
-        expense.setAmount(new BigDecimal("20.00"));
-        expense.setCurrency(Expense.CurrencyCode.CAD);
-        expense.setDescription("Snacks");
-        expense.setOccurredAt(Instant.parse("2025-01-01T00:00:00Z"));
-
-        when(expenseRepository.findByGroup_GroupId(groupId)).thenReturn(List.of(expense));
-
-        // stub expense shares ($10 per person)
-        var aliceShare = new ExpenseShare();
-        aliceShare.setExpense(expense);
-        aliceShare.setParticipant(alice);
-        aliceShare.setShareAmount(new BigDecimal("10.00"));
-
-        var bobShare = new ExpenseShare();
-        bobShare.setExpense(expense);
-        bobShare.setParticipant(bob);
-        bobShare.setShareAmount(new BigDecimal("10.00"));
-
-        when(expenseShareRepository.findByExpense_Group_GroupId(groupId))
-                .thenReturn(List.of(aliceShare, bobShare));
+                        balance(groupId, 10L, "10.00"),
+                        balance(groupId, 20L, "-10.00")));
 
         /* Act: call service */
         List<BalanceDTO> balances = expenseService.getUserBalances(groupId);
@@ -208,6 +342,139 @@ public class ExpenseServiceTest {
         assertEquals(new BigDecimal("-10.00"), bobBalance.balance(), "Bob should owe 10");
     }
 
+    /**
+     * Test computing balances from the per-user aggregates of the ledger
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void ledgerBalances_foldsPerUserAggregates() throws Exception {
+        Long groupId = 1L;
+
+        // Carol is a member without any activity
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L, 30L));
+        // Alice paid 30: 12 for Bob as a share row, an equal split worth 10 each for both
+        when(expenseRepository.sumPaidByPayer(eq(groupId), any(), any()))
+                .thenReturn(List.of(new UserTotal(10L, new BigDecimal("30.00"))));
+        when(expenseShareRepository.sumSharesByParticipant(eq(groupId), any(), any()))
+                .thenReturn(List.of(new UserTotal(20L, new BigDecimal("12.00"))));
+        when(expenseRepository.sumEqualSharesByMember(eq(groupId), any(), any()))
+                .thenReturn(List.of(new UserTotal(10L, new BigDecimal("9.00")),
+                        new UserTotal(20L, new BigDecimal("9.00"))));
+        // Bob paid Alice back 5
+        when(settlementRepository.sumPaidByPayer(eq(groupId), any(), any()))
+                .thenReturn(List.of(new UserTotal(20L, new BigDecimal("5.00"))));
+        when(settlementRepository.sumReceivedByPayee(eq(groupId), any(), any()))
+                .thenReturn(List.of(new UserTotal(10L, new BigDecimal("5.00"))));
+
+        Map<Long, BigDecimal> balances = expenseService.ledgerBalances(groupId);
+
+        assertEquals(List.of(10L, 20L, 30L), List.copyOf(balances.keySet()), "One entry per member, by id");
+        assertEquals(0, new BigDecimal("16.00").compareTo(balances.get(10L)), "Alice: 30 - 9 - 5");
+        assertEquals(0, new BigDecimal("-16.00").compareTo(balances.get(20L)), "Bob: -12 - 9 + 5");
+        assertEquals(0, BigDecimal.ZERO.compareTo(balances.get(30L)), "Carol is even");
+    }
+
+    /**
+     * Test an as-of read starts from the nearest checkpoint and only folds
+     * what happened between it and the requested instant
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void getUserBalancesAsOf_replaysOnlyAfterCheckpoint() throws Exception {
+        Long groupId = 1L;
+        Instant checkpoint = Instant.parse("2025-01-31T00:00:00Z");
+        Instant asOf = Instant.parse("2025-01-31T23:59:59Z");
+
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        // Alice was owed 4 at the checkpoint
+        doAnswer(inv -> {
+            Map<Long, Long> cents = inv.getArgument(2);
+            cents.merge(10L, 400L, Long::sum);
+            cents.merge(20L, -400L, Long::sum);
+            return checkpoint;
+        }).when(balanceCheckpoints).load(eq(groupId), eq(asOf), any());
+        // then Bob paid 6, split equally
+        when(expenseRepository.sumPaidByPayer(groupId, checkpoint, asOf))
+                .thenReturn(List.of(new UserTotal(20L, new BigDecimal("6.00"))));
+        when(expenseRepository.sumEqualSharesByMember(groupId, checkpoint, asOf))
+                .thenReturn(List.of(new UserTotal(10L, new BigDecimal("3.00")),
+                        new UserTotal(20L, new BigDecimal("3.00"))));
+
+        List<BalanceDTO> balances = expenseService.getUserBalances(groupId, asOf);
+
+        assertEquals(List.of(new BalanceDTO(10L, new BigDecimal("1.00")), new BalanceDTO(20L, new BigDecimal("-1.00"))),
+                balances);
+        verify(memberBalanceRepository, never()).findByGroupId(any());
+    }
+
+    /**
+     * Test balances in one currency convert each member's per-currency totals
+     * with the cached rates
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void getUserBalancesInCurrency_convertsPerCurrencyTotals() throws Exception {
+        Long groupId = 1L;
+
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        when(fxRateService.snapshot()).thenReturn(FxRateSnapshot.of(List.of(
+                new FxRateDTO("USD", "CAD", new BigDecimal("1.35")))));
+        // Alice is owed 10 CAD and owes 2 USD, Bob the opposite
+        when(expenseRepository.sumNetByMemberAndCurrency(eq(groupId), any(), any())).thenReturn(List.of(
+                new UserCurrencyTotal(10L, "CAD", new BigDecimal("10.00")),
+                new UserCurrencyTotal(10L, "USD", new BigDecimal("-2.00")),
+                new UserCurrencyTotal(20L, "CAD", new BigDecimal("-10.00")),
+                new UserCurrencyTotal(20L, "USD", new BigDecimal("2.00"))));
+
+        List<BalanceDTO> balances = expenseService.getUserBalances(groupId, null, Expense.CurrencyCode.CAD);
+
+        assertEquals(List.of(new BalanceDTO(10L, new BigDecimal("7.30")), new BalanceDTO(20L, new BigDecimal("-7.30"))),
+                balances);
+        verify(fxRateService, times(1)).snapshot();
+    }
+
+    /**
+     * Test no checkpoint is stored when nothing happened since the previous one
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void checkpointBalances_skipsWhenNothingChanged() throws Exception {
+        Long groupId = 1L;
+        Instant previous = Instant.parse("2025-01-30T00:00:00Z");
+        Instant asOf = Instant.parse("2025-01-31T00:00:00Z");
+
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(balanceCheckpoints.horizon()).thenReturn(Instant.parse("2025-01-31T06:00:00Z"));
+        when(balanceCheckpoints.load(eq(groupId), eq(asOf), any())).thenReturn(previous);
+
+        assertEquals(false, expenseService.checkpointBalances(groupId, asOf));
+
+        verify(balanceCheckpoints).lock(groupId);
+        verify(expenseRepository).sumPaidByPayer(groupId, previous, asOf);
+        verify(balanceCheckpoints, never()).store(any(), any(), any());
+    }
+
+    /**
+     * Test checkpoints too close to now are rejected, back-dated writes only
+     * invalidate checkpoints older than the horizon
+     */
+    @Test
+    void checkpointBalances_rejectsRecentInstants() {
+        Long groupId = 1L;
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(balanceCheckpoints.horizon()).thenReturn(Instant.parse("2025-01-31T06:00:00Z"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.checkpointBalances(groupId, Instant.parse("2025-01-31T07:00:00Z")));
+        verify(balanceCheckpoints, never()).lock(any());
+    }
+
     /**
      * Test creating a settlement between two parties
      * 
@@ -225,16 +492,9 @@ public class ExpenseServiceTest {
         var alice = user(payerId, "Alice", "alice@example.com");
         var bob = user(payeeId, "Bob", "bob@example.com");
 
-        // group must exist; else should throw NotFoundException
-        when(groupRepository.existsById(groupId)).thenReturn(true);
-
-        // both users must exist; else NotFoundException
-        when(userRepository.existsById(payerId)).thenReturn(true);
-        when(userRepository.existsById(payeeId)).thenReturn(true);
-
         // both users must be members of the group; else AccessDeniedException
-        when(membershipRepository.existsByUser_UserIdAndGroup_GroupId(payerId, groupId)).thenReturn(true);
-        when(membershipRepository.existsByUser_UserIdAndGroup_GroupId(payeeId, groupId)).thenReturn(true);
+        when(membershipCache.isMember(groupId, payerId)).thenReturn(true);
+        when(membershipCache.isMember(groupId, payeeId)).thenReturn(true);
 
         // getReferenceById stubs for associations
         when(groupRepository.getReferenceById(groupId)).thenReturn(g);
@@ -273,5 +533,168 @@ public class ExpenseServiceTest {
 
         /* Verify: a single settlement row was persisted */
         verify(settlementRepository, times(1)).save(any(Settlement.class));
+
+        /* Verify: payer's balance goes up, payee's goes down */
+        verify(memberBalanceRepository).applyDeltas(
+                groupId,
+                new Long[] { payerId, payeeId },
+                new Long[] { 2500L, -2500L });
+        verify(groupVersions).bump(groupId);
+    }
+
+    /**
+     * Test a whole settle-up is saved in one batch and its deltas applied to
+     * the balances in one update
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createSettlements_savesAllTogether() throws Exception {
+        Long groupId = 1L;
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L, 30L));
+        when(settlementRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<SettlementDTO> dtos = expenseService.createSettlements(groupId, List.of(
+                new CreateSettlementRequest(20L, 10L, new BigDecimal("12.50"), null),
+                new CreateSettlementRequest(30L, 10L, new BigDecimal("7.005"), Settlement.CurrencyCode.USD)), null);
+
+        assertEquals(2, dtos.size());
+        assertEquals(30L, dtos.get(1).payerId());
+        assertEquals(new BigDecimal("7.01"), dtos.get(1).amount());
+        assertEquals(Settlement.CurrencyCode.USD, dtos.get(1).currency());
+        assertEquals(dtos.get(0).settledAt(), dtos.get(1).settledAt(), "One settle-up, one timestamp");
+
+        verify(membershipCache, times(1)).members(groupId);
+        verify(settlementRepository, times(1)).saveAll(argThat((List<Settlement> l) -> l.size() == 2));
+        verify(settlementRepository, never()).save(any());
+        verify(memberBalanceRepository, times(1)).applyDeltas(
+                groupId,
+                new Long[] { 10L, 20L, 30L },
+                new Long[] { -1951L, 1250L, 701L });
+        verify(groupVersions, times(1)).bump(groupId);
+    }
+
+    /**
+     * Test a settle-up planned at a version is recorded only if the group is
+     * still at it
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createSettlements_withExpectedVersion_bumpsOnlyIfCurrent() throws Exception {
+        Long groupId = 1L;
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        when(settlementRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        doAnswer(inv -> {
+            if ((long) inv.getArgument(1) != 7L) {
+                throw new OptimisticLockingFailureException("moved");
+            }
+            return null;
+        }).when(groupVersions).bump(eq(groupId), anyLong());
+
+        expenseService.createSettlements(groupId, List.of(
+                new CreateSettlementRequest(20L, 10L, new BigDecimal("12.50"), null)), 7L);
+        assertThrows(OptimisticLockingFailureException.class, () -> expenseService.createSettlements(groupId,
+                List.of(new CreateSettlementRequest(20L, 10L, new BigDecimal("12.50"), null)), 6L));
+
+        verify(groupVersions).bump(groupId, 7L);
+        verify(groupVersions, never()).bump(groupId);
+    }
+
+    /**
+     * Test one settlement with a non-member rejects the whole batch
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void createSettlements_nonMember_rejectsAll() throws Exception {
+        Long groupId = 1L;
+        when(membershipCache.members(groupId)).thenReturn(List.of(10L, 20L));
+        when(userRepository.existsById(30L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> expenseService.createSettlements(groupId, List.of(
+                new CreateSettlementRequest(20L, 10L, new BigDecimal("12.50"), null),
+                new CreateSettlementRequest(30L, 10L, new BigDecimal("1.00"), null)), null));
+        assertThrows(IllegalArgumentException.class, () -> expenseService.createSettlements(groupId, List.of(
+                new CreateSettlementRequest(20L, 20L, new BigDecimal("1.00"), null)), null));
+
+        verify(settlementRepository, never()).saveAll(any());
+        verify(memberBalanceRepository, never()).applyDeltas(any(), any(), any());
+        verify(groupVersions, never()).bump(groupId);
+    }
+
+    /**
+     * Test an export hands over every expense in the order it was read, with
+     * equal splits expanded from their snapshot
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void exportExpenses_streamsEveryExpense() throws Exception {
+        Long groupId = 1L;
+        ParticipantSet set = new ParticipantSet();
+        set.setParticipantSetId(7L);
+        set.setMemberIds(new Long[] { 10L, 20L });
+        set.setMemberCount(2);
+
+        List<ExpenseRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            rows.add(new ExpenseRow(id, groupId, 10L, new BigDecimal("1.01"), Expense.CurrencyCode.CAD, null,
+                    Instant.EPOCH, Instant.EPOCH, Expense.SplitMode.EQUAL, 7L));
+        }
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(expenseRepository.streamByGroupId(groupId)).thenReturn(rows.stream());
+        when(participantSetService.findAll(any())).thenReturn(Map.of(7L, set));
+
+        List<ExpenseDTO> out = new ArrayList<>();
+        long count = expenseService.exportExpenses(groupId, out::add);
+
+        assertEquals(3, count);
+        assertEquals(List.of(1L, 2L, 3L), out.stream().map(ExpenseDTO::id).toList());
+        assertEquals(List.of(new BigDecimal("0.51"), new BigDecimal("0.50")),
+                out.get(2).shares().stream().map(ShareDTO::shareAmount).toList());
+        verify(participantSetService, times(1)).findAll(any());
+    }
+
+    /**
+     * Test a filtered listing goes through the search query, asking for one
+     * extra row to learn whether another page exists
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void listGroupExpenses_withFilter_searches() throws Exception {
+        Long groupId = 1L;
+        ParticipantSet set = new ParticipantSet();
+        set.setParticipantSetId(7L);
+        set.setMemberIds(new Long[] { 10L, 20L });
+        set.setMemberCount(2);
+        ExpenseFilter filter = new ExpenseFilter(null, null, 10L, null, null, null, null, "taco", false);
+
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+        when(expenseRepository.search(groupId, filter, null, null, false, 2)).thenReturn(List.of(
+                new ExpenseRow(5L, groupId, 10L, new BigDecimal("4.00"), Expense.CurrencyCode.CAD, "Tacos",
+                        Instant.EPOCH, Instant.EPOCH, Expense.SplitMode.EQUAL, 7L)));
+        when(participantSetService.findAll(any())).thenReturn(Map.of(7L, set));
+
+        ExpensePageDTO page = expenseService.listGroupExpenses(groupId, 1, null, null, filter);
+
+        assertEquals(List.of(5L), page.items().stream().map(ExpenseDTO::id).toList());
+        verify(expenseRepository, never()).findLatestPage(any(), eq(2));
+    }
+
+    /**
+     * Test an inverted amount range is rejected before anything is queried
+     */
+    @Test
+    void listGroupExpenses_invertedAmountRange_throws() {
+        Long groupId = 1L;
+        ExpenseFilter filter = new ExpenseFilter(null, null, null, null, new BigDecimal("5"), new BigDecimal("1"),
+                null, null, false);
+        when(groupRepository.existsById(groupId)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.listGroupExpenses(groupId, 10, null, null, filter));
+        verify(expenseRepository, never()).search(any(), any(), any(), any(), eq(false), eq(11));
     }
 }
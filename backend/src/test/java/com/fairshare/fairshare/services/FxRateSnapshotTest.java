@@ -0,0 +1,75 @@
+package com.fairshare.fairshare.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.fairshare.fairshare.dto.FxRateDTO;
+import com.fairshare.fairshare.service.FxRateSnapshot;
+
+public class FxRateSnapshotTest {
+
+    private final FxRateSnapshot snapshot = FxRateSnapshot.of(List.of(
+            new FxRateDTO("USD", "CAD", new BigDecimal("1.35"))));
+
+    /* ==== tests ==== */
+    /**
+     * Test amounts convert with the pair's rate, or the inverse of the
+     * opposite pair, rounded half up to the cent
+     */
+    @Test
+    void convert_usesDirectOrInverseRate() {
+        assertEquals(1350, snapshot.convert(1000, "USD", "CAD"));
+        assertEquals(741, snapshot.convert(1000, "CAD", "USD"), "10 / 1.35 = 7.407");
+        assertEquals(-1350, snapshot.convert(-1000, "USD", "CAD"));
+        assertEquals(1000, snapshot.convert(1000, "CAD", "CAD"));
+    }
+
+    /**
+     * Test a missing pair is rejected instead of converted at some default
+     */
+    @Test
+    void convert_rejectsUnknownPair() {
+        assertThrows(IllegalArgumentException.class, () -> snapshot.convert(1000, "EUR", "CAD"));
+    }
+
+    /**
+     * Test publishing new rates leaves the existing snapshot untouched
+     */
+    @Test
+    void with_returnsNewSnapshot() {
+        FxRateSnapshot next = snapshot.with(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.40"))));
+
+        assertEquals(1350, snapshot.convert(1000, "USD", "CAD"));
+        assertEquals(1400, next.convert(1000, "USD", "CAD"));
+        assertEquals(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.40"))), next.rates());
+    }
+
+    /**
+     * Test the fingerprint follows the rates, not the snapshot instance
+     */
+    @Test
+    void fingerprint_changesWithRates() {
+        FxRateSnapshot same = FxRateSnapshot.of(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.35"))));
+        FxRateSnapshot next = snapshot.with(List.of(new FxRateDTO("USD", "CAD", new BigDecimal("1.40"))));
+
+        assertEquals(snapshot.fingerprint(), same.fingerprint());
+        assertNotEquals(snapshot.fingerprint(), next.fingerprint());
+    }
+
+    /**
+     * Test the fingerprint does not depend on the rates' scale, a snapshot
+     * built from a request and one read back from the table agree
+     */
+    @Test
+    void fingerprint_ignoresScale() {
+        FxRateSnapshot fromDb = FxRateSnapshot.of(7, List.of(
+                new FxRateDTO("USD", "CAD", new BigDecimal("1.35000000"))));
+
+        assertEquals(snapshot.fingerprint(), fromDb.fingerprint());
+    }
+}
@@ -0,0 +1,144 @@
+package com.fairshare.fairshare.services;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import com.fairshare.fairshare.service.GroupResponseCache;
+import com.fairshare.fairshare.service.GroupResponseCache.Format;
+import com.fairshare.fairshare.service.GroupResponseCache.Resource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GroupResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private GroupResponseCache cache(long maxBytes) {
+        return new GroupResponseCache(new ObjectMapper(), List.of(new MappingJackson2CborHttpMessageConverter()),
+                new SimpleMeterRegistry(), maxBytes);
+    }
+
+    private GroupResponseCache.Body get(GroupResponseCache cache, long groupId, long version, Object value) {
+        return cache.get(groupId, Resource.BALANCES, Format.JSON, version, () -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test a body is serialized once per group version
+     */
+    @Test
+    void get_servesSameVersionFromMemory() {
+        var cache = cache(1 << 20);
+
+        var first = get(cache, 1L, 3L, List.of(1, 2));
+        var again = get(cache, 1L, 3L, List.of(1, 2));
+        var members = cache.get(1L, Resource.MEMBERS, Format.JSON, 3L, () -> List.of(9));
+
+        assertSame(first, again);
+        assertEquals("[1,2]", new String(first.data(), StandardCharsets.UTF_8));
+        assertEquals("[9]", new String(members.data(), StandardCharsets.UTF_8));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    /**
+     * Test a new version replaces the body, a late read of an older version
+     * does not
+     */
+    @Test
+    void get_newVersionReplacesBody() {
+        var cache = cache(1 << 20);
+
+        get(cache, 1L, 3L, List.of(1));
+        get(cache, 1L, 4L, List.of(2));
+        var old = get(cache, 1L, 3L, List.of(1));
+        var current = get(cache, 1L, 4L, List.of(2));
+
+        assertEquals("[1]", new String(old.data(), StandardCharsets.UTF_8));
+        assertEquals("[2]", new String(current.data(), StandardCharsets.UTF_8));
+        assertEquals(3, loads.get());
+        assertEquals(3, cache.bytes());
+    }
+
+    /**
+     * Test the least recently used bodies go once the byte limit is passed,
+     * and a body over the limit is returned but not kept
+     */
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxBytes() {
+        var cache = cache(10);
+
+        get(cache, 1L, 1L, List.of(1)); // 3 bytes
+        get(cache, 2L, 1L, List.of(2));
+        get(cache, 3L, 1L, List.of(3));
+        get(cache, 1L, 1L, List.of(1));
+        get(cache, 4L, 1L, List.of(4)); // 12 bytes, group 2 goes
+        assertEquals(9, cache.bytes());
+        assertEquals(4, loads.get());
+
+        get(cache, 2L, 1L, List.of(2));
+        assertEquals(5, loads.get());
+
+        var large = get(cache, 5L, 1L, "x".repeat(20));
+        assertEquals(22, large.data().length);
+        get(cache, 5L, 1L, "x".repeat(20));
+        assertEquals(7, loads.get());
+    }
+
+    /**
+     * Test large bodies carry a gzipped copy that inflates to the json
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void get_gzipsLargeBodies() throws Exception {
+        var cache = cache(1 << 20);
+
+        var small = get(cache, 1L, 1L, List.of(1));
+        var large = get(cache, 2L, 1L, "a".repeat(4096));
+
+        assertNull(small.gzip());
+        assertNotNull(large.gzip());
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertArrayEquals(large.data(), in.readAllBytes());
+        }
+    }
+
+    /**
+     * Test each format is cached on its own, one without a converter falls
+     * back to JSON
+     *
+     * @throws Exception if error occurs
+     */
+    @Test
+    void get_serializesPerFormat() throws Exception {
+        var cache = cache(1 << 20);
+
+        var json = get(cache, 1L, 1L, List.of(1, 2));
+        var cbor = cache.get(1L, Resource.BALANCES, Format.CBOR, 1L, () -> List.of(1, 2));
+        var smile = cache.get(1L, Resource.BALANCES, Format.SMILE, 1L, () -> List.of(1, 2));
+
+        assertEquals(Format.CBOR, cbor.format());
+        assertEquals(List.of(1, 2), new CBORMapper().readValue(cbor.data(), List.class));
+        assertEquals(Format.JSON, smile.format());
+        assertSame(json, smile);
+        assertEquals(json.data().length + cbor.data().length, cache.bytes());
+    }
+}
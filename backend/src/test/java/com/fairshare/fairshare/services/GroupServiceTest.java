@@ -1,13 +1,18 @@
 package com.fairshare.fairshare.services;
 
 import java.nio.file.AccessDeniedException;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -15,15 +20,20 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
 import com.fairshare.fairshare.dto.GroupDTO;
+import com.fairshare.fairshare.dto.GroupPageDTO;
 import com.fairshare.fairshare.entity.Group;
 import com.fairshare.fairshare.entity.Membership;
 import com.fairshare.fairshare.entity.User;
 import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MemberBalanceRepository;
 import com.fairshare.fairshare.repository.MembershipRepository;
 import com.fairshare.fairshare.repository.UserRepository;
 import com.fairshare.fairshare.service.GroupService;
+import com.fairshare.fairshare.service.GroupVersions;
+import com.fairshare.fairshare.service.MembershipCache;
 
 @ExtendWith(MockitoExtension.class)
 public class GroupServiceTest {
@@ -34,6 +44,12 @@ public class GroupServiceTest {
     MembershipRepository membershipRepository;
     @Mock
     UserRepository userRepository;
+    @Mock
+    MemberBalanceRepository memberBalanceRepository;
+    @Mock
+    MembershipCache membershipCache;
+    @Mock
+    GroupVersions groupVersions;
 
     @InjectMocks
     GroupService groupService;
@@ -164,5 +180,80 @@ public class GroupServiceTest {
                 () -> groupService.addMember(groupId, userId, Membership.Role.MEMBER));
 
         verify(membershipRepository, never()).save(any());
+        verify(membershipCache, never()).invalidate(any());
+    }
+
+    /**
+     * Test adding a member drops the group's cached member list and moves
+     * the group's version on
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void addMember_invalidatesMembershipCache() throws Exception {
+        Long groupId = 1L;
+        Long userId = 42L;
+
+        Group g = new Group();
+        g.setGroupId(groupId);
+
+        User u = new User();
+        u.setUserId(userId);
+
+        when(groupRepository.findById(groupId)).thenReturn(Optional.of(g));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(u));
+        when(membershipRepository.findByUser_UserIdAndGroup_GroupId(userId, groupId))
+                .thenReturn(Optional.empty());
+        when(membershipRepository.save(any(Membership.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        groupService.addMember(groupId, userId, null);
+
+        verify(memberBalanceRepository).ensureRow(groupId, userId);
+        verify(membershipCache).invalidate(groupId);
+        verify(groupVersions).bump(groupId);
+    }
+
+    /**
+     * Test a full page of groups hands out the last group's id as the cursor
+     * and the page after it starts past that id
+     */
+    @Test
+    void listGroups_fullPage_returnsCursor() {
+        Instant at = Instant.parse("2025-03-01T10:00:00Z");
+        when(groupRepository.findDTOPageAfter(0, 3)).thenReturn(List.of(
+                new GroupDTO(4L, "A", at, 0), new GroupDTO(7L, "B", at, 0), new GroupDTO(9L, "C", at, 0)));
+        when(groupRepository.findDTOPageAfter(7, 3)).thenReturn(List.of(new GroupDTO(9L, "C", at, 0)));
+
+        GroupPageDTO first = groupService.listGroups(2, null);
+        assertEquals(List.of(4L, 7L), first.items().stream().map(GroupDTO::id).toList());
+        assertEquals("7", first.nextCursor());
+
+        GroupPageDTO last = groupService.listGroups(2, first.nextCursor());
+        assertEquals(List.of(9L), last.items().stream().map(GroupDTO::id).toList());
+        assertNull(last.nextCursor());
+    }
+
+    /**
+     * Test page sizes outside 1-200 and cursors that are not group ids are
+     * rejected before the database is read
+     */
+    @Test
+    void listGroups_badLimitOrCursor_throws() {
+        assertThrows(IllegalArgumentException.class, () -> groupService.listGroups(0, null));
+        assertThrows(IllegalArgumentException.class, () -> groupService.listGroups(201, null));
+        assertThrows(IllegalArgumentException.class, () -> groupService.listGroups(50, "abc"));
+
+        verify(groupRepository, never()).findDTOPageAfter(anyLong(), anyInt());
+    }
+
+    /**
+     * Test listing the groups of a user who does not exist
+     */
+    @Test
+    void listUserGroups_unknownUser_throws() {
+        when(userRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> groupService.listUserGroups(99L, 50, null));
+        verify(membershipRepository, never()).findUserGroupPageAfter(any(), anyLong(), anyInt());
     }
 }
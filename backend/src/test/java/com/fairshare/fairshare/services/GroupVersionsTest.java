@@ -0,0 +1,90 @@
+package com.fairshare.fairshare.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.service.GroupVersions;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupVersionsTest {
+
+    @Mock
+    GroupRepository groupRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    GroupVersions groupVersions;
+
+    @BeforeEach
+    void setUp() {
+        groupVersions = new GroupVersions(groupRepository, transactionManager, 3);
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test a write based on a version that moved on is rejected
+     */
+    @Test
+    void bump_rejectsStaleVersion() {
+        when(groupRepository.bumpLedgerSeqIf(1L, 4L)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> groupVersions.bump(1L, 4L));
+    }
+
+    /**
+     * Test a lost race is retried in a new transaction, each rolled back
+     */
+    @Test
+    void retryOnConflict_retriesUntilAttemptWins() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = groupVersions.retryOnConflict(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("moved on");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    /**
+     * Test retries are bounded and other errors are not retried
+     */
+    @Test
+    void retryOnConflict_givesUpAndPassesErrorsThrough() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> groupVersions.retryOnConflict(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("moved on");
+        }));
+        assertEquals(3, attempts.get());
+
+        assertThrows(NotFoundException.class, () -> groupVersions.retryOnConflict(() -> {
+            attempts.incrementAndGet();
+            throw new NotFoundException();
+        }));
+        assertEquals(4, attempts.get());
+    }
+}
@@ -0,0 +1,142 @@
+package com.fairshare.fairshare.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fairshare.fairshare.entity.IdempotencyKey;
+import com.fairshare.fairshare.repository.IdempotencyKeyRepository;
+import com.fairshare.fairshare.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, new ObjectMapper(),
+                transactionManager, Duration.ofHours(1), 100);
+    }
+
+    /**
+     * a hot retry is answered from the cache without another claim, or even
+     * a transaction
+     * 
+     * @throws Exception
+     */
+    @Test
+    void execute_secondCallServedFromCache() throws Exception {
+        when(idempotencyKeyRepository.claim(eq("POST /x"), eq("k1"), anyString(), any(Instant.class)))
+                .thenReturn(1);
+        AtomicInteger runs = new AtomicInteger();
+        IdempotencyService.Action<Map<String, Integer>> action = () -> Map.of("id", runs.incrementAndGet());
+
+        var first = idempotencyService.execute("POST /x", "k1", Map.of("a", 1), action);
+        var second = idempotencyService.execute("POST /x", "k1", Map.of("a", 1), action);
+
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertArrayEquals(first.body(), second.body());
+        assertEquals(1, runs.get());
+        verify(idempotencyKeyRepository, times(1)).claim(anyString(), anyString(), anyString(), any());
+        verify(idempotencyKeyRepository).storeResponse("POST /x", "k1", first.body());
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    /**
+     * a key already stored in the table replays the stored body
+     * 
+     * @throws Exception
+     */
+    @Test
+    void execute_keyTakenInDatabase_replaysStoredBody() throws Exception {
+        byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+        // the first request stored its hash when it claimed the key
+        AtomicReference<String> claimedHash = new AtomicReference<>();
+        when(idempotencyKeyRepository.claim(eq("POST /x"), eq("k1"), anyString(), any(Instant.class)))
+                .thenAnswer(inv -> {
+                    claimedHash.set(inv.getArgument(2));
+                    return 0;
+                });
+        when(idempotencyKeyRepository.findById(new IdempotencyKey.Key("POST /x", "k1")))
+                .thenAnswer(inv -> {
+                    var stored = new IdempotencyKey();
+                    stored.setRequestHash(claimedHash.get());
+                    stored.setResponseBody(body);
+                    stored.setExpiresAt(Instant.now().plusSeconds(60));
+                    return Optional.of(stored);
+                });
+
+        var outcome = idempotencyService.execute("POST /x", "k1", Map.of("a", 1), () -> {
+            throw new AssertionError("must not run");
+        });
+
+        assertTrue(outcome.replayed());
+        assertArrayEquals(body, outcome.body());
+    }
+
+    /**
+     * reusing a key for another body is rejected
+     * 
+     * @throws Exception
+     */
+    @Test
+    void execute_differentRequest_throwsIllegalArgument() throws Exception {
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), any(Instant.class)))
+                .thenReturn(1);
+        idempotencyService.execute("POST /x", "k1", Map.of("a", 1), () -> Map.of("id", 1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute("POST /x", "k1", Map.of("a", 2), () -> Map.of("id", 2)));
+    }
+
+    /**
+     * a failed request gives the key back so it can be retried
+     * 
+     * @throws Exception
+     */
+    @Test
+    void execute_checkedFailure_releasesKey() throws Exception {
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), any(Instant.class)))
+                .thenReturn(1);
+
+        assertThrows(NotFoundException.class, () -> idempotencyService.execute("POST /x", "k1", Map.of("a", 1),
+                () -> {
+                    throw new NotFoundException();
+                }));
+
+        verify(idempotencyKeyRepository).deleteById(new IdempotencyKey.Key("POST /x", "k1"));
+    }
+}
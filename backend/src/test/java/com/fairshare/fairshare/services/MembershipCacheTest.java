@@ -0,0 +1,116 @@
+package com.fairshare.fairshare.services;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+
+import com.fairshare.fairshare.repository.GroupRepository;
+import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.service.MembershipCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class MembershipCacheTest {
+
+    @Mock
+    GroupRepository groupRepository;
+    @Mock
+    MembershipRepository membershipRepository;
+
+    private MembershipCache cache(int maxGroups, Duration ttl) {
+        return new MembershipCache(groupRepository, membershipRepository, new SimpleMeterRegistry(), maxGroups,
+                ttl);
+    }
+
+    /**
+     * Test repeated lookups are served from memory until invalidated
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void members_cachesUntilInvalidated() throws Exception {
+        var cache = cache(10, Duration.ofMinutes(5));
+        when(membershipRepository.findUserIdsByGroupId(1L)).thenReturn(List.of(10L, 20L));
+
+        assertTrue(cache.isMember(1L, 20L));
+        assertFalse(cache.isMember(1L, 30L));
+        assertEquals(List.of(10L, 20L), cache.members(1L));
+        verify(membershipRepository, times(1)).findUserIdsByGroupId(1L);
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        cache.invalidate(1L);
+        cache.members(1L);
+        verify(membershipRepository, times(2)).findUserIdsByGroupId(1L);
+    }
+
+    /**
+     * Test entries expire after the ttl and the least recently used group is
+     * dropped once the cache is full
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void members_evictsBySizeAndTtl() throws Exception {
+        when(membershipRepository.findUserIdsByGroupId(1L)).thenReturn(List.of(10L));
+        when(membershipRepository.findUserIdsByGroupId(2L)).thenReturn(List.of(20L));
+
+        var expiring = cache(10, Duration.ZERO);
+        expiring.members(1L);
+        expiring.members(1L);
+        assertEquals(0, expiring.hitCount());
+
+        var small = cache(1, Duration.ofMinutes(5));
+        small.members(1L);
+        small.members(2L);
+        small.members(1L);
+        assertEquals(0, small.hitCount());
+        verify(membershipRepository, times(4)).findUserIdsByGroupId(1L);
+    }
+
+    /**
+     * Test unknown groups are reported as not found and not cached
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void members_unknownGroup_throwsNotFound() throws Exception {
+        var cache = cache(10, Duration.ofMinutes(5));
+        when(membershipRepository.findUserIdsByGroupId(9L)).thenReturn(List.of());
+        when(groupRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> cache.members(9L));
+        assertThrows(NotFoundException.class, () -> cache.members(9L));
+        verify(groupRepository, times(2)).existsById(9L);
+    }
+
+    /**
+     * Test the committed members read for a write replace a stale entry
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void lockMembers_refreshesEntry() throws Exception {
+        var cache = cache(10, Duration.ofMinutes(5));
+        when(membershipRepository.findUserIdsByGroupId(1L)).thenReturn(List.of(10L, 20L));
+        when(membershipRepository.lockUserIdsByGroupId(1L)).thenReturn(List.of(10L, 30L));
+
+        assertEquals(List.of(10L, 20L), cache.members(1L));
+        assertEquals(List.of(10L, 30L), cache.lockMembers(1L));
+        assertEquals(List.of(10L, 30L), cache.members(1L));
+        verify(membershipRepository, times(1)).findUserIdsByGroupId(1L);
+    }
+}
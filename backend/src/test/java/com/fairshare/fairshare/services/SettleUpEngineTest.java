@@ -0,0 +1,82 @@
+package com.fairshare.fairshare.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fairshare.fairshare.service.SettleUpEngine;
+import com.fairshare.fairshare.service.SettleUpEngine.Transfer;
+
+public class SettleUpEngineTest {
+
+    private final SettleUpEngine engine = new SettleUpEngine();
+
+    /* ==== helper functions ==== */
+    // applies the transfers and checks every balance ends at zero
+    private static void assertSettles(long[] userIds, long[] cents, List<Transfer> transfers) {
+        Map<Long, Long> remaining = new HashMap<>();
+        for (int i = 0; i < userIds.length; i++) {
+            remaining.put(userIds[i], cents[i]);
+        }
+        for (Transfer t : transfers) {
+            assertTrue(t.cents() > 0, "Transfers must be positive");
+            remaining.merge(t.fromUserId(), t.cents(), Long::sum);
+            remaining.merge(t.toUserId(), -t.cents(), Long::sum);
+        }
+        assertTrue(remaining.values().stream().allMatch(v -> v == 0), "Every balance should be settled");
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test that the exact solver finds pairs that cancel out instead of chaining
+     * through the largest balances
+     */
+    @Test
+    void plan_smallGroup_usesFewestTransfers() {
+        // greedy needs 4 transfers here; splitting into {+5, -5} and
+        // {+6, -3, -3} needs only 3
+        long[] userIds = { 1, 2, 3, 4, 5 };
+        long[] cents = { 500, -500, 600, -300, -300 };
+
+        List<Transfer> transfers = engine.plan(userIds, cents);
+
+        assertSettles(userIds, cents, transfers);
+        assertEquals(3, transfers.size());
+    }
+
+    /**
+     * Test that large groups settle completely within n - 1 transfers
+     */
+    @Test
+    void plan_largeGroup_settlesEveryone() {
+        int n = 5_000;
+        var random = new SplittableRandom(7);
+        long[] userIds = new long[n];
+        long[] cents = new long[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            userIds[i] = i + 1;
+            cents[i] = random.nextLong(-10_000, 10_000);
+            total += cents[i];
+        }
+        cents[n - 1] -= total;
+
+        List<Transfer> transfers = engine.plan(userIds, cents);
+
+        assertSettles(userIds, cents, transfers);
+        assertTrue(transfers.size() <= n - 1);
+    }
+
+    /**
+     * Test that nothing is planned when everyone is already even
+     */
+    @Test
+    void plan_allZero_returnsNoTransfers() {
+        assertTrue(engine.plan(new long[] { 1, 2 }, new long[] { 0, 0 }).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.fairshare.fairshare.services;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fairshare.fairshare.service.Money;
+import com.fairshare.fairshare.service.SplitEngine;
+
+public class SplitEngineTest {
+
+    private final SplitEngine engine = new SplitEngine();
+
+    /* ==== tests ==== */
+    /**
+     * Test the left over cents go to the first parts, one each
+     */
+    @Test
+    void splitEvenly_givesRemainderToFirstParts() {
+        long[] out = new long[3];
+
+        engine.splitEvenly(1000, out);
+        assertArrayEquals(new long[] { 334, 333, 333 }, out);
+
+        engine.splitEvenly(2000, out);
+        assertArrayEquals(new long[] { 667, 667, 666 }, out);
+
+        engine.splitEvenly(2, out);
+        assertArrayEquals(new long[] { 1, 1, 0 }, out);
+    }
+
+    /**
+     * Test shares always add up to the amount and differ by at most a cent
+     */
+    @Test
+    void splitEvenly_randomAmounts_addUpExactly() {
+        var random = new SplittableRandom(7);
+        for (int run = 0; run < 1000; run++) {
+            long cents = random.nextLong(0, 10_000_000_000L);
+            long[] out = new long[random.nextInt(1, 300)];
+
+            engine.splitEvenly(cents, out);
+
+            long total = 0;
+            for (long share : out) {
+                total += share;
+                assertTrue(share - out[out.length - 1] <= 1, "Shares should differ by at most a cent");
+            }
+            assertEquals(cents, total, "Shares should add up to the amount");
+        }
+    }
+
+    /**
+     * Test nobody to split between and negative amounts are rejected
+     */
+    @Test
+    void splitEvenly_rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> engine.splitEvenly(100, new long[0]));
+        assertThrows(IllegalArgumentException.class, () -> engine.splitEvenly(-1, new long[2]));
+    }
+
+    /**
+     * Test amounts are rounded half up to cents and converted back at scale 2
+     */
+    @Test
+    void money_roundsHalfUpToCents() {
+        assertEquals(1024, Money.toCents(new BigDecimal("10.235")));
+        assertEquals(1000, Money.toCents(new BigDecimal("10")));
+        assertEquals(-5, Money.toCents(new BigDecimal("-0.045")));
+        assertEquals(new BigDecimal("10.24"), Money.of(new BigDecimal("10.235")).toBigDecimal());
+        assertEquals("0.05", new Money(5).toString());
+        assertThrows(IllegalArgumentException.class, () -> Money.toCents(new BigDecimal("1e30")));
+    }
+}
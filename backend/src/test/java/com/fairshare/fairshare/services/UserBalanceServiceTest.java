@@ -0,0 +1,105 @@
+package com.fairshare.fairshare.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.fairshare.fairshare.dto.CurrencyAmountDTO;
+import com.fairshare.fairshare.dto.GroupNetBalanceDTO;
+import com.fairshare.fairshare.dto.UserBalancesDTO;
+import com.fairshare.fairshare.repository.ExpenseRepository;
+import com.fairshare.fairshare.repository.GroupCurrencyTotal;
+import com.fairshare.fairshare.repository.MembershipRepository;
+import com.fairshare.fairshare.repository.UserRepository;
+import com.fairshare.fairshare.service.UserBalanceService;
+
+@ExtendWith(MockitoExtension.class)
+public class UserBalanceServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+    @Mock
+    MembershipRepository membershipRepository;
+    @Mock
+    ExpenseRepository expenseRepository;
+
+    ThreadPoolTaskExecutor workers;
+    UserBalanceService userBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(2);
+        workers.setMaxPoolSize(2);
+        workers.initialize();
+        // two groups per query, so three groups take two parallel batches
+        userBalanceService = new UserBalanceService(userRepository, membershipRepository, expenseRepository,
+                workers, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdown();
+    }
+
+    private static GroupCurrencyTotal row(long groupId, String currency, String total) {
+        return new GroupCurrencyTotal(groupId, currency, new BigDecimal(total));
+    }
+
+    /* ==== tests ==== */
+    /**
+     * Test groups are aggregated in batches and folded per group and overall,
+     * groups without activity included
+     * 
+     * @throws Exception if error occurs
+     */
+    @Test
+    void getUserBalances_foldsBatchesPerGroupAndCurrency() throws Exception {
+        Long userId = 5L;
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(membershipRepository.findGroupIdsByUserId(userId)).thenReturn(List.of(1L, 2L, 3L));
+        when(expenseRepository.sumUserNetByGroupAndCurrency(userId, List.of(1L, 2L)))
+                .thenReturn(List.of(row(1, "CAD", "12.50"), row(1, "USD", "-3.00"), row(2, "CAD", "-2.25")));
+        when(expenseRepository.sumUserNetByGroupAndCurrency(userId, List.of(3L)))
+                .thenReturn(List.of());
+
+        UserBalancesDTO dto = userBalanceService.getUserBalances(userId);
+
+        assertEquals(userId, dto.userId());
+        assertEquals(List.of(
+                new GroupNetBalanceDTO(1L, List.of(
+                        new CurrencyAmountDTO("CAD", new BigDecimal("12.50")),
+                        new CurrencyAmountDTO("USD", new BigDecimal("-3.00")))),
+                new GroupNetBalanceDTO(2L, List.of(new CurrencyAmountDTO("CAD", new BigDecimal("-2.25")))),
+                new GroupNetBalanceDTO(3L, List.of())), dto.groups());
+        assertEquals(List.of(
+                new CurrencyAmountDTO("CAD", new BigDecimal("10.25")),
+                new CurrencyAmountDTO("USD", new BigDecimal("-3.00"))), dto.totals());
+    }
+
+    /**
+     * Test an unknown user is a 404 and nothing is queried
+     */
+    @Test
+    void getUserBalances_unknownUser_throwsNotFound() {
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> userBalanceService.getUserBalances(9L));
+
+        verify(expenseRepository, never()).sumUserNetByGroupAndCurrency(any(), any());
+    }
+}
@@ -1,5 +1,5 @@
 import { useEffect, useState } from "react";
-import { listAllGroups } from "../services/GroupService";
+import { listGroups } from "../services/GroupService";
 import type { Group } from "../types";
 import { useNavigate } from "react-router-dom";
 
@@ -7,19 +7,28 @@ const Table = () => {
   //state to update the table with groups
   //using <Group[]> to signify type (found in src/types.ts)
   const [groups, setGroups] = useState<Group[]>([]);
+  //cursor of the next page of groups, null once the last page is loaded
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
 
   //formatting date of createdAt since we used Instant in the backend (which isnt formatted nicely for the user)
   const fmtDate = (iso: string) => new Date(iso).toLocaleDateString("en-CA");
 
-  //fetches response of api and sets state setGroups, uses the api call in services/GroupService.ts
-  useEffect(() => {
-    listAllGroups()
+  //fetches a page of groups and appends it, uses the api call in services/GroupService.ts
+  function loadGroups(after: string | null) {
+    listGroups(after)
       .then((response) => {
-        setGroups(response.data);
+        setGroups((loaded) =>
+          after ? [...loaded, ...response.data.items] : response.data.items
+        );
+        setNextCursor(response.data.nextCursor);
       })
       .catch((error) => {
         console.error(error);
       });
+  }
+
+  useEffect(() => {
+    loadGroups(null);
   }, []);
 
   //on buttoo click, user goes to add group page
@@ -74,6 +83,16 @@ const Table = () => {
           ))}
         </tbody>
       </table>
+
+      {nextCursor && (
+        <button
+          type="button"
+          onClick={() => loadGroups(nextCursor)}
+          className="cursor-pointer m-4 text-white bg-blue-700 hover:bg-blue-800 font-medium rounded-lg text-sm px-5 py-2.5 focus:outline-none"
+        >
+          Load More
+        </button>
+      )}
     </div>
   );
 };
@@ -1,7 +1,18 @@
 import { api } from "./client";
-import type { Group, GroupCreate } from "../types";
+import type { Group, GroupCreate, GroupPage, UserGroupPage } from "../types";
 
-export const listAllGroups = () => api.get<Group[]>("/groups");
+//pages are keyed on group id, pass the previous page's nextCursor as after
+export const listGroups = (after?: string | null, limit = 50) =>
+  api.get<GroupPage>("/groups", { params: { limit, after: after ?? undefined } });
+
+export const listUserGroups = (
+  userId: number,
+  after?: string | null,
+  limit = 50
+) =>
+  api.get<UserGroupPage>(`/users/${userId}/groups`, {
+    params: { limit, after: after ?? undefined },
+  });
 
 export const createGroup = (group: GroupCreate) =>
   api.post<Group>("/groups", group);
@@ -18,4 +18,20 @@ export interface Group {
   id: number;
   name: string;
   createdAt: string;
+  version: number;
+}
+
+export interface GroupPage {
+  items: Group[];
+  nextCursor: string | null;
+}
+
+export interface UserGroup extends Group {
+  memberCount: number;
+  role: "ADMIN" | "MEMBER";
+}
+
+export interface UserGroupPage {
+  items: UserGroup[];
+  nextCursor: string | null;
 }